@@ -21,17 +21,14 @@ package nl.wizenoze.justext;
 
 import nl.wizenoze.justext.paragraph.MutableParagraph;
 import nl.wizenoze.justext.paragraph.Paragraph;
+import nl.wizenoze.justext.util.StopWordMatcher;
 import nl.wizenoze.justext.util.StringUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.EnumSet;
-import java.util.HashSet;
 import java.util.List;
-import java.util.ListIterator;
 import java.util.Set;
-import java.util.function.Function;
-import java.util.function.Predicate;
+import java.util.function.IntPredicate;
 
 import static nl.wizenoze.justext.Classification.BAD;
 import static nl.wizenoze.justext.Classification.GOOD;
@@ -55,15 +52,14 @@ public final class Classifier {
 
     private static final Logger LOG = LoggerFactory.getLogger(Classifier.class);
 
-    private static final Set<Classification> BAD_SET = EnumSet.of(BAD);
-    private static final Set<Classification> BAD_GOOD_SET = EnumSet.of(BAD, GOOD);
-    private static final Set<Classification> BAD_GOOD_NEAR_GOOD_SET = EnumSet.of(BAD, GOOD, NEAR_GOOD);
-    private static final Set<Classification> GOOD_SET = EnumSet.of(GOOD);
-
     /*
-     * Classification sets can never have more than two elements (GOOD/BAD, BAD/NEAR_GOOD, GOOD/NEAR_GOOD).
+     * Boundaries are the closest BAD or GOOD paragraphs in one direction, along with the presence of NEAR_GOOD
+     * paragraphs in between.
      */
-    private static final int CLASSIFICATION_SET_MAX_SIZE = 2;
+    private static final byte BOUNDARY_NONE = 0;
+    private static final byte BOUNDARY_BAD = 1;
+    private static final byte BOUNDARY_GOOD = 2;
+    private static final byte BOUNDARY_NEAR_GOOD = 4;
 
     private Classifier() {
     }
@@ -88,13 +84,35 @@ public final class Classifier {
     public static void classifyContextFree(
             List<MutableParagraph> paragraphs, Set<String> stopWords, ClassifierProperties classifierProperties) {
 
-        for (MutableParagraph paragraph : paragraphs) {
-            Classification classification = doClassifyContextFree(paragraph, stopWords, classifierProperties);
+        classifyContextFree(paragraphs, StopWordMatcher.of(stopWords), classifierProperties);
+    }
 
-            logClassificationChange(paragraph, "context-free", null, classification);
+    /**
+     * Performs context free classification.
+     *
+     * @param paragraphs List of paragraphs.
+     * @param stopWordMatcher Stop word matcher.
+     */
+    public static void classifyContextFree(List<MutableParagraph> paragraphs, StopWordMatcher stopWordMatcher) {
+        classifyContextFree(paragraphs, stopWordMatcher, CLASSIFIER_PROPERTIES_DEFAULT);
+    }
 
-            paragraph.setClassification(classification);
-        }
+    /**
+     * Performs context free classification.
+     *
+     * @param paragraphs List of paragraphs.
+     * @param stopWordMatcher Stop word matcher.
+     * @param classifierProperties Properties.
+     */
+    public static void classifyContextFree(
+            List<MutableParagraph> paragraphs, StopWordMatcher stopWordMatcher,
+            ClassifierProperties classifierProperties) {
+
+        ParagraphTable paragraphTable = new ParagraphTable(paragraphs);
+
+        classifyContextFree(paragraphTable, stopWordMatcher, ClassifierPlan.compile(classifierProperties));
+
+        paragraphTable.writeClassifications();
     }
 
     /**
@@ -121,169 +139,162 @@ public final class Classifier {
             return;
         }
 
+        ParagraphTable paragraphTable = new ParagraphTable(paragraphs);
+
+        classifyContextSensitive(paragraphTable, ClassifierPlan.compile(classifierProperties));
+
+        paragraphTable.writeClassifications();
+    }
+
+    /*
+     * Performs both context free and context sensitive classification on a single table of paragraph features.
+     */
+    static void classify(
+            List<MutableParagraph> paragraphs, StopWordMatcher stopWordMatcher, ClassifierPlan classifierPlan) {
+
+        ParagraphTable paragraphTable = new ParagraphTable(paragraphs);
+
+        classifyContextFree(paragraphTable, stopWordMatcher, classifierPlan);
+
+        // The context-free classification is the first one of each paragraph.
+        paragraphTable.writeClassifications();
+
+        if (paragraphTable.size() > 0) {
+            classifyContextSensitive(paragraphTable, classifierPlan);
+
+            paragraphTable.writeClassifications();
+        }
+    }
+
+    private static void classifyContextFree(
+            ParagraphTable paragraphTable, StopWordMatcher stopWordMatcher, ClassifierPlan classifierPlan) {
+
+        for (int index = 0; index < paragraphTable.size(); index++) {
+            Classification classification = doClassifyContextFree(
+                    paragraphTable, index, stopWordMatcher, classifierPlan);
+
+            logClassificationChange(paragraphTable.getParagraph(index), "context-free", null, classification);
+
+            paragraphTable.setClassification(index, classification);
+        }
+    }
+
+    private static void classifyContextSensitive(ParagraphTable paragraphTable, ClassifierPlan classifierPlan) {
+
         // Change the classification of headings from SHORT to NEAR_GOOD.
-        if (!classifierProperties.getNoHeadings()) {
+        if (classifierPlan.hasHeadingRevisions()) {
             reviseHeadingsAndImages(
-                    paragraphs, (paragraph) -> {
-                        return (paragraph.isHeading() || paragraph.isImage())
-                                && SHORT.equals(paragraph.getClassification());
+                    paragraphTable, (int index) -> {
+                        return (paragraphTable.isHeading(index) || paragraphTable.isImage(index))
+                                && SHORT.equals(paragraphTable.getClassification(index));
                     }, NEAR_GOOD,
-                    classifierProperties.getMaxHeadingDistance());
+                    classifierPlan.getMaxHeadingDistance());
         }
 
         // Change the classification of images from BAD to NEAR_GOOD if they're followed/ by a GOOD paragraph
-        if (!classifierProperties.getNoImages()) {
+        if (classifierPlan.hasImageRevisions()) {
             reviseHeadingsAndImages(
-                    paragraphs,
-                    (paragraph) -> {
-                        return paragraph.isImage();
-                    }, NEAR_GOOD, classifierProperties.getMaxHeadingDistance());
+                    paragraphTable,
+                    (int index) -> {
+                        return paragraphTable.isImage(index);
+                    }, NEAR_GOOD, classifierPlan.getMaxHeadingDistance());
         }
 
         // Classify SHORT paragraphs
-        reviseParagraphs(paragraphs, SHORT, (MergedBoundaryClassifications mergedBoundaryClassifications) -> {
-            Set<Classification> neighbourClassifications = mergedBoundaryClassifications.getMergedClassifications();
-
-            // SHORT between GOOD/GOOD sections is GOOD.
-            if (GOOD_SET.equals(neighbourClassifications)) {
-                return GOOD;
-            }
-
-            // SHORT between BAD/BAD sections is BAD.
-            if (BAD_SET.equals(neighbourClassifications)) {
-                return BAD;
-            }
-
-            // SHORTs between GOOD/BAD or BAD/GOOD sections are GOOD until that NEAR_GOOD section which is the closest
-            // one to the BAD section.
-            if (mergedBoundaryClassifications.isNearGoodRemoved()) {
-                return GOOD;
-            }
-
-            return BAD;
-        });
+        reviseParagraphs(
+                paragraphTable, SHORT,
+                (Classification prevBoundary, Classification nextBoundary, boolean nearGoodRemoved) -> {
+                    // SHORT between GOOD/GOOD sections is GOOD, SHORT between BAD/BAD sections is BAD.
+                    if (prevBoundary == nextBoundary) {
+                        return prevBoundary;
+                    }
+
+                    // SHORTs between GOOD/BAD or BAD/GOOD sections are GOOD until that NEAR_GOOD section which is the
+                    // closest one to the BAD section.
+                    if (nearGoodRemoved) {
+                        return GOOD;
+                    }
+
+                    return BAD;
+                });
 
         // Classify NEAR_GOOD paragraphs
-        reviseParagraphs(paragraphs, NEAR_GOOD, (MergedBoundaryClassifications mergedBoundaryClassifications) -> {
-            Set<Classification> neighbourClassifications = mergedBoundaryClassifications.getMergedClassifications();
+        reviseParagraphs(
+                paragraphTable, NEAR_GOOD,
+                (Classification prevBoundary, Classification nextBoundary, boolean nearGoodRemoved) -> {
+                    if ((prevBoundary == BAD) && (nextBoundary == BAD)) {
+                        return BAD;
+                    }
 
-            if (BAD_SET.equals(neighbourClassifications)) {
-                return BAD;
-            }
-
-            return GOOD;
-        });
+                    return GOOD;
+                });
 
         // Change the classification of headings from BAD to GOOD if they're followed by a GOOD paragraph and if their
         // original (context-free) classification wasn't BAD.
-        if (!classifierProperties.getNoHeadings()) {
+        if (classifierPlan.hasHeadingRevisions()) {
             reviseHeadingsAndImages(
-                    paragraphs,
-                    (paragraph) -> {
-                        return paragraph.isHeading() && BAD.equals(paragraph.getClassification())
-                                && !BAD.equals(paragraph.getFirstClassification());
-                    }, GOOD, classifierProperties.getMaxHeadingDistance());
-        }
-    }
-
-    private static <P extends Paragraph> ListIterator<P> createListIterator(List<P> paragraphs, int startIndex) {
-        try {
-            return paragraphs.listIterator(startIndex);
-        } catch (IndexOutOfBoundsException ioobe) {
-            if (LOG.isDebugEnabled()) {
-                LOG.debug(ioobe.getMessage());
-            }
-
-            return null;
+                    paragraphTable,
+                    (int index) -> {
+                        return paragraphTable.isHeading(index) && BAD.equals(paragraphTable.getClassification(index))
+                                && !BAD.equals(paragraphTable.getParagraph(index).getFirstClassification());
+                    }, GOOD, classifierPlan.getMaxHeadingDistance());
         }
     }
 
     private static Classification doClassifyContextFree(
-            Paragraph paragraph, Set<String> stopWords, ClassifierProperties classifierProperties) {
+            ParagraphTable paragraphTable, int index, StopWordMatcher stopWordMatcher, ClassifierPlan classifierPlan) {
 
-        if (paragraph.isImage()) {
+        if (paragraphTable.isImage(index)) {
             return BAD;
         }
 
-        if (paragraph.getLinkDensity() > classifierProperties.getMaxLinkDensity().floatValue()) {
+        if (paragraphTable.getLinkDensity(index) > classifierPlan.getMaxLinkDensity()) {
             return BAD;
         }
 
-        String text = paragraph.getText();
+        String text = paragraphTable.getParagraph(index).getText();
 
         if (StringUtil.contains(text, COPYRIGHT_CHAR) || StringUtil.contains(text, COPYRIGHT_CODE)) {
             return BAD;
         }
 
-        if (!classifierProperties.getNoHeadlines() && paragraph.isHeadline()) {
+        if (classifierPlan.hasHeadlines() && paragraphTable.isHeadline(index)) {
             return GOOD;
         }
 
-        if (paragraph.isSelect()) {
+        if (paragraphTable.isSelect(index)) {
             return BAD;
         }
 
-        int length = paragraph.length();
+        int length = paragraphTable.length(index);
 
-        if (length < classifierProperties.getLengthLow()) {
-            if (paragraph.getCharsInLinksCount() > 0) {
+        if (length < classifierPlan.getLengthLow()) {
+            if (paragraphTable.getCharsInLinksCount(index) > 0) {
                 return BAD;
             }
 
             return SHORT;
         }
 
-        float stopWordsDensity = paragraph.getStopWordsDensity(stopWords);
+        paragraphTable.countStopWords(index, stopWordMatcher);
+
+        float stopWordsDensity = paragraphTable.getStopWordsDensity(index);
 
-        if (stopWordsDensity >= classifierProperties.getStopWordsHigh().floatValue()) {
-            if (length > classifierProperties.getLengthHigh()) {
+        if (stopWordsDensity >= classifierPlan.getStopWordsHigh()) {
+            if (length > classifierPlan.getLengthHigh()) {
                 return GOOD;
             }
 
             return NEAR_GOOD;
         }
 
-        if (stopWordsDensity >= classifierProperties.getStopWordsLow().floatValue()) {
+        if (stopWordsDensity >= classifierPlan.getStopWordsLow()) {
             return NEAR_GOOD;
         }
 
         return BAD;
     }
 
-    private static Set<Classification> findBoundaryClassifications(
-            ListIterator<MutableParagraph> paragraphIterator, boolean forward) {
-
-        if (paragraphIterator == null) {
-            return BAD_SET;
-        }
-
-        Set<Classification> classificationSet = new HashSet<>(CLASSIFICATION_SET_MAX_SIZE);
-
-        while ((forward && paragraphIterator.hasNext()) || (!forward && paragraphIterator.hasPrevious())) {
-            MutableParagraph paragraph = null;
-
-            if (forward) {
-                paragraph = paragraphIterator.next();
-            } else {
-                paragraph = paragraphIterator.previous();
-            }
-
-            Classification classification = paragraph.getClassification();
-
-            if (!BAD_GOOD_NEAR_GOOD_SET.contains(classification)) {
-                continue;
-            }
-
-            classificationSet.add(classification);
-
-            if (BAD_GOOD_SET.contains(classification)) {
-                return classificationSet;
-            }
-        }
-
-        return BAD_SET;
-    }
-
     private static void logClassificationChange(
             Paragraph paragraph, String changeType, Classification oldClassification,
             Classification newClassification) {
@@ -303,144 +314,136 @@ public final class Classifier {
         }
     }
 
-    private static MergedBoundaryClassifications mergeBoundaryClassifications(
-            MutableParagraph paragraph, List<MutableParagraph> paragraphs, int startIndex) {
+    /*
+     * Replaces the classification of the paragraphs matching the given predicate by the new one, provided that they're
+     * followed by a GOOD paragraph within the given distance. Revised paragraphs don't count as GOOD ones for preceding
+     * paragraphs, thus the distance to the closest GOOD paragraph is tracked while sweeping backward and it's updated
+     * with the classification each paragraph had before it was revised.
+     */
+    private static void reviseHeadingsAndImages(
+            ParagraphTable paragraphTable, IntPredicate headingsPredicate, Classification newClassification,
+            int maxHeadingDistance) {
 
-        // Find boundary classifications
-        Set<Classification> nextClassifications = findBoundaryClassifications(
-                createListIterator(paragraphs, startIndex), true);
+        // Total length of the paragraphs up to the next GOOD one or -1 if there's no GOOD paragraph ahead.
+        long distance = -1;
 
-        Set<Classification> prevClassifications = findBoundaryClassifications(
-                createListIterator(paragraphs, startIndex), false);
+        for (int index = paragraphTable.size() - 1; index >= 0; index--) {
+            Classification classification = paragraphTable.getClassification(index);
 
-        // Remove NEAR_GOOD from the final output either way.
-        boolean nearGoodRemovedFromNext = nextClassifications.remove(NEAR_GOOD);
-        boolean nearGoodRemovedFromPrev = prevClassifications.remove(NEAR_GOOD);
+            if ((distance >= 0) && (distance <= maxHeadingDistance) && headingsPredicate.test(index)) {
+                logClassificationChange(
+                        paragraphTable.getParagraph(index), "heading", classification, newClassification);
 
-        // For good classifications we don't need NEAR_GOOD.
-        if (GOOD_SET.equals(nextClassifications)) {
-            nearGoodRemovedFromNext = false;
-        }
+                paragraphTable.setClassification(index, newClassification);
+            }
 
-        if (GOOD_SET.equals(prevClassifications)) {
-            nearGoodRemovedFromPrev = false;
+            if (classification == GOOD) {
+                distance = 0;
+            } else if (distance >= 0) {
+                distance += paragraphTable.length(index);
+            }
         }
+    }
 
-        // Merge classifications.
-        Set<Classification> mergedClassifications = new HashSet<>(CLASSIFICATION_SET_MAX_SIZE);
-        mergedClassifications.addAll(nextClassifications);
-        mergedClassifications.addAll(prevClassifications);
+    /*
+     * Replaces the target classification of each paragraph by the one determined by the closest BAD or GOOD paragraphs
+     * before and after it. Paragraphs are revised from the first one on and revised paragraphs count as boundaries of
+     * later ones, thus the boundaries before the current paragraph are tracked while sweeping forward. The boundaries
+     * after it are untouched by then, they're collected by a backward sweep beforehand.
+     */
+    private static void reviseParagraphs(
+            ParagraphTable paragraphTable, Classification targetClassification,
+            BoundaryClassifier boundaryClassifier) {
 
-        boolean nearGoodRemoved = (nearGoodRemovedFromNext || nearGoodRemovedFromPrev);
+        int size = paragraphTable.size();
+        byte[] nextBoundaries = new byte[size];
+        byte boundary = BOUNDARY_NONE;
 
-        // If the resulting classification set isn't a BAD/GOOD combination, we don't take NEAR_GOOD classifications
-        // into account.
-        if (!BAD_GOOD_SET.equals(mergedClassifications)) {
-            nearGoodRemoved = false;
+        for (int index = size - 1; index >= 0; index--) {
+            nextBoundaries[index] = boundary;
+            boundary = addToBoundary(boundary, paragraphTable.getClassification(index));
         }
 
-        return new MergedBoundaryClassifications(paragraph, mergedClassifications, nearGoodRemoved);
-    }
+        boundary = BOUNDARY_NONE;
 
-    private static void reviseHeadingsAndImages(
-            List<MutableParagraph> paragraphs, Predicate<MutableParagraph> headingsPredicate,
-            Classification newClassification, int maxHeadingDistance) {
+        for (int index = 0; index < size; index++) {
+            Classification classification = paragraphTable.getClassification(index);
 
-        ListIterator<MutableParagraph> headingsIterator = paragraphs.listIterator();
+            if (classification == targetClassification) {
+                Classification newClassification = classifyBetweenBoundaries(
+                        boundary, nextBoundaries[index], boundaryClassifier);
 
-        while (headingsIterator.hasNext()) {
-            MutableParagraph headingParagraph = headingsIterator.next();
+                logClassificationChange(
+                        paragraphTable.getParagraph(index), "context-sensitive", classification, newClassification);
 
-            if (!headingsPredicate.test(headingParagraph)) {
-                continue;
-            }
+                paragraphTable.setClassification(index, newClassification);
 
-            int nextIndex = headingsIterator.nextIndex();
-
-            ListIterator<MutableParagraph> paragraphIterator = createListIterator(paragraphs, nextIndex);
-
-            if (paragraphIterator == null) {
-                continue;
+                classification = newClassification;
             }
 
-            int distance = 0;
-
-            while (paragraphIterator.hasNext() && distance <= maxHeadingDistance) {
-                MutableParagraph paragraph = paragraphIterator.next();
-
-                if (GOOD.equals(paragraph.getClassification())) {
-                    logClassificationChange(
-                            headingParagraph, "heading", headingParagraph.getClassification(),
-                            newClassification);
-
-                    headingParagraph.setClassification(newClassification);
-
-                    break;
-                }
-
-                distance += paragraph.length();
-            }
+            boundary = addToBoundary(boundary, classification);
         }
     }
 
-    private static void reviseParagraphs(
-        List<MutableParagraph> paragraphs, Classification targetClassification,
-        Function<MergedBoundaryClassifications, Classification> classifier) {
-
-        ListIterator<MutableParagraph> paragraphIterator = paragraphs.listIterator();
-
-        // Classify short paragraphs
-
-        while (paragraphIterator.hasNext()) {
-            MutableParagraph paragraph = paragraphIterator.next();
+    /*
+     * Returns the boundary seen across a paragraph with the given classification, which lies next to the given
+     * boundary. BAD and GOOD paragraphs start a new boundary, NEAR_GOOD ones are remembered and the others are skipped.
+     */
+    private static byte addToBoundary(byte boundary, Classification classification) {
+        if (classification == BAD) {
+            return BOUNDARY_BAD;
+        }
 
-            Classification classification = paragraph.getClassification();
+        if (classification == GOOD) {
+            return BOUNDARY_GOOD;
+        }
 
-            if (!classification.equals(targetClassification)) {
-                continue;
-            }
+        if (classification == NEAR_GOOD) {
+            return (byte) (boundary | BOUNDARY_NEAR_GOOD);
+        }
 
-            int nextIndex = paragraphIterator.nextIndex();
+        return boundary;
+    }
 
-            MergedBoundaryClassifications mergedBoundaryClassifications = mergeBoundaryClassifications(
-                    paragraph, paragraphs, nextIndex);
+    private static Classification classifyBetweenBoundaries(
+            byte prevBoundary, byte nextBoundary, BoundaryClassifier boundaryClassifier) {
 
-            Classification newClassification = classifier.apply(mergedBoundaryClassifications);
+        Classification prevClassification = getBoundaryClassification(prevBoundary);
+        Classification nextClassification = getBoundaryClassification(nextBoundary);
 
-            logClassificationChange(paragraph, "context-sensitive", paragraph.getClassification(), newClassification);
+        // NEAR_GOOD paragraphs only matter between a BAD and a GOOD section, on the side of the BAD one.
+        boolean nearGoodRemoved = false;
 
-            paragraph.setClassification(newClassification);
+        if (prevClassification != nextClassification) {
+            nearGoodRemoved = (prevClassification == BAD) ? hasNearGood(prevBoundary) : hasNearGood(nextBoundary);
         }
+
+        return boundaryClassifier.classify(prevClassification, nextClassification, nearGoodRemoved);
     }
 
     /*
-     * Internal class representing the merged neighbour classifications of a paragraph.
+     * The beginning and the end of the document count as BAD boundaries, but without the NEAR_GOOD paragraphs before
+     * them.
      */
-    private static class MergedBoundaryClassifications {
-
-        private final Set<Classification> mergedClassifications;
-        private final boolean nearGoodRemoved;
-        private final MutableParagraph paragraph;
-
-        MergedBoundaryClassifications(
-                MutableParagraph paragraph, Set<Classification> mergedClassifications, boolean nearGoodRemoved) {
-
-            this.paragraph = paragraph;
-            this.mergedClassifications = mergedClassifications;
-            this.nearGoodRemoved = nearGoodRemoved;
+    private static Classification getBoundaryClassification(byte boundary) {
+        if ((boundary & BOUNDARY_GOOD) != 0) {
+            return GOOD;
         }
 
-        public Set<Classification> getMergedClassifications() {
-            return mergedClassifications;
-        }
+        return BAD;
+    }
 
-        public boolean isNearGoodRemoved() {
-            return nearGoodRemoved;
-        }
+    private static boolean hasNearGood(byte boundary) {
+        return ((boundary & (BOUNDARY_BAD | BOUNDARY_GOOD)) != 0) && ((boundary & BOUNDARY_NEAR_GOOD) != 0);
+    }
 
-        public MutableParagraph getParagraph() {
-            return paragraph;
-        }
+    /*
+     * Decides the classification of a paragraph by the closest BAD or GOOD paragraphs before and after it.
+     */
+    @FunctionalInterface
+    private interface BoundaryClassifier {
+
+        Classification classify(Classification prevBoundary, Classification nextBoundary, boolean nearGoodRemoved);
 
     }
 
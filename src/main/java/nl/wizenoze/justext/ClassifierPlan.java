@@ -0,0 +1,120 @@
+/**
+ * Copyright (c) 2016-present WizeNoze B.V. All rights reserved.
+ *
+ * This file is part of justext-java.
+ *
+ * justext-java is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * justext-java is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with justext-java.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.wizenoze.justext;
+
+/**
+ * Execution plan of the {@link Classifier} compiled from {@link ClassifierProperties}. Thresholds are converted to
+ * primitives once instead of for every paragraph and the revisions turned off by the properties are left out.
+ */
+final class ClassifierPlan {
+
+    private static final ClassifierPlan DEFAULT = new ClassifierPlan(ClassifierProperties.getDefault());
+
+    private final ClassifierProperties classifierProperties;
+    private final boolean headlines;
+    private final int lengthHigh;
+    private final int lengthLow;
+    private final int maxHeadingDistance;
+    private final float maxLinkDensity;
+    private final boolean reviseHeadings;
+    private final boolean reviseImages;
+    private final float stopWordsHigh;
+    private final float stopWordsLow;
+
+    private ClassifierPlan(ClassifierProperties classifierProperties) {
+        this.classifierProperties = classifierProperties;
+
+        headlines = !classifierProperties.getNoHeadlines();
+        lengthHigh = classifierProperties.getLengthHigh();
+        lengthLow = classifierProperties.getLengthLow();
+        maxHeadingDistance = classifierProperties.getMaxHeadingDistance();
+        maxLinkDensity = classifierProperties.getMaxLinkDensity().floatValue();
+        reviseHeadings = !classifierProperties.getNoHeadings();
+        reviseImages = !classifierProperties.getNoImages();
+        stopWordsHigh = classifierProperties.getStopWordsHigh().floatValue();
+        stopWordsLow = classifierProperties.getStopWordsLow().floatValue();
+    }
+
+    /**
+     * Compiles the given properties, the plan of the default properties is shared.
+     *
+     * @param classifierProperties classifier properties.
+     * @return execution plan.
+     */
+    static ClassifierPlan compile(ClassifierProperties classifierProperties) {
+        if (DEFAULT.classifierProperties.equals(classifierProperties)) {
+            return DEFAULT;
+        }
+
+        return new ClassifierPlan(classifierProperties);
+    }
+
+    int getLengthHigh() {
+        return lengthHigh;
+    }
+
+    int getLengthLow() {
+        return lengthLow;
+    }
+
+    int getMaxHeadingDistance() {
+        return maxHeadingDistance;
+    }
+
+    float getMaxLinkDensity() {
+        return maxLinkDensity;
+    }
+
+    float getStopWordsHigh() {
+        return stopWordsHigh;
+    }
+
+    float getStopWordsLow() {
+        return stopWordsLow;
+    }
+
+    /**
+     * Returns if headlines (H1) are GOOD regardless of their other features.
+     *
+     * @return true if headlines are GOOD.
+     */
+    boolean hasHeadlines() {
+        return headlines;
+    }
+
+    /**
+     * Returns if headings followed by a GOOD paragraph are revised.
+     *
+     * @return true if headings are revised.
+     */
+    boolean hasHeadingRevisions() {
+        return reviseHeadings;
+    }
+
+    /**
+     * Returns if images followed by a GOOD paragraph are revised.
+     *
+     * @return true if images are revised.
+     */
+    boolean hasImageRevisions() {
+        return reviseImages;
+    }
+
+}
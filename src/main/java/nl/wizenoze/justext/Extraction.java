@@ -0,0 +1,225 @@
+/**
+ * Copyright (c) 2016-present WizeNoze B.V. All rights reserved.
+ *
+ * This file is part of justext-java.
+ *
+ * justext-java is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * justext-java is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with justext-java.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.wizenoze.justext;
+
+import nl.wizenoze.justext.exception.JusTextParseException;
+import nl.wizenoze.justext.html.ParserBackend;
+import nl.wizenoze.justext.html.PushParser;
+import nl.wizenoze.justext.html.PushParserBackend;
+import nl.wizenoze.justext.io.IncrementalDecoder;
+import nl.wizenoze.justext.paragraph.ExtractionContext;
+import nl.wizenoze.justext.paragraph.MutableParagraph;
+import nl.wizenoze.justext.paragraph.Paragraph;
+import nl.wizenoze.justext.paragraph.ParagraphMaker;
+import nl.wizenoze.justext.util.StopWordMatcher;
+
+import org.xml.sax.SAXException;
+
+import java.io.CharArrayReader;
+import java.io.CharArrayWriter;
+import java.nio.CharBuffer;
+import java.util.List;
+
+/**
+ * Incremental extraction of a single HTML document, whose content arrives in chunks. Chunks are passed to
+ * {@link #feed(char[], int, int)} or {@link #feed(byte[], int, int)} as they arrive and the paragraphs are returned by
+ * {@link #finish()} after the last chunk.
+ *
+ * <p>
+ * If the parser backend of the {@link JusText} instance is a {@link PushParserBackend} (eg.
+ * {@link nl.wizenoze.justext.html.StreamingHtmlParser}), paragraphs are built while the chunks are being fed, so that
+ * {@link #finish()} only has to classify them. Otherwise, including the default
+ * {@link nl.wizenoze.justext.html.HtmlCleanerParserBackend}, feeding only buffers the chunks and the whole document is
+ * parsed by {@link #finish()}, so that neither the latency nor the memory footprint of the extraction is reduced.
+ * </p>
+ *
+ * <p>
+ * Bytes are decoded by an {@link IncrementalDecoder}. Characters and bytes cannot be mixed within the same document.
+ * Instances are not thread-safe.
+ * </p>
+ */
+public final class Extraction {
+
+    private final CharArrayWriter buffer;
+    private final boolean detectLanguage;
+    private final boolean ignoreBoilerplate;
+    private final JusText jusText;
+    private final ParagraphMaker paragraphMaker;
+    private final ParserBackend parserBackend;
+    private final PushParser pushParser;
+    private final StopWordMatcher stopWordMatcher;
+
+    private IncrementalDecoder decoder;
+    private boolean charactersFed = false;
+    private boolean finished = false;
+
+    /*
+     * If the language is to be detected, the stop words of the detected language are used and the given stop word
+     * matcher is ignored.
+     */
+    Extraction(
+            JusText jusText, ParserBackend parserBackend, StopWordMatcher stopWordMatcher, boolean detectLanguage,
+            boolean ignoreBoilerplate) {
+
+        this.jusText = jusText;
+        this.parserBackend = parserBackend;
+        this.stopWordMatcher = stopWordMatcher;
+        this.detectLanguage = detectLanguage;
+        this.ignoreBoilerplate = ignoreBoilerplate;
+
+        if (parserBackend instanceof PushParserBackend) {
+            buffer = null;
+            paragraphMaker = new ParagraphMaker();
+
+            try {
+                pushParser = ((PushParserBackend) parserBackend).newPushParser(paragraphMaker.getContentHandler());
+            } catch (SAXException saxe) {
+                throw new JusTextParseException(saxe.getMessage(), saxe);
+            }
+        } else {
+            buffer = new CharArrayWriter();
+            paragraphMaker = null;
+            pushParser = null;
+        }
+    }
+
+    /**
+     * Feeds the next chunk of the document.
+     *
+     * @param chunk bytes of the document.
+     */
+    public void feed(byte[] chunk) {
+        feed(chunk, 0, chunk.length);
+    }
+
+    /**
+     * Feeds the next chunk of the document. The character encoding is determined by the beginning of the document.
+     *
+     * @param chunk bytes of the document.
+     * @param offset offset of the first byte of the chunk.
+     * @param length number of bytes of the chunk.
+     */
+    public void feed(byte[] chunk, int offset, int length) {
+        checkNotFinished();
+
+        if (charactersFed) {
+            throw new IllegalStateException("Characters have already been fed");
+        }
+
+        if (decoder == null) {
+            decoder = new IncrementalDecoder();
+        }
+
+        doFeed(decoder.decode(chunk, offset, length));
+    }
+
+    /**
+     * Feeds the next chunk of the document.
+     *
+     * @param chunk characters of the document.
+     */
+    public void feed(char[] chunk) {
+        feed(chunk, 0, chunk.length);
+    }
+
+    /**
+     * Feeds the next chunk of the document.
+     *
+     * @param chunk characters of the document.
+     * @param offset offset of the first character of the chunk.
+     * @param length number of characters of the chunk.
+     */
+    public void feed(char[] chunk, int offset, int length) {
+        checkNotFinished();
+
+        if (decoder != null) {
+            throw new IllegalStateException("Bytes have already been fed");
+        }
+
+        charactersFed = true;
+
+        doFeed(chunk, offset, length);
+    }
+
+    /**
+     * Finishes the document and classifies its paragraphs.
+     *
+     * @return list of extracted paragraphs.
+     */
+    public List<Paragraph> finish() {
+        checkNotFinished();
+
+        if (decoder != null) {
+            doFeed(decoder.finish());
+        }
+
+        finished = true;
+
+        if (pushParser == null) {
+            CharArrayReader reader = new CharArrayReader(buffer.toCharArray());
+
+            return ExtractionContext.current().traverse(reader, parserBackend, this::classify);
+        }
+
+        try {
+            pushParser.finish();
+        } catch (SAXException saxe) {
+            throw new JusTextParseException(saxe.getMessage(), saxe);
+        }
+
+        return classify(paragraphMaker.getParagraphs());
+    }
+
+    private List<Paragraph> classify(List<MutableParagraph> paragraphs) {
+        if (detectLanguage) {
+            return jusText.classifyDetectingLanguage(paragraphs, ignoreBoilerplate);
+        }
+
+        return jusText.classify(paragraphs, stopWordMatcher, ignoreBoilerplate);
+    }
+
+    private void checkNotFinished() {
+        if (finished) {
+            throw new IllegalStateException("Extraction has already been finished");
+        }
+    }
+
+    private void doFeed(CharBuffer chars) {
+        doFeed(chars.array(), chars.arrayOffset() + chars.position(), chars.remaining());
+    }
+
+    private void doFeed(char[] chunk, int offset, int length) {
+        if (length == 0) {
+            return;
+        }
+
+        if (pushParser == null) {
+            buffer.write(chunk, offset, length);
+            return;
+        }
+
+        try {
+            pushParser.feed(chunk, offset, length);
+        } catch (SAXException saxe) {
+            throw new JusTextParseException(saxe.getMessage(), saxe);
+        }
+    }
+
+}
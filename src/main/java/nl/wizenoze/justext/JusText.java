@@ -19,16 +19,38 @@
 
 package nl.wizenoze.justext;
 
-import nl.wizenoze.justext.html.HtmlBeautifier;
+import nl.wizenoze.justext.exception.JusTextIOException;
+import nl.wizenoze.justext.html.HtmlCleanerParserBackend;
+import nl.wizenoze.justext.html.ParserBackend;
+import nl.wizenoze.justext.html.PushParserBackend;
+import nl.wizenoze.justext.io.ByteBufferInputStream;
+import nl.wizenoze.justext.io.CharSequenceReader;
+import nl.wizenoze.justext.io.CharsetSniffer;
+import nl.wizenoze.justext.io.CompressedStreams;
+import nl.wizenoze.justext.io.MappedFiles;
+import nl.wizenoze.justext.paragraph.ExtractionContext;
 import nl.wizenoze.justext.paragraph.MutableParagraph;
 import nl.wizenoze.justext.paragraph.Paragraph;
-import nl.wizenoze.justext.paragraph.ParagraphMaker;
+import nl.wizenoze.justext.util.LanguageDetector;
+import nl.wizenoze.justext.util.StopWordMatcher;
 import nl.wizenoze.justext.util.StopWordsUtil;
 
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 
 import static nl.wizenoze.justext.Classifier.CLASSIFIER_PROPERTIES_DEFAULT;
 
@@ -37,11 +59,18 @@ import static nl.wizenoze.justext.Classifier.CLASSIFIER_PROPERTIES_DEFAULT;
  */
 public final class JusText {
 
+    /**
+     * Language code which makes the language of a document to be detected from its stop words, see
+     * {@link #detectLanguage(String)}.
+     */
+    public static final String DETECT_LANGUAGE = "auto";
+
     private static final boolean IGNORE_BOILERPLATE_DEFAULT = true;
     private static final Set<String> STOP_WORDS_DEFAULT = Collections.emptySet();
 
-    private final ClassifierProperties classifierProperties;
-    private final HtmlBeautifier htmlBeautifier;
+    private final ClassifierPlan classifierPlan;
+    private final ParserBackend parserBackend;
+    private final StopWordMatcher stopWordMatcher;
     private final Set<String> stopWords;
 
     /**
@@ -67,9 +96,22 @@ public final class JusText {
      * @param stopWords Set of lower-case stop words to be used by default.
      */
     public JusText(ClassifierProperties classifierProperties, Set<String> stopWords) {
-        this.classifierProperties = classifierProperties;
-        this.htmlBeautifier = new HtmlBeautifier();
+        this(classifierProperties, stopWords, new HtmlCleanerParserBackend());
+    }
+
+    /**
+     * Creates a JusText instance with the given stop words, classifier properties and parser backend.
+     *
+     * @param classifierProperties classifier properties.
+     * @param stopWords Set of lower-case stop words to be used by default.
+     * @param parserBackend parser backend turning the input into element and text events.
+     */
+    public JusText(ClassifierProperties classifierProperties, Set<String> stopWords, ParserBackend parserBackend) {
+        this.classifierPlan = ClassifierPlan.compile(classifierProperties);
+        this.parserBackend = parserBackend;
         this.stopWords = stopWords;
+
+        stopWordMatcher = StopWordMatcher.of(stopWords);
     }
 
     /**
@@ -79,8 +121,7 @@ public final class JusText {
      * @return list of extracted paragraphs.
      */
     public List<Paragraph> extract(String html) {
-        String cleanedHtml = htmlBeautifier.cleanHtml(html);
-        return doExtract(cleanedHtml, stopWords, IGNORE_BOILERPLATE_DEFAULT);
+        return doExtract(new StringReader(html), stopWordMatcher, IGNORE_BOILERPLATE_DEFAULT);
     }
 
     /**
@@ -91,8 +132,7 @@ public final class JusText {
      * @return list of extracted paragraphs.
      */
     public List<Paragraph> extract(String html, boolean ignoreBoilerplate) {
-        String cleanedHtml = htmlBeautifier.cleanHtml(html);
-        return doExtract(cleanedHtml, stopWords, ignoreBoilerplate);
+        return doExtract(new StringReader(html), stopWordMatcher, ignoreBoilerplate);
     }
 
     /**
@@ -115,13 +155,7 @@ public final class JusText {
      * @return list of extracted paragraphs.
      */
     public List<Paragraph> extract(String html, String languageCode, boolean ignoreBoilerplate) {
-        Set<String> stopWordsLocal = STOP_WORDS_DEFAULT;
-
-        if (languageCode != null) {
-            stopWordsLocal = StopWordsUtil.getStopWords(languageCode);
-        }
-
-        return extract(html, stopWordsLocal, ignoreBoilerplate);
+        return doExtract(new StringReader(html), languageCode, ignoreBoilerplate);
     }
 
     /**
@@ -132,8 +166,7 @@ public final class JusText {
      * @return list of extracted paragraphs.
      */
     public List<Paragraph> extract(String html, Set<String> stopWords) {
-        String cleanedHtml = htmlBeautifier.cleanHtml(html);
-        return doExtract(cleanedHtml, stopWords, IGNORE_BOILERPLATE_DEFAULT);
+        return doExtract(new StringReader(html), getStopWordMatcher(stopWords), IGNORE_BOILERPLATE_DEFAULT);
     }
 
     /**
@@ -145,23 +178,347 @@ public final class JusText {
      * @return list of extracted paragraphs.
      */
     public List<Paragraph> extract(String html, Set<String> stopWords, boolean ignoreBoilerplate) {
-        String cleanedHtml = htmlBeautifier.cleanHtml(html);
-        return doExtract(cleanedHtml, stopWords, ignoreBoilerplate);
+        return doExtract(new StringReader(html), getStopWordMatcher(stopWords), ignoreBoilerplate);
+    }
+
+    /**
+     * Extracts paragraphs from the given HTML.
+     *
+     * @param html HTML to extract from.
+     * @param stopWordMatcher stop word matcher.
+     * @param ignoreBoilerplate omit boilerplate paragraphs from the output.
+     * @return list of extracted paragraphs.
+     */
+    public List<Paragraph> extract(String html, StopWordMatcher stopWordMatcher, boolean ignoreBoilerplate) {
+        return doExtract(new StringReader(html), stopWordMatcher, ignoreBoilerplate);
+    }
+
+    /**
+     * Extracts paragraphs from the given HTML. The characters are read directly from the given sequence, without
+     * converting it to a {@link String}.
+     *
+     * @param html HTML to extract from.
+     * @return list of extracted paragraphs.
+     */
+    public List<Paragraph> extract(CharSequence html) {
+        return extract(html, stopWords, IGNORE_BOILERPLATE_DEFAULT);
+    }
+
+    /**
+     * Extracts paragraphs from the given HTML. The characters are read directly from the given sequence, without
+     * converting it to a {@link String}.
+     *
+     * @param html HTML to extract from.
+     * @param languageCode use stop words determined by this language code.
+     * @return list of extracted paragraphs.
+     */
+    public List<Paragraph> extract(CharSequence html, String languageCode) {
+        return doExtract(new CharSequenceReader(html), languageCode, IGNORE_BOILERPLATE_DEFAULT);
+    }
+
+    /**
+     * Extracts paragraphs from the given HTML. The characters are read directly from the given sequence, without
+     * converting it to a {@link String}.
+     *
+     * @param html HTML to extract from.
+     * @param stopWords Set of lower-case stop words.
+     * @param ignoreBoilerplate omit boilerplate paragraphs from the output.
+     * @return list of extracted paragraphs.
+     */
+    public List<Paragraph> extract(CharSequence html, Set<String> stopWords, boolean ignoreBoilerplate) {
+        return doExtract(new CharSequenceReader(html), getStopWordMatcher(stopWords), ignoreBoilerplate);
+    }
+
+    /**
+     * Extracts paragraphs from the remaining characters of the given buffer. The position of the buffer isn't
+     * modified.
+     *
+     * @param html HTML to extract from.
+     * @return list of extracted paragraphs.
+     */
+    public List<Paragraph> extract(CharBuffer html) {
+        return extract((CharSequence) html, stopWords, IGNORE_BOILERPLATE_DEFAULT);
+    }
+
+    /**
+     * Extracts paragraphs from the remaining characters of the given buffer. The position of the buffer isn't
+     * modified.
+     *
+     * @param html HTML to extract from.
+     * @param languageCode use stop words determined by this language code.
+     * @return list of extracted paragraphs.
+     */
+    public List<Paragraph> extract(CharBuffer html, String languageCode) {
+        return extract((CharSequence) html, languageCode);
+    }
+
+    /**
+     * Extracts paragraphs from the remaining characters of the given buffer. The position of the buffer isn't
+     * modified.
+     *
+     * @param html HTML to extract from.
+     * @param stopWords Set of lower-case stop words.
+     * @param ignoreBoilerplate omit boilerplate paragraphs from the output.
+     * @return list of extracted paragraphs.
+     */
+    public List<Paragraph> extract(CharBuffer html, Set<String> stopWords, boolean ignoreBoilerplate) {
+        return extract((CharSequence) html, stopWords, ignoreBoilerplate);
+    }
+
+    /**
+     * Extracts paragraphs from the given slice of a character array. The array isn't copied.
+     *
+     * @param html array containing the HTML to extract from.
+     * @param offset offset of the first character of the HTML.
+     * @param length number of characters of the HTML.
+     * @return list of extracted paragraphs.
+     */
+    public List<Paragraph> extract(char[] html, int offset, int length) {
+        return extract(html, offset, length, stopWords, IGNORE_BOILERPLATE_DEFAULT);
+    }
+
+    /**
+     * Extracts paragraphs from the given slice of a character array. The array isn't copied.
+     *
+     * @param html array containing the HTML to extract from.
+     * @param offset offset of the first character of the HTML.
+     * @param length number of characters of the HTML.
+     * @param languageCode use stop words determined by this language code.
+     * @return list of extracted paragraphs.
+     */
+    public List<Paragraph> extract(char[] html, int offset, int length, String languageCode) {
+        return doExtract(new CharArrayReader(html, offset, length), languageCode, IGNORE_BOILERPLATE_DEFAULT);
+    }
+
+    /**
+     * Extracts paragraphs from the given slice of a character array. The array isn't copied.
+     *
+     * @param html array containing the HTML to extract from.
+     * @param offset offset of the first character of the HTML.
+     * @param length number of characters of the HTML.
+     * @param stopWords Set of lower-case stop words.
+     * @param ignoreBoilerplate omit boilerplate paragraphs from the output.
+     * @return list of extracted paragraphs.
+     */
+    public List<Paragraph> extract(
+            char[] html, int offset, int length, Set<String> stopWords, boolean ignoreBoilerplate) {
+
+        return doExtract(new CharArrayReader(html, offset, length), getStopWordMatcher(stopWords), ignoreBoilerplate);
+    }
+
+    /**
+     * Extracts paragraphs from the given HTML document. Its character encoding is determined by {@link CharsetSniffer}.
+     * Gzip and zlib compressed documents are recognized and inflated on the fly, see {@link CompressedStreams}.
+     *
+     * @param inputStream HTML document to extract from.
+     * @return list of extracted paragraphs.
+     */
+    public List<Paragraph> extract(InputStream inputStream) {
+        return extract(inputStream, stopWords, IGNORE_BOILERPLATE_DEFAULT);
+    }
+
+    /**
+     * Extracts paragraphs from the given HTML document. Its character encoding is determined by {@link CharsetSniffer}.
+     * Gzip and zlib compressed documents are recognized and inflated on the fly, see {@link CompressedStreams}.
+     *
+     * @param inputStream HTML document to extract from.
+     * @param languageCode use stop words determined by this language code.
+     * @return list of extracted paragraphs.
+     */
+    public List<Paragraph> extract(InputStream inputStream, String languageCode) {
+        return doExtract(newReader(inputStream), languageCode, IGNORE_BOILERPLATE_DEFAULT);
+    }
+
+    /**
+     * Extracts paragraphs from the given HTML document. Its character encoding is determined by {@link CharsetSniffer}.
+     * Gzip and zlib compressed documents are recognized and inflated on the fly, see {@link CompressedStreams}.
+     *
+     * @param inputStream HTML document to extract from.
+     * @param stopWords Set of lower-case stop words.
+     * @param ignoreBoilerplate omit boilerplate paragraphs from the output.
+     * @return list of extracted paragraphs.
+     */
+    public List<Paragraph> extract(InputStream inputStream, Set<String> stopWords, boolean ignoreBoilerplate) {
+        return doExtract(newReader(inputStream), getStopWordMatcher(stopWords), ignoreBoilerplate);
+    }
+
+    /**
+     * Extracts paragraphs from the remaining bytes of the given buffer. The character encoding of the document is
+     * determined by {@link CharsetSniffer}; the position of the buffer isn't modified.
+     *
+     * @param buffer HTML document to extract from.
+     * @return list of extracted paragraphs.
+     */
+    public List<Paragraph> extract(ByteBuffer buffer) {
+        return extract(buffer, stopWords, IGNORE_BOILERPLATE_DEFAULT);
     }
 
-    private List<Paragraph> doExtract(String cleanedHtml, Set<String> stopWords, boolean ignoreBoilerplate) {
-        // Parse cleaned HTML
+    /**
+     * Extracts paragraphs from the remaining bytes of the given buffer. The character encoding of the document is
+     * determined by {@link CharsetSniffer}; the position of the buffer isn't modified.
+     *
+     * @param buffer HTML document to extract from.
+     * @param languageCode use stop words determined by this language code.
+     * @return list of extracted paragraphs.
+     */
+    public List<Paragraph> extract(ByteBuffer buffer, String languageCode) {
+        return extract(new ByteBufferInputStream(buffer), languageCode);
+    }
+
+    /**
+     * Extracts paragraphs from the remaining bytes of the given buffer. The character encoding of the document is
+     * determined by {@link CharsetSniffer}; the position of the buffer isn't modified.
+     *
+     * @param buffer HTML document to extract from.
+     * @param stopWords Set of lower-case stop words.
+     * @param ignoreBoilerplate omit boilerplate paragraphs from the output.
+     * @return list of extracted paragraphs.
+     */
+    public List<Paragraph> extract(ByteBuffer buffer, Set<String> stopWords, boolean ignoreBoilerplate) {
+        return extract(new ByteBufferInputStream(buffer), stopWords, ignoreBoilerplate);
+    }
+
+    /**
+     * Extracts paragraphs from the given HTML file. The file is mapped into memory rather than read onto the heap and
+     * its character encoding is determined by {@link CharsetSniffer}.
+     *
+     * @param path HTML file to extract from.
+     * @return list of extracted paragraphs.
+     */
+    public List<Paragraph> extract(Path path) {
+        return extract(path, stopWords, IGNORE_BOILERPLATE_DEFAULT);
+    }
+
+    /**
+     * Extracts paragraphs from the given HTML file. The file is mapped into memory rather than read onto the heap and
+     * its character encoding is determined by {@link CharsetSniffer}.
+     *
+     * @param path HTML file to extract from.
+     * @param languageCode use stop words determined by this language code.
+     * @return list of extracted paragraphs.
+     */
+    public List<Paragraph> extract(Path path, String languageCode) {
+        return extract(map(path), languageCode);
+    }
+
+    /**
+     * Extracts paragraphs from the given HTML file. The file is mapped into memory rather than read onto the heap and
+     * its character encoding is determined by {@link CharsetSniffer}.
+     *
+     * @param path HTML file to extract from.
+     * @param stopWords Set of lower-case stop words.
+     * @param ignoreBoilerplate omit boilerplate paragraphs from the output.
+     * @return list of extracted paragraphs.
+     */
+    public List<Paragraph> extract(Path path, Set<String> stopWords, boolean ignoreBoilerplate) {
+        return extract(map(path), stopWords, ignoreBoilerplate);
+    }
+
+    /**
+     * Extracts paragraphs from each of the given HTML files, see {@link #extract(Path)}.
+     *
+     * @param paths HTML files to extract from.
+     * @return lists of extracted paragraphs by file, in the iteration order of the given files.
+     */
+    public Map<Path, List<Paragraph>> extractAll(Collection<Path> paths) {
+        return extractAll(paths, stopWords, IGNORE_BOILERPLATE_DEFAULT);
+    }
+
+    /**
+     * Extracts paragraphs from each of the given HTML files, see {@link #extract(Path, String)}.
+     *
+     * @param paths HTML files to extract from.
+     * @param languageCode use stop words determined by this language code.
+     * @return lists of extracted paragraphs by file, in the iteration order of the given files.
+     */
+    public Map<Path, List<Paragraph>> extractAll(Collection<Path> paths, String languageCode) {
+        return doExtractAll(paths, path -> extract(path, languageCode));
+    }
+
+    /**
+     * Extracts paragraphs from each of the given HTML files, see {@link #extract(Path, Set, boolean)}. Only one file
+     * is mapped at a time.
+     *
+     * @param paths HTML files to extract from.
+     * @param stopWords Set of lower-case stop words.
+     * @param ignoreBoilerplate omit boilerplate paragraphs from the output.
+     * @return lists of extracted paragraphs by file, in the iteration order of the given files.
+     */
+    public Map<Path, List<Paragraph>> extractAll(
+            Collection<Path> paths, Set<String> stopWords, boolean ignoreBoilerplate) {
+
+        return doExtractAll(paths, path -> extract(path, stopWords, ignoreBoilerplate));
+    }
+
+    /**
+     * Starts an incremental extraction, see {@link Extraction}. The document is parsed while it's being fed only if the
+     * parser backend is a {@link PushParserBackend}; with the default {@link HtmlCleanerParserBackend} the chunks are
+     * buffered and the whole document is parsed by {@link Extraction#finish()}.
+     *
+     * @return extraction session of a single document.
+     */
+    public Extraction newExtraction() {
+        return newExtraction(stopWords, IGNORE_BOILERPLATE_DEFAULT);
+    }
+
+    /**
+     * Starts an incremental extraction, see {@link Extraction}. The document is parsed while it's being fed only if the
+     * parser backend is a {@link PushParserBackend}; with the default {@link HtmlCleanerParserBackend} the chunks are
+     * buffered and the whole document is parsed by {@link Extraction#finish()}.
+     *
+     * @param languageCode use stop words determined by this language code.
+     * @return extraction session of a single document.
+     */
+    public Extraction newExtraction(String languageCode) {
+        if (DETECT_LANGUAGE.equals(languageCode)) {
+            return new Extraction(this, parserBackend, null, true, IGNORE_BOILERPLATE_DEFAULT);
+        }
+
+        return newExtraction(getStopWords(languageCode), IGNORE_BOILERPLATE_DEFAULT);
+    }
 
-        ParagraphMaker paragraphMaker = new ParagraphMaker(cleanedHtml);
-        List<MutableParagraph> paragraphs = paragraphMaker.traverse();
+    /**
+     * Starts an incremental extraction, see {@link Extraction}. The document is parsed while it's being fed only if the
+     * parser backend is a {@link PushParserBackend}; with the default {@link HtmlCleanerParserBackend} the chunks are
+     * buffered and the whole document is parsed by {@link Extraction#finish()}.
+     *
+     * @param stopWords Set of lower-case stop words.
+     * @param ignoreBoilerplate omit boilerplate paragraphs from the output.
+     * @return extraction session of a single document.
+     */
+    public Extraction newExtraction(Set<String> stopWords, boolean ignoreBoilerplate) {
+        return newExtraction(getStopWordMatcher(stopWords), ignoreBoilerplate);
+    }
+
+    /**
+     * Starts an incremental extraction, see {@link Extraction}. The document is parsed while it's being fed only if the
+     * parser backend is a {@link PushParserBackend}; with the default {@link HtmlCleanerParserBackend} the chunks are
+     * buffered and the whole document is parsed by {@link Extraction#finish()}.
+     *
+     * @param stopWordMatcher stop word matcher.
+     * @param ignoreBoilerplate omit boilerplate paragraphs from the output.
+     * @return extraction session of a single document.
+     */
+    public Extraction newExtraction(StopWordMatcher stopWordMatcher, boolean ignoreBoilerplate) {
+        return new Extraction(this, parserBackend, stopWordMatcher, false, ignoreBoilerplate);
+    }
 
-        // Context-free classification
+    /**
+     * Detects the language of the given HTML by the stop words of its paragraphs.
+     *
+     * @param html HTML to detect the language of.
+     * @return ISO 639-1 language code or <code>null</code> if the HTML doesn't contain any of the known stop words.
+     */
+    public String detectLanguage(String html) {
+        return ExtractionContext.current().traverse(new StringReader(html), parserBackend, JusText::detectLanguage);
+    }
 
-        Classifier.classifyContextFree(paragraphs, stopWords, classifierProperties);
+    List<Paragraph> classify(
+            List<MutableParagraph> paragraphs, StopWordMatcher stopWordMatcher, boolean ignoreBoilerplate) {
 
-        // Context-sensitive classification
+        // Context-free and context-sensitive classification
 
-        Classifier.classifyContextSensitive(paragraphs, classifierProperties);
+        Classifier.classify(paragraphs, stopWordMatcher, classifierPlan);
 
         // Freeze paragraphs
 
@@ -176,4 +533,85 @@ public final class JusText {
         return Collections.unmodifiableList(frozenParagraphs);
     }
 
+    List<Paragraph> classifyDetectingLanguage(List<MutableParagraph> paragraphs, boolean ignoreBoilerplate) {
+        // The words tokenized by language detection are reused by the classification
+
+        String languageCode = detectLanguage(paragraphs);
+
+        return classify(paragraphs, getStopWordMatcher(getStopWords(languageCode)), ignoreBoilerplate);
+    }
+
+    private static String detectLanguage(List<? extends Paragraph> paragraphs) {
+        LanguageDetector languageDetector = new LanguageDetector();
+
+        for (Paragraph paragraph : paragraphs) {
+            paragraph.getStopWordsCount(languageDetector);
+        }
+
+        return languageDetector.getLanguageCode();
+    }
+
+    private static Set<String> getStopWords(String languageCode) {
+        if (languageCode == null) {
+            return STOP_WORDS_DEFAULT;
+        }
+
+        return StopWordsUtil.getStopWords(languageCode);
+    }
+
+    private static ByteBuffer map(Path path) {
+        try {
+            return MappedFiles.map(path);
+        } catch (IOException ioe) {
+            throw new JusTextIOException(ioe.getMessage(), ioe);
+        }
+    }
+
+    private static Reader newReader(InputStream inputStream) {
+        try {
+            return CharsetSniffer.newReader(CompressedStreams.decompress(inputStream));
+        } catch (IOException ioe) {
+            throw new JusTextIOException(ioe.getMessage(), ioe);
+        }
+    }
+
+    private StopWordMatcher getStopWordMatcher(Set<String> stopWords) {
+        // The default stop words are converted only once, others are converted once per thread.
+        if (stopWords == this.stopWords) {
+            return stopWordMatcher;
+        }
+
+        return StopWordMatcher.of(stopWords);
+    }
+
+    private List<Paragraph> doExtract(Reader reader, StopWordMatcher stopWordMatcher, boolean ignoreBoilerplate) {
+        // Parse HTML and classify the paragraphs, which are discarded afterwards
+
+        return ExtractionContext.current().traverse(
+                reader, parserBackend, paragraphs -> classify(paragraphs, stopWordMatcher, ignoreBoilerplate));
+    }
+
+    private List<Paragraph> doExtract(Reader reader, String languageCode, boolean ignoreBoilerplate) {
+        if (!DETECT_LANGUAGE.equals(languageCode)) {
+            return doExtract(reader, getStopWordMatcher(getStopWords(languageCode)), ignoreBoilerplate);
+        }
+
+        // Parse HTML, detect its language and classify the paragraphs with the stop words of that language
+
+        return ExtractionContext.current().traverse(
+                reader, parserBackend, paragraphs -> classifyDetectingLanguage(paragraphs, ignoreBoilerplate));
+    }
+
+    private static Map<Path, List<Paragraph>> doExtractAll(
+            Collection<Path> paths, Function<Path, List<Paragraph>> extractor) {
+
+        Map<Path, List<Paragraph>> paragraphsByPath = new LinkedHashMap<>(paths.size() * 2);
+
+        for (Path path : paths) {
+            paragraphsByPath.put(path, extractor.apply(path));
+        }
+
+        return Collections.unmodifiableMap(paragraphsByPath);
+    }
+
 }
@@ -0,0 +1,211 @@
+/**
+ * Copyright (c) 2016-present WizeNoze B.V. All rights reserved.
+ *
+ * This file is part of justext-java.
+ *
+ * justext-java is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * justext-java is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with justext-java.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.wizenoze.justext;
+
+import java.util.List;
+
+import nl.wizenoze.justext.paragraph.MutableParagraph;
+import nl.wizenoze.justext.util.StopWordMatcher;
+
+/**
+ * Features of the paragraphs of a document, which the {@link Classifier} works on. Each feature is a primitive array
+ * indexed by the position of the paragraph, thus the classification passes sweep through a few arrays instead of
+ * calling every paragraph again and again.
+ *
+ * <p>
+ * Lengths, characters in links, path flags and classifications are copied when the table is created. Words and stop
+ * words are counted on demand, as only the paragraphs which are long enough need them. Classifications are changed in
+ * the table and they're copied back to the paragraphs by {@link #writeClassifications()}.
+ * </p>
+ */
+final class ParagraphTable {
+
+    private static final Classification[] CLASSIFICATIONS = Classification.values();
+
+    private static final byte UNCLASSIFIED = -1;
+
+    private static final byte HEADING = 1;
+    private static final byte HEADLINE = 1 << 1;
+    private static final byte IMAGE = 1 << 2;
+    private static final byte SELECT = 1 << 3;
+
+    private final byte[] classifications;
+    private final byte[] flags;
+    private final int[] lengths;
+    private final int[] linkChars;
+    private final MutableParagraph[] paragraphs;
+    private final int[] stopWords;
+    private final int[] words;
+    private final byte[] writtenClassifications;
+
+    /**
+     * Creates a table of the features of the given paragraphs.
+     *
+     * @param paragraphs paragraphs.
+     */
+    ParagraphTable(List<MutableParagraph> paragraphs) {
+        int size = paragraphs.size();
+
+        classifications = new byte[size];
+        flags = new byte[size];
+        lengths = new int[size];
+        linkChars = new int[size];
+        this.paragraphs = new MutableParagraph[size];
+        stopWords = new int[size];
+        words = new int[size];
+
+        int index = 0;
+
+        for (MutableParagraph paragraph : paragraphs) {
+            classifications[index] = encode(paragraph.getClassification());
+            flags[index] = getFlags(paragraph);
+            lengths[index] = paragraph.length();
+            linkChars[index] = paragraph.getCharsInLinksCount();
+            this.paragraphs[index] = paragraph;
+            index++;
+        }
+
+        writtenClassifications = classifications.clone();
+    }
+
+    /**
+     * Counts the words and the stop words of the given paragraph.
+     *
+     * @param index index of the paragraph.
+     * @param stopWordMatcher stop word matcher.
+     */
+    void countStopWords(int index, StopWordMatcher stopWordMatcher) {
+        words[index] = paragraphs[index].getWordsCount();
+        stopWords[index] = paragraphs[index].getStopWordsCount(stopWordMatcher);
+    }
+
+    int getCharsInLinksCount(int index) {
+        return linkChars[index];
+    }
+
+    Classification getClassification(int index) {
+        byte classification = classifications[index];
+
+        return (classification == UNCLASSIFIED) ? null : CLASSIFICATIONS[classification];
+    }
+
+    float getLinkDensity(int index) {
+        int length = lengths[index];
+
+        if (length == 0) {
+            return 0;
+        }
+
+        return 1.0f * linkChars[index] / length;
+    }
+
+    MutableParagraph getParagraph(int index) {
+        return paragraphs[index];
+    }
+
+    /**
+     * Returns the stop words density of the given paragraph, its stop words have to be counted beforehand.
+     *
+     * @param index index of the paragraph.
+     * @return stop words density.
+     */
+    float getStopWordsDensity(int index) {
+        int wordsCount = words[index];
+
+        if (wordsCount == 0) {
+            return 0;
+        }
+
+        return 1.0f * stopWords[index] / wordsCount;
+    }
+
+    boolean isHeading(int index) {
+        return (flags[index] & HEADING) != 0;
+    }
+
+    boolean isHeadline(int index) {
+        return (flags[index] & HEADLINE) != 0;
+    }
+
+    boolean isImage(int index) {
+        return (flags[index] & IMAGE) != 0;
+    }
+
+    boolean isSelect(int index) {
+        return (flags[index] & SELECT) != 0;
+    }
+
+    int length(int index) {
+        return lengths[index];
+    }
+
+    void setClassification(int index, Classification classification) {
+        classifications[index] = encode(classification);
+    }
+
+    int size() {
+        return paragraphs.length;
+    }
+
+    /**
+     * Sets the classification of those paragraphs which have been reclassified since the last invocation.
+     */
+    void writeClassifications() {
+        for (int index = 0; index < paragraphs.length; index++) {
+            byte classification = classifications[index];
+
+            if (classification != writtenClassifications[index]) {
+                paragraphs[index].setClassification(getClassification(index));
+                writtenClassifications[index] = classification;
+            }
+        }
+    }
+
+    private static byte encode(Classification classification) {
+        if (classification == null) {
+            return UNCLASSIFIED;
+        }
+
+        return (byte) classification.ordinal();
+    }
+
+    private static byte getFlags(MutableParagraph paragraph) {
+        byte flags = 0;
+
+        if (paragraph.isHeading()) {
+            flags |= HEADING;
+        }
+
+        if (paragraph.isHeadline()) {
+            flags |= HEADLINE;
+        }
+
+        if (paragraph.isImage()) {
+            flags |= IMAGE;
+        }
+
+        if (paragraph.isSelect()) {
+            flags |= SELECT;
+        }
+
+        return flags;
+    }
+
+}
@@ -20,10 +20,13 @@
 package nl.wizenoze.justext.html;
 
 import java.io.IOException;
+import java.io.StringWriter;
 import java.io.Writer;
 import java.util.Iterator;
 import java.util.List;
 
+import nl.wizenoze.justext.exception.JusTextBeautifierException;
+
 import org.htmlcleaner.BaseToken;
 import org.htmlcleaner.CleanerProperties;
 import org.htmlcleaner.ContentNode;
@@ -68,7 +71,7 @@ class CompactXmlSerializer extends XmlSerializer {
                 } else if (node instanceof TagNode) {
                     TagNode tagNodeItem = (TagNode) node;
 
-                    if (!"head".equalsIgnoreCase(tagNodeItem.getName())) {
+                    if (!isOmitted(tagNodeItem)) {
                         tagNodeItem.serialize(this, writer);
                     }
                 } else {
@@ -80,4 +83,52 @@ class CompactXmlSerializer extends XmlSerializer {
         }
     }
 
+    /*
+     * Returns the given text content the same way as it's written by this serializer.
+     */
+    String escapeContent(TagNode tagNode, String content) {
+        if (dontEscape(tagNode)) {
+            return content.replaceAll("]]>", "]]&gt;");
+        }
+
+        return escapeXml(content);
+    }
+
+    /*
+     * Returns the given attribute value the same way as it's written by this serializer.
+     */
+    String escapeAttributeValue(String value) {
+        return escapeXml(value);
+    }
+
+    /*
+     * Returns the contents of the given tag the same way as they're written by this serializer, if they're written
+     * unescaped within a CDATA section, like those of script and style. Returns null for any other tag.
+     */
+    String serializeCdataContent(TagNode tagNode) {
+        if (!dontEscape(tagNode) || isMinimizedTagSyntax(tagNode)) {
+            return null;
+        }
+
+        StringWriter tagNodeWriter = new StringWriter();
+
+        try {
+            serialize(tagNode, tagNodeWriter);
+        } catch (IOException ioe) {
+            throw new JusTextBeautifierException(ioe.getMessage(), ioe);
+        }
+
+        String xml = tagNodeWriter.toString();
+
+        // Attribute values are escaped, thus the first '>' closes the start tag.
+        return xml.substring(xml.indexOf('>') + 1, xml.length() - tagNode.getName().length() - 3);
+    }
+
+    /*
+     * Returns true if the given child is omitted from the output.
+     */
+    boolean isOmitted(TagNode tagNode) {
+        return "head".equalsIgnoreCase(tagNode.getName());
+    }
+
 }
@@ -0,0 +1,235 @@
+/**
+ * Copyright (c) 2016-present WizeNoze B.V. All rights reserved.
+ *
+ * This file is part of justext-java.
+ *
+ * justext-java is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * justext-java is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with justext-java.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.wizenoze.justext.html;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import nl.wizenoze.justext.util.StringUtil;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+/**
+ * Parser backend for input which is mostly well-formed XHTML. Every document is parsed with a strict XML parser first
+ * and it's cleaned with HtmlCleaner only if it turns out not to be well-formed. In that case the handler receives a
+ * new {@link ContentHandler#startDocument()} event and the whole document is reported again. Documents with an internal
+ * DTD subset or references to entities the XML parser can't resolve (eg. HTML entities) are cleaned as well, as
+ * HtmlCleaner handles those differently. So are documents whose root element isn't html with a single body (and
+ * optionally a head), eg. fragments, since HtmlCleaner would add the missing elements or move the misplaced content.
+ *
+ * <p>
+ * The path taken by each document is reported to the given {@link ParsePathListener} and it's also counted, so that
+ * the hit rate of the fast path can be measured.
+ * </p>
+ */
+public final class FastPathParserBackend implements ParserBackend {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FastPathParserBackend.class);
+
+    private static final ParsePathListener PARSE_PATH_LISTENER_DEFAULT = (ParsePath parsePath) -> { };
+
+    private static final String TAG_BODY = "body";
+    private static final String TAG_HEAD = "head";
+    private static final String TAG_HTML = "html";
+
+    private final ParserBackend fallbackParserBackend;
+    private final AtomicLong fallbackCount;
+    private final AtomicLong fastCount;
+    private final ParsePathListener parsePathListener;
+    private final ParserBackend xmlParserBackend;
+
+    /**
+     * Creates a fast path backend which falls back to {@link HtmlCleanerParserBackend}.
+     */
+    public FastPathParserBackend() {
+        this(PARSE_PATH_LISTENER_DEFAULT);
+    }
+
+    /**
+     * Creates a fast path backend which falls back to {@link HtmlCleanerParserBackend}.
+     *
+     * @param parsePathListener listener to be notified about the path taken by each document.
+     */
+    public FastPathParserBackend(ParsePathListener parsePathListener) {
+        this(new HtmlCleanerParserBackend(), parsePathListener);
+    }
+
+    /**
+     * Creates a fast path backend.
+     *
+     * @param fallbackParserBackend backend to be used for documents which are not well-formed.
+     * @param parsePathListener listener to be notified about the path taken by each document.
+     */
+    public FastPathParserBackend(ParserBackend fallbackParserBackend, ParsePathListener parsePathListener) {
+        this.fallbackParserBackend = fallbackParserBackend;
+        this.parsePathListener = parsePathListener;
+
+        fallbackCount = new AtomicLong();
+        fastCount = new AtomicLong();
+        xmlParserBackend = new XmlParserBackend(true);
+    }
+
+    /**
+     * Returns the number of documents which had to be cleaned, because they were not well-formed.
+     *
+     * @return number of documents parsed by the fallback backend.
+     */
+    public long getFallbackCount() {
+        return fallbackCount.get();
+    }
+
+    /**
+     * Returns the number of documents which were parsed by the strict XML parser.
+     *
+     * @return number of documents parsed on the fast path.
+     */
+    public long getFastCount() {
+        return fastCount.get();
+    }
+
+    @Override
+    public void parse(Reader reader, ContentHandler contentHandler) throws IOException, SAXException {
+        ReplayableReader replayableReader = new ReplayableReader(reader);
+
+        try {
+            xmlParserBackend.parse(replayableReader, new StructureCheckingContentHandler(contentHandler));
+        } catch (SAXParseException spe) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Document isn't well-formed, falling back to cleaning it: {}", spe.getMessage());
+            }
+
+            fallbackParserBackend.parse(replayableReader.replay(), contentHandler);
+
+            fallbackCount.incrementAndGet();
+            parsePathListener.onParsed(ParsePath.FALLBACK);
+
+            return;
+        }
+
+        fastCount.incrementAndGet();
+        parsePathListener.onParsed(ParsePath.FAST);
+    }
+
+    private static SAXParseException reject(String message) {
+        return new SAXParseException(message, null);
+    }
+
+    /**
+     * Path taken by a document.
+     */
+    public enum ParsePath {
+
+        /**
+         * The document was well-formed and it was parsed by the strict XML parser.
+         */
+        FAST,
+
+        /**
+         * The document was not well-formed and it was parsed by the fallback backend.
+         */
+        FALLBACK
+
+    }
+
+    /**
+     * Gets notified about the path taken by each document. It's invoked by the thread which parsed the document.
+     */
+    @FunctionalInterface
+    public interface ParsePathListener {
+
+        /**
+         * Invoked when a document has been parsed.
+         *
+         * @param parsePath path taken by the document.
+         */
+        void onParsed(ParsePath parsePath);
+
+    }
+
+    /*
+     * Rejects documents which HtmlCleaner would restructure: the root element has to be html, whose children can only
+     * be a head and a body and white space.
+     */
+    private static final class StructureCheckingContentHandler extends XMLFilterImpl {
+
+        private boolean body = false;
+        private int depth = 0;
+
+        StructureCheckingContentHandler(ContentHandler contentHandler) {
+            setContentHandler(contentHandler);
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) throws SAXException {
+            if ((depth == 1) && !StringUtil.isBlank(ch, start, length)) {
+                throw reject("Text outside of body");
+            }
+
+            super.characters(ch, start, length);
+        }
+
+        @Override
+        public void endDocument() throws SAXException {
+            if (!body) {
+                throw reject("Missing body element");
+            }
+
+            super.endDocument();
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            depth--;
+
+            super.endElement(uri, localName, qName);
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+            String name = qName.isEmpty() ? localName : qName;
+
+            if ((depth == 0) && !TAG_HTML.equals(name)) {
+                throw reject("Root element \"" + name + "\" isn't html");
+            }
+
+            if (depth == 1) {
+                if (TAG_BODY.equals(name) && !body) {
+                    body = true;
+                } else if (!TAG_HEAD.equals(name)) {
+                    throw reject("Element \"" + name + "\" outside of body");
+                }
+            }
+
+            depth++;
+
+            super.startElement(uri, localName, qName, atts);
+        }
+
+    }
+
+}
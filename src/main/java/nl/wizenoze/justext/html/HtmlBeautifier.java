@@ -20,6 +20,7 @@
 package nl.wizenoze.justext.html;
 
 import java.io.IOException;
+import java.io.Reader;
 import java.io.StringWriter;
 
 import nl.wizenoze.justext.exception.JusTextBeautifierException;
@@ -32,6 +33,9 @@ import org.htmlcleaner.TagNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
 /**
  * Created by lcsontos on 1/7/16.
  */
@@ -42,6 +46,7 @@ public final class HtmlBeautifier {
     private final CleanerProperties cleanerProperties;
     private final HtmlCleaner htmlCleaner;
     private final Serializer serializer;
+    private final TagNodeTraverser tagNodeTraverser;
 
     /**
      * Creates and initializes a cleaner instance.
@@ -49,7 +54,10 @@ public final class HtmlBeautifier {
     public HtmlBeautifier() {
         cleanerProperties = createCleanerProperties();
         htmlCleaner = new HtmlCleaner(cleanerProperties);
-        serializer = new CompactXmlSerializer(cleanerProperties);
+        CompactXmlSerializer compactXmlSerializer = new CompactXmlSerializer(cleanerProperties);
+
+        serializer = compactXmlSerializer;
+        tagNodeTraverser = new TagNodeTraverser(compactXmlSerializer);
     }
 
     /**
@@ -63,6 +71,17 @@ public final class HtmlBeautifier {
 
     }
 
+    /**
+     * Cleans the given HTML document.
+     *
+     * @param reader HTML document reader.
+     * @return Root node of the cleaned HTML tree.
+     * @throws IOException if the document cannot be read.
+     */
+    public TagNode clean(Reader reader) throws IOException {
+        return htmlCleaner.clean(reader);
+    }
+
     /**
      * Cleans the given HTML document.
      *
@@ -86,6 +105,18 @@ public final class HtmlBeautifier {
         return cleanHtml;
     }
 
+    /**
+     * Reports the given cleaned HTML tree to the given handler as SAX events. The handler receives the same events as
+     * if the output of {@link #cleanHtml(String)} was parsed by an XML parser.
+     *
+     * @param rootNode root node of a cleaned HTML tree, as returned by {@link #clean(String)}.
+     * @param contentHandler handler to receive the events.
+     * @throws SAXException if the handler raises an error.
+     */
+    public void traverse(TagNode rootNode, ContentHandler contentHandler) throws SAXException {
+        tagNodeTraverser.traverse(rootNode, contentHandler);
+    }
+
     private CleanerProperties createCleanerProperties() {
         CleanerProperties newCleanerProperties = new CleanerProperties();
 
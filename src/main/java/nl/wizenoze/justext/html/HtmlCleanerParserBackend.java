@@ -0,0 +1,60 @@
+/**
+ * Copyright (c) 2016-present WizeNoze B.V. All rights reserved.
+ *
+ * This file is part of justext-java.
+ *
+ * justext-java is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * justext-java is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with justext-java.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.wizenoze.justext.html;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import org.htmlcleaner.TagNode;
+
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+/**
+ * Default parser backend, which cleans the document with HtmlCleaner and walks the resulting tree.
+ */
+public final class HtmlCleanerParserBackend implements ParserBackend {
+
+    private final HtmlBeautifier htmlBeautifier;
+
+    /**
+     * Creates a backend with a new {@link HtmlBeautifier}.
+     */
+    public HtmlCleanerParserBackend() {
+        this(new HtmlBeautifier());
+    }
+
+    /**
+     * Creates a backend with the given {@link HtmlBeautifier}.
+     *
+     * @param htmlBeautifier beautifier to clean documents with.
+     */
+    public HtmlCleanerParserBackend(HtmlBeautifier htmlBeautifier) {
+        this.htmlBeautifier = htmlBeautifier;
+    }
+
+    @Override
+    public void parse(Reader reader, ContentHandler contentHandler) throws IOException, SAXException {
+        TagNode rootNode = htmlBeautifier.clean(reader);
+
+        htmlBeautifier.traverse(rootNode, contentHandler);
+    }
+
+}
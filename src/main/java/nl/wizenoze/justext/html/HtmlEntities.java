@@ -0,0 +1,163 @@
+/**
+ * Copyright (c) 2016-present WizeNoze B.V. All rights reserved.
+ *
+ * This file is part of justext-java.
+ *
+ * justext-java is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * justext-java is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with justext-java.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.wizenoze.justext.html;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Character entities of HTML 4 (plus <code>&amp;apos;</code>) used by {@link StreamingHtmlParser} to decode text and
+ * attribute values.
+ */
+final class HtmlEntities {
+
+    /*
+     * Longest entity name, used to give up looking for the terminating semicolon.
+     */
+    static final int MAX_NAME_LENGTH = 32;
+
+    private static final String[] NAMES = {
+            "quot", "amp", "lt", "gt", "nbsp", "iexcl", "cent", "pound", "curren", "yen", "brvbar", "sect", "uml",
+            "copy", "ordf", "laquo", "not", "shy", "reg", "macr", "deg", "plusmn", "sup2", "sup3", "acute", "micro",
+            "para", "middot", "cedil", "sup1", "ordm", "raquo", "frac14", "frac12", "frac34", "iquest", "Agrave",
+            "Aacute", "Acirc", "Atilde", "Auml", "Aring", "AElig", "Ccedil", "Egrave", "Eacute", "Ecirc", "Euml",
+            "Igrave", "Iacute", "Icirc", "Iuml", "ETH", "Ntilde", "Ograve", "Oacute", "Ocirc", "Otilde", "Ouml",
+            "times", "Oslash", "Ugrave", "Uacute", "Ucirc", "Uuml", "Yacute", "THORN", "szlig", "agrave", "aacute",
+            "acirc", "atilde", "auml", "aring", "aelig", "ccedil", "egrave", "eacute", "ecirc", "euml", "igrave",
+            "iacute", "icirc", "iuml", "eth", "ntilde", "ograve", "oacute", "ocirc", "otilde", "ouml", "divide",
+            "oslash", "ugrave", "uacute", "ucirc", "uuml", "yacute", "thorn", "yuml", "OElig", "oelig", "Scaron",
+            "scaron", "Yuml", "fnof", "circ", "tilde", "Alpha", "Beta", "Gamma", "Delta", "Epsilon", "Zeta", "Eta",
+            "Theta", "Iota", "Kappa", "Lambda", "Mu", "Nu", "Xi", "Omicron", "Pi", "Rho", "Sigma", "Tau", "Upsilon",
+            "Phi", "Chi", "Psi", "Omega", "alpha", "beta", "gamma", "delta", "epsilon", "zeta", "eta", "theta",
+            "iota", "kappa", "lambda", "mu", "nu", "xi", "omicron", "pi", "rho", "sigmaf", "sigma", "tau", "upsilon",
+            "phi", "chi", "psi", "omega", "thetasym", "upsih", "piv", "ensp", "emsp", "thinsp", "zwnj", "zwj", "lrm",
+            "rlm", "ndash", "mdash", "lsquo", "rsquo", "sbquo", "ldquo", "rdquo", "bdquo", "dagger", "Dagger", "bull",
+            "hellip", "permil", "prime", "Prime", "lsaquo", "rsaquo", "oline", "frasl", "euro", "image", "weierp",
+            "real", "trade", "alefsym", "larr", "uarr", "rarr", "darr", "harr", "crarr", "lArr", "uArr", "rArr",
+            "dArr", "hArr", "forall", "part", "exist", "empty", "nabla", "isin", "notin", "ni", "prod", "sum",
+            "minus", "lowast", "radic", "prop", "infin", "ang", "and", "or", "cap", "cup", "int", "there4", "sim",
+            "cong", "asymp", "ne", "equiv", "le", "ge", "sub", "sup", "nsub", "sube", "supe", "oplus", "otimes",
+            "perp", "sdot", "lceil", "rceil", "lfloor", "rfloor", "lang", "rang", "loz", "spades", "clubs", "hearts",
+            "diams", "apos"
+    };
+
+    private static final char[] CHARACTERS = {
+            '"', '\u0026', '\u003c', '\u003e', '\u00a0', '\u00a1', '\u00a2', '\u00a3', '\u00a4', '\u00a5',
+            '\u00a6', '\u00a7', '\u00a8', '\u00a9', '\u00aa', '\u00ab', '\u00ac', '\u00ad', '\u00ae', '\u00af',
+            '\u00b0', '\u00b1', '\u00b2', '\u00b3', '\u00b4', '\u00b5', '\u00b6', '\u00b7', '\u00b8', '\u00b9',
+            '\u00ba', '\u00bb', '\u00bc', '\u00bd', '\u00be', '\u00bf', '\u00c0', '\u00c1', '\u00c2', '\u00c3',
+            '\u00c4', '\u00c5', '\u00c6', '\u00c7', '\u00c8', '\u00c9', '\u00ca', '\u00cb', '\u00cc', '\u00cd',
+            '\u00ce', '\u00cf', '\u00d0', '\u00d1', '\u00d2', '\u00d3', '\u00d4', '\u00d5', '\u00d6', '\u00d7',
+            '\u00d8', '\u00d9', '\u00da', '\u00db', '\u00dc', '\u00dd', '\u00de', '\u00df', '\u00e0', '\u00e1',
+            '\u00e2', '\u00e3', '\u00e4', '\u00e5', '\u00e6', '\u00e7', '\u00e8', '\u00e9', '\u00ea', '\u00eb',
+            '\u00ec', '\u00ed', '\u00ee', '\u00ef', '\u00f0', '\u00f1', '\u00f2', '\u00f3', '\u00f4', '\u00f5',
+            '\u00f6', '\u00f7', '\u00f8', '\u00f9', '\u00fa', '\u00fb', '\u00fc', '\u00fd', '\u00fe', '\u00ff',
+            '\u0152', '\u0153', '\u0160', '\u0161', '\u0178', '\u0192', '\u02c6', '\u02dc', '\u0391', '\u0392',
+            '\u0393', '\u0394', '\u0395', '\u0396', '\u0397', '\u0398', '\u0399', '\u039a', '\u039b', '\u039c',
+            '\u039d', '\u039e', '\u039f', '\u03a0', '\u03a1', '\u03a3', '\u03a4', '\u03a5', '\u03a6', '\u03a7',
+            '\u03a8', '\u03a9', '\u03b1', '\u03b2', '\u03b3', '\u03b4', '\u03b5', '\u03b6', '\u03b7', '\u03b8',
+            '\u03b9', '\u03ba', '\u03bb', '\u03bc', '\u03bd', '\u03be', '\u03bf', '\u03c0', '\u03c1', '\u03c2',
+            '\u03c3', '\u03c4', '\u03c5', '\u03c6', '\u03c7', '\u03c8', '\u03c9', '\u03d1', '\u03d2', '\u03d6',
+            '\u2002', '\u2003', '\u2009', '\u200c', '\u200d', '\u200e', '\u200f', '\u2013', '\u2014', '\u2018',
+            '\u2019', '\u201a', '\u201c', '\u201d', '\u201e', '\u2020', '\u2021', '\u2022', '\u2026', '\u2030',
+            '\u2032', '\u2033', '\u2039', '\u203a', '\u203e', '\u2044', '\u20ac', '\u2111', '\u2118', '\u211c',
+            '\u2122', '\u2135', '\u2190', '\u2191', '\u2192', '\u2193', '\u2194', '\u21b5', '\u21d0', '\u21d1',
+            '\u21d2', '\u21d3', '\u21d4', '\u2200', '\u2202', '\u2203', '\u2205', '\u2207', '\u2208', '\u2209',
+            '\u220b', '\u220f', '\u2211', '\u2212', '\u2217', '\u221a', '\u221d', '\u221e', '\u2220', '\u2227',
+            '\u2228', '\u2229', '\u222a', '\u222b', '\u2234', '\u223c', '\u2245', '\u2248', '\u2260', '\u2261',
+            '\u2264', '\u2265', '\u2282', '\u2283', '\u2284', '\u2286', '\u2287', '\u2295', '\u2297', '\u22a5',
+            '\u22c5', '\u2308', '\u2309', '\u230a', '\u230b', '\u2329', '\u232a', '\u25ca', '\u2660', '\u2663',
+            '\u2665', '\u2666', '\''
+    };
+
+    private static final Map<String, Character> ENTITIES = new HashMap<>(NAMES.length * 2);
+
+    static {
+        for (int index = 0; index < NAMES.length; index++) {
+            ENTITIES.put(NAMES[index], CHARACTERS[index]);
+        }
+    }
+
+    private HtmlEntities() {
+    }
+
+    /**
+     * Resolves a named or numeric character reference.
+     *
+     * @param name name of the entity without the leading ampersand and the trailing semicolon, eg. <code>nbsp</code>
+     *             or <code>#160</code>.
+     * @param target the resolved character is appended to this.
+     * @return true if the reference could be resolved.
+     */
+    static boolean resolve(CharSequence name, StringBuilder target) {
+        int length = name.length();
+
+        if (length == 0) {
+            return false;
+        }
+
+        if (name.charAt(0) != '#') {
+            Character character = ENTITIES.get(name.toString());
+
+            if (character == null) {
+                return false;
+            }
+
+            target.append(character.charValue());
+
+            return true;
+        }
+
+        int radix = 10;
+        int start = 1;
+
+        if ((length > 1) && ((name.charAt(1) == 'x') || (name.charAt(1) == 'X'))) {
+            radix = 16;
+            start = 2;
+        }
+
+        if (start == length) {
+            return false;
+        }
+
+        int codePoint = 0;
+
+        for (int index = start; index < length; index++) {
+            int digit = Character.digit(name.charAt(index), radix);
+
+            if (digit < 0) {
+                return false;
+            }
+
+            codePoint = Math.min(codePoint * radix + digit, Character.MAX_CODE_POINT + 1);
+        }
+
+        if ((codePoint == 0) || (codePoint > Character.MAX_CODE_POINT)
+                || ((codePoint >= Character.MIN_SURROGATE) && (codePoint <= Character.MAX_SURROGATE))) {
+
+            codePoint = '\ufffd';
+        }
+
+        target.appendCodePoint(codePoint);
+
+        return true;
+    }
+
+}
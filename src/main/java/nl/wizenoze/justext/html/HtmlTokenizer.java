@@ -0,0 +1,551 @@
+/**
+ * Copyright (c) 2016-present WizeNoze B.V. All rights reserved.
+ *
+ * This file is part of justext-java.
+ *
+ * justext-java is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * justext-java is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with justext-java.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.wizenoze.justext.html;
+
+import nl.wizenoze.justext.util.StringPool;
+
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * Single-pass HTML tokenizer. Characters are pushed into it in arbitrary chunks and the recognized tags and text are
+ * passed on to a {@link HtmlTreeBuilder}. Apart from the name and the attributes of the tag being currently tokenized,
+ * nothing is retained.
+ */
+final class HtmlTokenizer {
+
+    private static final String ATTRIBUTE_TYPE_CDATA = "CDATA";
+    private static final String CDATA_START = "[CDATA[";
+    private static final String COMMENT_START = "--";
+
+    private final StringBuilder attributeName;
+    private final StringBuilder attributeValue;
+    private final StringBuilder entity;
+    private final StringBuilder markup;
+    private final StringBuilder resolvedEntity;
+    private final StringBuilder tagName;
+    private final HtmlTreeBuilder treeBuilder;
+
+    private AttributesImpl attributes;
+    private int closingCount;
+    private boolean endTag;
+    private String rawTextEndTag;
+    private int rawTextMatched;
+    private boolean rawTextReported;
+    private State returnState;
+    private State state;
+
+    HtmlTokenizer(HtmlTreeBuilder treeBuilder) {
+        this.treeBuilder = treeBuilder;
+
+        attributeName = new StringBuilder();
+        attributeValue = new StringBuilder();
+        entity = new StringBuilder();
+        markup = new StringBuilder();
+        resolvedEntity = new StringBuilder(2);
+        tagName = new StringBuilder();
+
+        state = State.DATA;
+    }
+
+    /**
+     * Flushes pending text and closes the document.
+     *
+     * @throws SAXException if the underlying handler raises an error.
+     */
+    void end() throws SAXException {
+        switch (state) {
+            case TAG_OPEN:
+                treeBuilder.text('<');
+                break;
+            case ENTITY:
+                flushUnresolvedEntity();
+                break;
+            case RAW_TEXT:
+                reportRawText(rawTextEndTag, rawTextMatched);
+                break;
+            default:
+                // Incomplete tags, comments and declarations are dropped
+        }
+
+        state = State.DATA;
+
+        treeBuilder.endDocument();
+    }
+
+    /**
+     * Tokenizes the next chunk of the document.
+     *
+     * @param buffer characters.
+     * @param offset offset of the first character to tokenize.
+     * @param length number of characters to tokenize.
+     * @throws SAXException if the underlying handler raises an error.
+     */
+    void feed(char[] buffer, int offset, int length) throws SAXException {
+        int end = offset + length;
+
+        for (int index = offset; index < end; index++) {
+            char ch = buffer[index];
+
+            // Some states need to process the current character again after switching to another one.
+            boolean consumed;
+
+            do {
+                consumed = consume(ch);
+            } while (!consumed);
+        }
+    }
+
+    /**
+     * Starts the document.
+     *
+     * @throws SAXException if the underlying handler raises an error.
+     */
+    void start() throws SAXException {
+        treeBuilder.startDocument();
+    }
+
+    private static boolean isAsciiLetter(char ch) {
+        return ((ch >= 'a') && (ch <= 'z')) || ((ch >= 'A') && (ch <= 'Z'));
+    }
+
+    private static boolean isEntityNameChar(char ch) {
+        return isAsciiLetter(ch) || ((ch >= '0') && (ch <= '9')) || (ch == '#');
+    }
+
+    private static boolean isWhitespace(char ch) {
+        return (ch == ' ') || (ch == '\t') || (ch == '\n') || (ch == '\r') || (ch == '\f');
+    }
+
+    private static char toLowerCase(char ch) {
+        if ((ch >= 'A') && (ch <= 'Z')) {
+            return (char) (ch + ('a' - 'A'));
+        }
+
+        return Character.toLowerCase(ch);
+    }
+
+    private void addAttribute() {
+        String name = attributeName.toString();
+
+        // The first occurrence of an attribute wins and its value is trimmed, just like HtmlCleaner does it.
+        if (attributes.getIndex(name) == -1) {
+            attributes.addAttribute(
+                    StringPool.EMPTY, StringPool.EMPTY, name, ATTRIBUTE_TYPE_CDATA, attributeValue.toString().trim());
+        }
+
+        attributeName.setLength(0);
+        attributeValue.setLength(0);
+    }
+
+    private void beginTag(boolean endTag, char firstChar) {
+        this.endTag = endTag;
+
+        attributes = new AttributesImpl();
+        tagName.setLength(0);
+        tagName.append(toLowerCase(firstChar));
+    }
+
+    /*
+     * Returns false if the given character has to be processed again in the new state.
+     */
+    private boolean consume(char ch) throws SAXException {
+        switch (state) {
+            case DATA:
+                if (ch == '<') {
+                    state = State.TAG_OPEN;
+                } else if (ch == '&') {
+                    startEntity(State.DATA);
+                } else {
+                    treeBuilder.text(ch);
+                }
+
+                return true;
+            case RAW_TEXT:
+                return consumeRawText(ch);
+            case TAG_OPEN:
+                if (isAsciiLetter(ch)) {
+                    beginTag(false, ch);
+                    state = State.TAG_NAME;
+                } else if (ch == '/') {
+                    state = State.END_TAG_OPEN;
+                } else if (ch == '!') {
+                    markup.setLength(0);
+                    state = State.MARKUP_DECLARATION;
+                } else if (ch == '?') {
+                    state = State.BOGUS_COMMENT;
+                } else {
+                    treeBuilder.text('<');
+                    state = State.DATA;
+                    return false;
+                }
+
+                return true;
+            case END_TAG_OPEN:
+                if (isAsciiLetter(ch)) {
+                    beginTag(true, ch);
+                    state = State.TAG_NAME;
+                } else if (ch == '>') {
+                    state = State.DATA;
+                } else {
+                    state = State.BOGUS_COMMENT;
+                }
+
+                return true;
+            case TAG_NAME:
+                if (isWhitespace(ch)) {
+                    state = State.BEFORE_ATTRIBUTE_NAME;
+                } else if (ch == '/') {
+                    state = State.SELF_CLOSING_START_TAG;
+                } else if (ch == '>') {
+                    emitTag();
+                } else {
+                    tagName.append(toLowerCase(ch));
+                }
+
+                return true;
+            case BEFORE_ATTRIBUTE_NAME:
+                if (isWhitespace(ch)) {
+                    return true;
+                } else if (ch == '/') {
+                    state = State.SELF_CLOSING_START_TAG;
+                } else if (ch == '>') {
+                    emitTag();
+                } else {
+                    attributeName.append(toLowerCase(ch));
+                    state = State.ATTRIBUTE_NAME;
+                }
+
+                return true;
+            case ATTRIBUTE_NAME:
+                if (isWhitespace(ch)) {
+                    state = State.AFTER_ATTRIBUTE_NAME;
+                } else if (ch == '/') {
+                    addAttribute();
+                    state = State.SELF_CLOSING_START_TAG;
+                } else if (ch == '=') {
+                    state = State.BEFORE_ATTRIBUTE_VALUE;
+                } else if (ch == '>') {
+                    addAttribute();
+                    emitTag();
+                } else {
+                    attributeName.append(toLowerCase(ch));
+                }
+
+                return true;
+            case AFTER_ATTRIBUTE_NAME:
+                if (isWhitespace(ch)) {
+                    return true;
+                } else if (ch == '=') {
+                    state = State.BEFORE_ATTRIBUTE_VALUE;
+                    return true;
+                }
+
+                addAttribute();
+                state = State.BEFORE_ATTRIBUTE_NAME;
+
+                return false;
+            case BEFORE_ATTRIBUTE_VALUE:
+                if (isWhitespace(ch)) {
+                    return true;
+                } else if (ch == '"') {
+                    state = State.ATTRIBUTE_VALUE_DOUBLE_QUOTED;
+                } else if (ch == '\'') {
+                    state = State.ATTRIBUTE_VALUE_SINGLE_QUOTED;
+                } else if (ch == '>') {
+                    addAttribute();
+                    emitTag();
+                } else {
+                    state = State.ATTRIBUTE_VALUE_UNQUOTED;
+                    return false;
+                }
+
+                return true;
+            case ATTRIBUTE_VALUE_DOUBLE_QUOTED:
+                return consumeQuotedAttributeValue(ch, '"');
+            case ATTRIBUTE_VALUE_SINGLE_QUOTED:
+                return consumeQuotedAttributeValue(ch, '\'');
+            case ATTRIBUTE_VALUE_UNQUOTED:
+                if (isWhitespace(ch)) {
+                    addAttribute();
+                    state = State.BEFORE_ATTRIBUTE_NAME;
+                } else if (ch == '&') {
+                    startEntity(State.ATTRIBUTE_VALUE_UNQUOTED);
+                } else if (ch == '>') {
+                    addAttribute();
+                    emitTag();
+                } else {
+                    attributeValue.append(ch);
+                }
+
+                return true;
+            case AFTER_ATTRIBUTE_VALUE:
+                if (isWhitespace(ch)) {
+                    state = State.BEFORE_ATTRIBUTE_NAME;
+                } else if (ch == '/') {
+                    state = State.SELF_CLOSING_START_TAG;
+                } else if (ch == '>') {
+                    emitTag();
+                } else {
+                    state = State.BEFORE_ATTRIBUTE_NAME;
+                    return false;
+                }
+
+                return true;
+            case SELF_CLOSING_START_TAG:
+                if (ch == '>') {
+                    emitTag();
+                    return true;
+                }
+
+                state = State.BEFORE_ATTRIBUTE_NAME;
+
+                return false;
+            case MARKUP_DECLARATION:
+                return consumeMarkupDeclaration(ch);
+            case COMMENT:
+                if (ch == '-') {
+                    closingCount++;
+                } else if ((ch == '>') && (closingCount >= 2)) {
+                    state = State.DATA;
+                } else {
+                    closingCount = 0;
+                }
+
+                return true;
+            case CDATA_SECTION:
+                return consumeCdataSection(ch);
+            case BOGUS_COMMENT:
+                if (ch == '>') {
+                    state = State.DATA;
+                }
+
+                return true;
+            case ENTITY:
+                return consumeEntity(ch);
+            default:
+                throw new IllegalStateException(state.name());
+        }
+    }
+
+    private boolean consumeCdataSection(char ch) throws SAXException {
+        if (ch == ']') {
+            closingCount++;
+            return true;
+        }
+
+        if ((ch == '>') && (closingCount >= 2)) {
+            for (int index = 2; index < closingCount; index++) {
+                treeBuilder.text(']');
+            }
+
+            state = State.DATA;
+
+            return true;
+        }
+
+        for (int index = 0; index < closingCount; index++) {
+            treeBuilder.text(']');
+        }
+
+        closingCount = 0;
+
+        treeBuilder.text(ch);
+
+        return true;
+    }
+
+    private boolean consumeEntity(char ch) throws SAXException {
+        if (ch == ';') {
+            resolvedEntity.setLength(0);
+
+            if (HtmlEntities.resolve(entity, resolvedEntity)) {
+                state = returnState;
+
+                for (int index = 0; index < resolvedEntity.length(); index++) {
+                    appendToReturnState(resolvedEntity.charAt(index));
+                }
+
+                return true;
+            }
+
+            flushUnresolvedEntity();
+
+            return false;
+        }
+
+        if (isEntityNameChar(ch) && (entity.length() < HtmlEntities.MAX_NAME_LENGTH)) {
+            entity.append(ch);
+            return true;
+        }
+
+        flushUnresolvedEntity();
+
+        return false;
+    }
+
+    private boolean consumeMarkupDeclaration(char ch) {
+        markup.append(ch);
+
+        if (COMMENT_START.contentEquals(markup)) {
+            closingCount = 0;
+            state = State.COMMENT;
+        } else if (CDATA_START.contentEquals(markup)) {
+            closingCount = 0;
+            state = State.CDATA_SECTION;
+        } else if (!COMMENT_START.startsWith(markup.toString()) && !CDATA_START.startsWith(markup.toString())) {
+            // Document type declarations and other markup are ignored.
+            state = (ch == '>') ? State.DATA : State.BOGUS_COMMENT;
+        }
+
+        return true;
+    }
+
+    private boolean consumeQuotedAttributeValue(char ch, char quote) {
+        if (ch == quote) {
+            addAttribute();
+            state = State.AFTER_ATTRIBUTE_VALUE;
+        } else if (ch == '&') {
+            startEntity(state);
+        } else if ((ch == '\t') || (ch == '\n') || (ch == '\r')) {
+            attributeValue.append(' ');
+        } else {
+            attributeValue.append(ch);
+        }
+
+        return true;
+    }
+
+    private boolean consumeRawText(char ch) throws SAXException {
+        if (rawTextMatched < rawTextEndTag.length()) {
+            if (toLowerCase(ch) == rawTextEndTag.charAt(rawTextMatched)) {
+                rawTextMatched++;
+                return true;
+            }
+
+            reportRawText(rawTextEndTag, rawTextMatched);
+
+            rawTextMatched = 0;
+
+            if (ch == '<') {
+                rawTextMatched = 1;
+            } else {
+                reportRawText(ch);
+            }
+
+            return true;
+        }
+
+        // The whole end tag has been matched, it's terminated properly if it's followed by white space, '/' or '>'.
+        if (isWhitespace(ch) || (ch == '/') || (ch == '>')) {
+            beginTag(true, rawTextEndTag.charAt(2));
+            tagName.append(rawTextEndTag, 3, rawTextEndTag.length());
+            state = State.TAG_NAME;
+            return false;
+        }
+
+        reportRawText(rawTextEndTag, rawTextMatched);
+
+        rawTextMatched = 0;
+
+        return false;
+    }
+
+    private void emitTag() throws SAXException {
+        String name = tagName.toString();
+
+        state = State.DATA;
+
+        if (endTag) {
+            treeBuilder.endTag(name);
+            return;
+        }
+
+        treeBuilder.startTag(name, attributes);
+
+        // Contents of these elements aren't parsed as markup.
+        switch (name) {
+            case "script":
+            case "style":
+            case "title":
+                startRawText(name, false);
+                break;
+            case "textarea":
+                startRawText(name, true);
+                break;
+            default:
+                // Regular element
+        }
+    }
+
+    private void appendToReturnState(char ch) throws SAXException {
+        if (returnState == State.DATA) {
+            treeBuilder.text(ch);
+        } else {
+            attributeValue.append(ch);
+        }
+    }
+
+    private void flushUnresolvedEntity() throws SAXException {
+        state = returnState;
+
+        appendToReturnState('&');
+
+        for (int index = 0; index < entity.length(); index++) {
+            appendToReturnState(entity.charAt(index));
+        }
+    }
+
+    private void reportRawText(char ch) throws SAXException {
+        if (rawTextReported) {
+            treeBuilder.text(ch);
+        }
+    }
+
+    private void reportRawText(String chars, int length) throws SAXException {
+        for (int index = 0; index < length; index++) {
+            reportRawText(chars.charAt(index));
+        }
+    }
+
+    private void startEntity(State returnState) {
+        this.returnState = returnState;
+
+        entity.setLength(0);
+        state = State.ENTITY;
+    }
+
+    private void startRawText(String name, boolean reported) {
+        rawTextEndTag = "</" + name;
+        rawTextMatched = 0;
+        rawTextReported = reported;
+
+        state = State.RAW_TEXT;
+    }
+
+    private enum State {
+
+        DATA, RAW_TEXT, TAG_OPEN, END_TAG_OPEN, TAG_NAME, BEFORE_ATTRIBUTE_NAME, ATTRIBUTE_NAME, AFTER_ATTRIBUTE_NAME,
+        BEFORE_ATTRIBUTE_VALUE, ATTRIBUTE_VALUE_DOUBLE_QUOTED, ATTRIBUTE_VALUE_SINGLE_QUOTED, ATTRIBUTE_VALUE_UNQUOTED,
+        AFTER_ATTRIBUTE_VALUE, SELF_CLOSING_START_TAG, MARKUP_DECLARATION, COMMENT, CDATA_SECTION, BOGUS_COMMENT, ENTITY
+
+    }
+
+}
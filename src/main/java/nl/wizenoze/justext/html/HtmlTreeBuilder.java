@@ -0,0 +1,400 @@
+/**
+ * Copyright (c) 2016-present WizeNoze B.V. All rights reserved.
+ *
+ * This file is part of justext-java.
+ *
+ * justext-java is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * justext-java is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with justext-java.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.wizenoze.justext.html;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import nl.wizenoze.justext.util.StringPool;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * Repairs the stream of tags produced by {@link HtmlTokenizer} and reports well-formed SAX events. Only the chain of
+ * currently open elements and at most {@value #TEXT_BUFFER_SIZE} characters of pending text are retained, therefore
+ * memory use depends on the nesting depth rather than the size of the document.
+ *
+ * <p>
+ * Repairs performed are: implicitly closed elements (eg. <code>p</code>, <code>li</code>, <code>td</code>), void
+ * elements (eg. <code>br</code>, <code>img</code>), missing <code>html</code> and <code>body</code> elements and
+ * unmatched end tags. The contents of <code>head</code>, <code>meta</code>, <code>title</code>, <code>script</code>
+ * and <code>style</code> are skipped, like {@link HtmlBeautifier} prunes them.
+ * </p>
+ */
+final class HtmlTreeBuilder {
+
+    /*
+     * Pending text is flushed once it reaches this size, like an XML parser reports text in chunks no longer than its
+     * input buffer.
+     */
+    static final int TEXT_BUFFER_SIZE = 8192;
+
+    private static final String TAG_BODY = "body";
+    private static final String TAG_HEAD = "head";
+    private static final String TAG_HTML = "html";
+    private static final String TAG_NOSCRIPT = "noscript";
+
+    private static final Set<String> BLOCK_TAGS = createSet(
+            "address", "article", "aside", "blockquote", "center", "dd", "details", "dialog", "dir", "div", "dl", "dt",
+            "fieldset", "figcaption", "figure", "footer", "form", "h1", "h2", "h3", "h4", "h5", "h6", "header",
+            "hgroup", "hr", "li", "listing", "main", "menu", "nav", "ol", "p", "pre", "section", "summary", "table",
+            "ul", "xmp");
+
+    private static final Set<String> HEAD_TAGS = createSet(
+            "base", "basefont", "bgsound", "link", "meta", "noscript", "script", "style", "template", "title");
+
+    private static final Set<String> PRUNED_TAGS = createSet("head", "meta", "title", "script", "style");
+
+    private static final Set<String> VOID_TAGS = createSet(
+            "area", "base", "basefont", "bgsound", "br", "col", "embed", "frame", "hr", "img", "input", "keygen",
+            "link", "meta", "param", "source", "track", "wbr");
+
+    private static final Set<String> CELL_SCOPE = createSet("table", "tr", "tbody", "thead", "tfoot");
+    private static final Set<String> DEFINITION_SCOPE = createSet("dl", "table");
+    private static final Set<String> LIST_SCOPE = createSet("ol", "ul", "table");
+    private static final Set<String> OPTION_SCOPE = createSet("select", "datalist", "optgroup");
+    private static final Set<String> PARAGRAPH_SCOPE = createSet(
+            "button", "caption", "marquee", "object", "table", "td", "th");
+    private static final Set<String> ROW_SCOPE = createSet("table", "tbody", "thead", "tfoot");
+    private static final Set<String> SECTION_SCOPE = createSet("table");
+
+    private static final Set<String> CELLS = createSet("td", "th");
+    private static final Set<String> DEFINITIONS = createSet("dd", "dt");
+    private static final Set<String> LIST_ITEMS = createSet("li");
+    private static final Set<String> OPTGROUPS = createSet("optgroup", "option");
+    private static final Set<String> OPTIONS = createSet("option");
+    private static final Set<String> PARAGRAPHS = createSet("p");
+    private static final Set<String> ROWS = createSet("tr");
+    private static final Set<String> SECTIONS = createSet("tbody", "thead", "tfoot");
+
+    private static final Attributes EMPTY_ATTRIBUTES = new AttributesImpl();
+    private static final int INITIAL_DEPTH = 32;
+
+    private final ContentHandler contentHandler;
+    private final StringBuilder text;
+
+    private boolean bodyOpened = false;
+    private char[] chars = new char[0];
+    private int depth = 0;
+    private boolean htmlOpened = false;
+    private boolean inHead = false;
+    private boolean inHeadNoscript = false;
+    private String[] openElements = new String[INITIAL_DEPTH];
+
+    HtmlTreeBuilder(ContentHandler contentHandler) {
+        this.contentHandler = contentHandler;
+
+        text = new StringBuilder();
+    }
+
+    void endDocument() throws SAXException {
+        flushText();
+
+        while (depth > 0) {
+            pop();
+        }
+
+        contentHandler.endDocument();
+    }
+
+    void endTag(String tagName) throws SAXException {
+        if (inHeadNoscript) {
+            inHeadNoscript = !TAG_NOSCRIPT.equals(tagName);
+            return;
+        }
+
+        if (inHead) {
+            if (TAG_HEAD.equals(tagName)) {
+                inHead = false;
+            }
+
+            return;
+        }
+
+        // Everything after </body> or </html> still belongs to the body; they're closed at the end of the document.
+        if (TAG_BODY.equals(tagName) || TAG_HTML.equals(tagName) || VOID_TAGS.contains(tagName)
+                || PRUNED_TAGS.contains(tagName)) {
+
+            return;
+        }
+
+        for (int index = depth - 1; index >= 0; index--) {
+            String openElement = openElements[index];
+
+            if (TAG_BODY.equals(openElement) || TAG_HTML.equals(openElement)) {
+                break;
+            }
+
+            if (openElement.equals(tagName)) {
+                popUntil(index);
+                break;
+            }
+        }
+    }
+
+    void startDocument() throws SAXException {
+        contentHandler.startDocument();
+    }
+
+    void startTag(String tagName, AttributesImpl attributes) throws SAXException {
+        // A noscript element within the head is dropped along with its contents.
+        if (inHeadNoscript) {
+            return;
+        }
+
+        if (inHead) {
+            if (TAG_NOSCRIPT.equals(tagName)) {
+                inHeadNoscript = true;
+                return;
+            }
+
+            if (HEAD_TAGS.contains(tagName)) {
+                return;
+            }
+
+            // Any other tag implicitly closes the head.
+            inHead = false;
+        }
+
+        switch (tagName) {
+            case TAG_HTML:
+                if (!htmlOpened) {
+                    openHtml(attributes);
+                }
+
+                return;
+            case TAG_HEAD:
+                if (!bodyOpened) {
+                    inHead = true;
+                }
+
+                return;
+            case TAG_BODY:
+                if (!bodyOpened) {
+                    openBody(attributes);
+                }
+
+                return;
+            default:
+                // Regular element
+        }
+
+        if (PRUNED_TAGS.contains(tagName)) {
+            return;
+        }
+
+        if (!bodyOpened) {
+            openBody(EMPTY_ATTRIBUTES);
+        }
+
+        closeImplicitly(tagName);
+
+        // Rows are always wrapped into a table section.
+        if ("tr".equals(tagName) && "table".equals(openElements[depth - 1])) {
+            push("tbody", EMPTY_ATTRIBUTES);
+        }
+
+        push(tagName, attributes);
+
+        if (VOID_TAGS.contains(tagName)) {
+            pop();
+        }
+    }
+
+    void text(char ch) throws SAXException {
+        if (inHeadNoscript) {
+            return;
+        }
+
+        if (!bodyOpened || inHead) {
+            if (isWhitespace(ch)) {
+                return;
+            }
+
+            // Non-white space text implicitly closes the head and opens the body.
+            inHead = false;
+
+            if (!bodyOpened) {
+                openBody(EMPTY_ATTRIBUTES);
+            }
+        }
+
+        text.append(ch);
+
+        if (text.length() == TEXT_BUFFER_SIZE) {
+            flushText();
+        }
+    }
+
+    private static Set<String> createSet(String... tagNames) {
+        return Collections.unmodifiableSet(new HashSet<>(Arrays.asList(tagNames)));
+    }
+
+    private static boolean isWhitespace(char ch) {
+        return (ch == ' ') || (ch == '\t') || (ch == '\n') || (ch == '\r') || (ch == '\f');
+    }
+
+    private static boolean isXmlSpecial(char ch) {
+        return (ch == '&') || (ch == '<') || (ch == '>') || (ch == '"') || (ch == '\'');
+    }
+
+    private void closeImplicitly(String tagName) throws SAXException {
+        if (BLOCK_TAGS.contains(tagName)) {
+            closeInScope(PARAGRAPHS, PARAGRAPH_SCOPE);
+        }
+
+        switch (tagName) {
+            case "li":
+                closeInScope(LIST_ITEMS, LIST_SCOPE);
+                break;
+            case "dd":
+            case "dt":
+                closeInScope(DEFINITIONS, DEFINITION_SCOPE);
+                break;
+            case "td":
+            case "th":
+                closeInScope(CELLS, CELL_SCOPE);
+                break;
+            case "tr":
+                closeInScope(ROWS, ROW_SCOPE);
+                break;
+            case "tbody":
+            case "thead":
+            case "tfoot":
+                closeInScope(SECTIONS, SECTION_SCOPE);
+                break;
+            case "option":
+                closeInScope(OPTIONS, OPTION_SCOPE);
+                break;
+            case "optgroup":
+                closeInScope(OPTGROUPS, OPTION_SCOPE);
+                break;
+            case "a":
+                closeInScope(Collections.singleton("a"), PARAGRAPH_SCOPE);
+                break;
+            default:
+                // Nothing else is closed implicitly
+        }
+    }
+
+    private void closeInScope(Set<String> tagNames, Set<String> scope) throws SAXException {
+        for (int index = depth - 1; index >= 0; index--) {
+            String openElement = openElements[index];
+
+            if (tagNames.contains(openElement)) {
+                popUntil(index);
+                return;
+            }
+
+            if (scope.contains(openElement) || TAG_BODY.equals(openElement) || TAG_HTML.equals(openElement)) {
+                return;
+            }
+        }
+    }
+
+    /*
+     * Text is reported in chunks which are separated by XML special characters, just like as the output of
+     * HtmlBeautifier is reported by an XML parser.
+     */
+    private void flushText() throws SAXException {
+        int length = text.length();
+
+        if (length == 0) {
+            return;
+        }
+
+        if (chars.length < length) {
+            chars = new char[Math.max(length, chars.length * 2)];
+        }
+
+        text.getChars(0, length, chars, 0);
+        text.setLength(0);
+
+        int start = 0;
+
+        for (int index = 0; index < length; index++) {
+            if (!isXmlSpecial(chars[index])) {
+                continue;
+            }
+
+            if (index > start) {
+                contentHandler.characters(chars, start, index - start);
+            }
+
+            contentHandler.characters(chars, index, 1);
+
+            start = index + 1;
+        }
+
+        if (length > start) {
+            contentHandler.characters(chars, start, length - start);
+        }
+    }
+
+    private void openBody(Attributes attributes) throws SAXException {
+        if (!htmlOpened) {
+            openHtml(EMPTY_ATTRIBUTES);
+        }
+
+        bodyOpened = true;
+        inHead = false;
+
+        push(TAG_BODY, attributes);
+    }
+
+    private void openHtml(Attributes attributes) throws SAXException {
+        htmlOpened = true;
+
+        push(TAG_HTML, attributes);
+    }
+
+    private void pop() throws SAXException {
+        flushText();
+
+        String tagName = openElements[--depth];
+        openElements[depth] = null;
+
+        contentHandler.endElement(StringPool.EMPTY, StringPool.EMPTY, tagName);
+    }
+
+    private void popUntil(int index) throws SAXException {
+        while (depth > index) {
+            pop();
+        }
+    }
+
+    private void push(String tagName, Attributes attributes) throws SAXException {
+        flushText();
+
+        if (depth == openElements.length) {
+            openElements = Arrays.copyOf(openElements, depth * 2);
+        }
+
+        openElements[depth++] = tagName;
+
+        contentHandler.startElement(StringPool.EMPTY, StringPool.EMPTY, tagName, attributes);
+    }
+
+}
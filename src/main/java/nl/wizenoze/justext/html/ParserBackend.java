@@ -0,0 +1,56 @@
+/**
+ * Copyright (c) 2016-present WizeNoze B.V. All rights reserved.
+ *
+ * This file is part of justext-java.
+ *
+ * justext-java is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * justext-java is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with justext-java.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.wizenoze.justext.html;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+/**
+ * Turns an input document into element and text events, that is, the elements and text of the HTML tree without the
+ * head, meta, title, script and style elements. The text of an element may be reported in any number of chunks.
+ *
+ * <p>
+ * The default {@link HtmlCleanerParserBackend} reports the tree cleaned by HtmlCleaner and so do
+ * {@link XmlParserBackend} and {@link FastPathParserBackend} for documents which HtmlCleaner leaves as they are.
+ * Lenient backends, like {@link StreamingHtmlParser}, repair malformed markup on their own and may report a different
+ * tree for such documents, in which case the classification results may differ as well.
+ * </p>
+ *
+ * <p>
+ * Implementations must be safe to use from multiple threads concurrently.
+ * </p>
+ */
+@FunctionalInterface
+public interface ParserBackend {
+
+    /**
+     * Parses the given document and reports its contents to the given handler.
+     *
+     * @param reader document reader.
+     * @param contentHandler SAX handler receiving the events.
+     * @throws IOException if the document cannot be read.
+     * @throws SAXException if the document cannot be parsed or the handler raises an error.
+     */
+    void parse(Reader reader, ContentHandler contentHandler) throws IOException, SAXException;
+
+}
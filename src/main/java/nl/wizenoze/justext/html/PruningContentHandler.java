@@ -0,0 +1,124 @@
+/**
+ * Copyright (c) 2016-present WizeNoze B.V. All rights reserved.
+ *
+ * This file is part of justext-java.
+ *
+ * justext-java is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * justext-java is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with justext-java.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.wizenoze.justext.html;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+
+/**
+ * Decorates a content handler and drops the subtrees of the elements which {@link HtmlBeautifier} prunes, that is,
+ * head, meta, title, script and style. Element names are compared case-insensitively.
+ */
+final class PruningContentHandler implements ContentHandler {
+
+    private static final Set<String> PRUNED_TAGS = Collections.unmodifiableSet(
+            new HashSet<>(Arrays.asList("head", "meta", "title", "script", "style")));
+
+    private final ContentHandler contentHandler;
+
+    private int prunedDepth = 0;
+
+    PruningContentHandler(ContentHandler contentHandler) {
+        this.contentHandler = contentHandler;
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) throws SAXException {
+        if (prunedDepth == 0) {
+            contentHandler.characters(ch, start, length);
+        }
+    }
+
+    @Override
+    public void endDocument() throws SAXException {
+        contentHandler.endDocument();
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) throws SAXException {
+        if (prunedDepth > 0) {
+            prunedDepth--;
+            return;
+        }
+
+        contentHandler.endElement(uri, localName, qName);
+    }
+
+    @Override
+    public void endPrefixMapping(String prefix) throws SAXException {
+        contentHandler.endPrefixMapping(prefix);
+    }
+
+    @Override
+    public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+        if (prunedDepth == 0) {
+            contentHandler.ignorableWhitespace(ch, start, length);
+        }
+    }
+
+    @Override
+    public void processingInstruction(String target, String data) throws SAXException {
+        if (prunedDepth == 0) {
+            contentHandler.processingInstruction(target, data);
+        }
+    }
+
+    @Override
+    public void setDocumentLocator(Locator locator) {
+        contentHandler.setDocumentLocator(locator);
+    }
+
+    @Override
+    public void skippedEntity(String name) throws SAXException {
+        if (prunedDepth == 0) {
+            contentHandler.skippedEntity(name);
+        }
+    }
+
+    @Override
+    public void startDocument() throws SAXException {
+        prunedDepth = 0;
+
+        contentHandler.startDocument();
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+        if ((prunedDepth > 0) || PRUNED_TAGS.contains(qName.toLowerCase())) {
+            prunedDepth++;
+            return;
+        }
+
+        contentHandler.startElement(uri, localName, qName, atts);
+    }
+
+    @Override
+    public void startPrefixMapping(String prefix, String uri) throws SAXException {
+        contentHandler.startPrefixMapping(prefix, uri);
+    }
+
+}
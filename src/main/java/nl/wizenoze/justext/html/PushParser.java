@@ -0,0 +1,47 @@
+/**
+ * Copyright (c) 2016-present WizeNoze B.V. All rights reserved.
+ *
+ * This file is part of justext-java.
+ *
+ * justext-java is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * justext-java is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with justext-java.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.wizenoze.justext.html;
+
+import org.xml.sax.SAXException;
+
+/**
+ * Parses a single document whose characters are pushed to it in arbitrary chunks as they become available. Events are
+ * reported to the handler while the document is being fed.
+ */
+public interface PushParser {
+
+    /**
+     * Parses the next chunk of the document.
+     *
+     * @param chars characters.
+     * @param offset offset of the first character to parse.
+     * @param length number of characters to parse.
+     * @throws SAXException if the handler raises an error.
+     */
+    void feed(char[] chars, int offset, int length) throws SAXException;
+
+    /**
+     * Finishes parsing the document, after its last chunk has been fed.
+     *
+     * @throws SAXException if the handler raises an error.
+     */
+    void finish() throws SAXException;
+
+}
@@ -0,0 +1,39 @@
+/**
+ * Copyright (c) 2016-present WizeNoze B.V. All rights reserved.
+ *
+ * This file is part of justext-java.
+ *
+ * justext-java is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * justext-java is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with justext-java.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.wizenoze.justext.html;
+
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+/**
+ * Parser backend which is able to parse documents incrementally, as their characters arrive.
+ */
+public interface PushParserBackend extends ParserBackend {
+
+    /**
+     * Starts parsing a new document.
+     *
+     * @param contentHandler SAX handler receiving the events.
+     * @return parser to push the characters of the document to.
+     * @throws SAXException if the handler raises an error.
+     */
+    PushParser newPushParser(ContentHandler contentHandler) throws SAXException;
+
+}
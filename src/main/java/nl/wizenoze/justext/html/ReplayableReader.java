@@ -0,0 +1,168 @@
+/**
+ * Copyright (c) 2016-present WizeNoze B.V. All rights reserved.
+ *
+ * This file is part of justext-java.
+ *
+ * justext-java is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * justext-java is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with justext-java.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.wizenoze.justext.html;
+
+import java.io.CharArrayReader;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Arrays;
+
+import nl.wizenoze.justext.io.CharSequenceReader;
+
+/**
+ * Makes it possible to read the document again from its beginning without reading the underlying reader twice.
+ * Readers of documents which are already in memory are rewound, otherwise the characters read so far are recorded.
+ */
+final class ReplayableReader extends FilterReader {
+
+    private static final int INITIAL_CAPACITY = 8192;
+
+    private final boolean rewindable;
+
+    private char[] recorded;
+    private int recordedLength;
+
+    ReplayableReader(Reader reader) throws IOException {
+        super(reader);
+
+        rewindable = isRewindable(reader);
+
+        if (rewindable) {
+            reader.mark(Integer.MAX_VALUE);
+        } else {
+            recorded = new char[INITIAL_CAPACITY];
+        }
+    }
+
+    /*
+     * The XML parser closes its input on errors, but the rest of the document is still needed for replaying it. The
+     * underlying reader is closed by its owner.
+     */
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int ch = super.read();
+
+        if ((ch != -1) && !rewindable) {
+            ensureCapacity(1);
+            recorded[recordedLength++] = (char) ch;
+        }
+
+        return ch;
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        int length = super.read(cbuf, off, len);
+
+        if ((length > 0) && !rewindable) {
+            record(cbuf, off, length);
+        }
+
+        return length;
+    }
+
+    /**
+     * Creates a reader which returns the whole document, including the characters read so far.
+     *
+     * @return reader of the whole document.
+     * @throws IOException if the underlying reader can't be rewound.
+     */
+    Reader replay() throws IOException {
+        if (rewindable) {
+            in.reset();
+
+            return new FilterReader(in) {
+
+                @Override
+                public void close() {
+                }
+
+            };
+        }
+
+        Reader recordedReader = new CharArrayReader(recorded, 0, recordedLength);
+
+        // The recording isn't needed once it has been replayed.
+        recorded = null;
+
+        return new Reader() {
+
+            private Reader current = recordedReader;
+
+            @Override
+            public void close() {
+            }
+
+            @Override
+            public int read(char[] cbuf, int off, int len) throws IOException {
+                int length = current.read(cbuf, off, len);
+
+                if ((length == -1) && (current != in)) {
+                    current = in;
+                    length = current.read(cbuf, off, len);
+                }
+
+                return length;
+            }
+
+        };
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        char[] buffer = new char[(int) Math.min(n, INITIAL_CAPACITY)];
+        int length = read(buffer, 0, buffer.length);
+
+        return Math.max(length, 0);
+    }
+
+    /*
+     * These readers keep the whole document in memory and their mark isn't limited by the read-ahead limit.
+     */
+    private static boolean isRewindable(Reader reader) {
+        return (reader instanceof StringReader) || (reader instanceof CharArrayReader)
+                || (reader instanceof CharSequenceReader);
+    }
+
+    private void ensureCapacity(int len) {
+        if (recordedLength + len > recorded.length) {
+            recorded = Arrays.copyOf(recorded, Math.max(recordedLength + len, recorded.length * 2));
+        }
+    }
+
+    private void record(char[] cbuf, int off, int len) {
+        ensureCapacity(len);
+
+        System.arraycopy(cbuf, off, recorded, recordedLength, len);
+        recordedLength += len;
+    }
+
+}
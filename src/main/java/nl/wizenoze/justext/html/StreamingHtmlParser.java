@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) 2016-present WizeNoze B.V. All rights reserved.
+ *
+ * This file is part of justext-java.
+ *
+ * justext-java is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * justext-java is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with justext-java.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.wizenoze.justext.html;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+/**
+ * Single-pass streaming HTML parser. Unlike {@link HtmlBeautifier}, it doesn't build an intermediate tree, but it
+ * tokenizes the input as it's being read and reports the elements and text straight to the given handler. The head,
+ * script and style elements are skipped.
+ *
+ * <p>
+ * This is a lenient {@link ParserBackend}: malformed markup is repaired the same way as HtmlCleaner does it only for
+ * the common cases (implicitly closed paragraphs, list items, table cells, void elements, missing html and body
+ * elements). Otherwise its events differ from those of {@link HtmlCleanerParserBackend}, as
+ * </p>
+ * <ul>
+ *     <li>text following a block element within a paragraph stays in the parent of the paragraph, instead of being
+ *     moved into a new paragraph,</li>
+ *     <li>misnested elements (eg. <code>&lt;b&gt;&lt;p&gt;x&lt;/b&gt;y&lt;/p&gt;</code>) aren't reordered,</li>
+ *     <li>missing tbody and tr elements of tables aren't inserted,</li>
+ *     <li>elements aren't wrapped into the parents required by HtmlCleaner (eg. the source elements of a picture into
+ *     audio) and mismatched end tags (eg. of nested forms) don't close the enclosing elements,</li>
+ *     <li>the content of textarea elements is reported as raw text,</li>
+ *     <li>CDATA sections are reported as text rather than as literal markup,</li>
+ *     <li>invalid numeric character references are decoded differently.</li>
+ * </ul>
+ * <p>
+ * The texts and counts of the paragraphs of such documents are often still equal, only their paths differ.
+ * </p>
+ */
+public final class StreamingHtmlParser implements PushParserBackend {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Parses the given HTML document.
+     *
+     * @param reader HTML document reader.
+     * @param contentHandler SAX handler receiving the events.
+     * @throws IOException if the document cannot be read.
+     * @throws SAXException if the handler raises an error.
+     */
+    @Override
+    public void parse(Reader reader, ContentHandler contentHandler) throws IOException, SAXException {
+        PushParser pushParser = newPushParser(contentHandler);
+        char[] buffer = new char[BUFFER_SIZE];
+
+        int length;
+
+        while ((length = reader.read(buffer)) != -1) {
+            pushParser.feed(buffer, 0, length);
+        }
+
+        pushParser.finish();
+    }
+
+    @Override
+    public PushParser newPushParser(ContentHandler contentHandler) throws SAXException {
+        HtmlTokenizer tokenizer = new HtmlTokenizer(new HtmlTreeBuilder(contentHandler));
+
+        tokenizer.start();
+
+        return new PushParser() {
+
+            @Override
+            public void feed(char[] chars, int offset, int length) throws SAXException {
+                tokenizer.feed(chars, offset, length);
+            }
+
+            @Override
+            public void finish() throws SAXException {
+                tokenizer.end();
+            }
+
+        };
+    }
+
+}
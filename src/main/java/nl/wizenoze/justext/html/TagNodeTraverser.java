@@ -0,0 +1,305 @@
+/**
+ * Copyright (c) 2016-present WizeNoze B.V. All rights reserved.
+ *
+ * This file is part of justext-java.
+ *
+ * justext-java is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * justext-java is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with justext-java.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.wizenoze.justext.html;
+
+import java.util.List;
+import java.util.Map;
+
+import nl.wizenoze.justext.util.StringPool;
+
+import org.htmlcleaner.BaseToken;
+import org.htmlcleaner.CommentNode;
+import org.htmlcleaner.ContentNode;
+import org.htmlcleaner.TagNode;
+
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * Walks a cleaned HTML tree and reports it as SAX events. Events are the same as the XML parser of the JDK reports them
+ * for the output of {@link CompactXmlSerializer}, including the CDATA sections the contents of script and style are
+ * wrapped in, but without serializing the tree and parsing it again. Text might be split into different chunks though.
+ */
+final class TagNodeTraverser {
+
+    private static final String ATTRIBUTE_TYPE_CDATA = "CDATA";
+
+    private static final String CDATA_END = "]]>";
+
+    private static final String CDATA_START = "<![CDATA[";
+
+    private final CompactXmlSerializer serializer;
+
+    TagNodeTraverser(CompactXmlSerializer serializer) {
+        this.serializer = serializer;
+    }
+
+    void traverse(TagNode rootNode, ContentHandler contentHandler) throws SAXException {
+        contentHandler.startDocument();
+
+        traverseTagNode(rootNode, contentHandler, new StringBuilder());
+
+        contentHandler.endDocument();
+    }
+
+    private AttributesImpl createAttributes(TagNode tagNode) {
+        AttributesImpl attributes = new AttributesImpl();
+
+        for (Map.Entry<String, String> attribute : tagNode.getAttributes().entrySet()) {
+            String value = serializer.escapeAttributeValue(attribute.getValue());
+
+            attributes.addAttribute(
+                    StringPool.EMPTY, StringPool.EMPTY, attribute.getKey(), ATTRIBUTE_TYPE_CDATA,
+                    unescapeAttributeValue(value));
+        }
+
+        return attributes;
+    }
+
+    private void emitCharacters(StringBuilder text, ContentHandler contentHandler) throws SAXException {
+        int length = text.length();
+
+        if (length == 0) {
+            return;
+        }
+
+        StringBuilder sb = new StringBuilder(length);
+
+        int index = 0;
+
+        // Resolve character references and normalize line endings as XML parsers do.
+        while (index < length) {
+            char ch = text.charAt(index);
+
+            if (ch == '&') {
+                int end = text.indexOf(";", index);
+                String reference = null;
+
+                if (end != -1) {
+                    reference = resolveReference(text, index + 1, end);
+                }
+
+                if (reference != null) {
+                    sb.append(reference);
+                    index = end + 1;
+                    continue;
+                }
+            }
+
+            if (ch == '\r') {
+                if ((index + 1 < length) && (text.charAt(index + 1) == '\n')) {
+                    index++;
+                    continue;
+                }
+
+                ch = '\n';
+            }
+
+            sb.append(ch);
+            index++;
+        }
+
+        text.setLength(0);
+
+        char[] chars = sb.toString().toCharArray();
+
+        contentHandler.characters(chars, 0, chars.length);
+    }
+
+    private void emitCdataContent(String content, ContentHandler contentHandler, StringBuilder text)
+        throws SAXException {
+
+        int index = 0;
+
+        while (index < content.length()) {
+            int start = content.indexOf(CDATA_START, index);
+
+            if (start == -1) {
+                break;
+            }
+
+            text.append(content, index, start);
+            emitCharacters(text, contentHandler);
+
+            start += CDATA_START.length();
+
+            int end = content.indexOf(CDATA_END, start);
+
+            if (end == -1) {
+                end = content.length();
+            }
+
+            // The contents of a CDATA section are reported in one piece.
+            char[] chars = content.substring(start, end).toCharArray();
+
+            emitChunk(chars, 0, chars.length, contentHandler);
+
+            index = Math.min(end + CDATA_END.length(), content.length());
+        }
+
+        text.append(content, index, content.length());
+        emitCharacters(text, contentHandler);
+    }
+
+    private void emitChunk(char[] chars, int start, int end, ContentHandler contentHandler) throws SAXException {
+        int length = 0;
+
+        // Normalize line endings as XML parsers do.
+        for (int index = start; index < end; index++) {
+            char ch = chars[index];
+
+            if (ch == '\r') {
+                if ((index + 1 < end) && (chars[index + 1] == '\n')) {
+                    continue;
+                }
+
+                ch = '\n';
+            }
+
+            chars[start + length++] = ch;
+        }
+
+        if (length > 0) {
+            contentHandler.characters(chars, start, length);
+        }
+    }
+
+    private String resolveReference(CharSequence text, int start, int end) {
+        String name = text.subSequence(start, end).toString();
+
+        switch (name) {
+            case "amp":
+                return "&";
+            case "lt":
+                return "<";
+            case "gt":
+                return ">";
+            case "quot":
+                return "\"";
+            case "apos":
+                return "'";
+            default:
+                // Character reference
+        }
+
+        if ((name.length() < 2) || (name.charAt(0) != '#')) {
+            return null;
+        }
+
+        try {
+            int codePoint;
+
+            if ((name.charAt(1) == 'x') || (name.charAt(1) == 'X')) {
+                codePoint = Integer.parseInt(name.substring(2), 16);
+            } else {
+                codePoint = Integer.parseInt(name.substring(1));
+            }
+
+            return new String(Character.toChars(codePoint));
+        } catch (IllegalArgumentException iae) {
+            return null;
+        }
+    }
+
+    private void traverseChildren(TagNode tagNode, ContentHandler contentHandler, StringBuilder text)
+        throws SAXException {
+
+        List<? extends BaseToken> tagChildren = tagNode.getAllChildren();
+
+        for (BaseToken node : tagChildren) {
+            if (node instanceof ContentNode) {
+                // Adjacent text nodes are reported together, as they'd end up in the same run of serialized text.
+                text.append(serializer.escapeContent(tagNode, ((ContentNode) node).getContent()));
+            } else if (node instanceof TagNode) {
+                TagNode tagNodeItem = (TagNode) node;
+
+                if (!serializer.isOmitted(tagNodeItem)) {
+                    emitCharacters(text, contentHandler);
+                    traverseTagNode(tagNodeItem, contentHandler, text);
+                }
+            } else if (node instanceof CommentNode) {
+                emitCharacters(text, contentHandler);
+            }
+        }
+
+        emitCharacters(text, contentHandler);
+    }
+
+    private void traverseTagNode(TagNode tagNode, ContentHandler contentHandler, StringBuilder text)
+        throws SAXException {
+
+        String tagName = tagNode.getName();
+
+        contentHandler.startElement(StringPool.EMPTY, StringPool.EMPTY, tagName, createAttributes(tagNode));
+
+        String cdataContent = serializer.serializeCdataContent(tagNode);
+
+        if (cdataContent != null) {
+            // The contents of script and style are written unescaped, wrapped in a CDATA section.
+            emitCdataContent(cdataContent, contentHandler, text);
+        } else {
+            traverseChildren(tagNode, contentHandler, text);
+        }
+
+        contentHandler.endElement(StringPool.EMPTY, StringPool.EMPTY, tagName);
+    }
+
+    private String unescapeAttributeValue(String value) {
+        StringBuilder sb = new StringBuilder(value.length());
+
+        int index = 0;
+
+        while (index < value.length()) {
+            char ch = value.charAt(index);
+
+            if (ch == '&') {
+                int end = value.indexOf(';', index);
+                String reference = null;
+
+                if (end != -1) {
+                    reference = resolveReference(value, index + 1, end);
+                }
+
+                if (reference != null) {
+                    sb.append(reference);
+                    index = end + 1;
+                    continue;
+                }
+            }
+
+            // Normalize literal white spaces in attribute values as XML parsers do.
+            if ((ch == '\r') && (index + 1 < value.length()) && (value.charAt(index + 1) == '\n')) {
+                index++;
+                continue;
+            }
+
+            if ((ch == '\t') || (ch == '\n') || (ch == '\r')) {
+                ch = ' ';
+            }
+
+            sb.append(ch);
+            index++;
+        }
+
+        return sb.toString();
+    }
+
+}
@@ -0,0 +1,207 @@
+/**
+ * Copyright (c) 2016-present WizeNoze B.V. All rights reserved.
+ *
+ * This file is part of justext-java.
+ *
+ * justext-java is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * justext-java is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with justext-java.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.wizenoze.justext.html;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.xml.sax.ContentHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.ext.DeclHandler;
+import org.xml.sax.helpers.DefaultHandler;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+/**
+ * Strict parser backend, which parses the document with a non-validating XML parser. It's only able to process
+ * well-formed XML (eg. XHTML or the output of {@link HtmlBeautifier#cleanHtml(String)}), but it doesn't need to build
+ * and repair an HTML tree. Parsers are reused by the threads they were created by.
+ *
+ * <p>
+ * Documents aren't trusted: neither external DTDs nor external entities are loaded, references to the latter are
+ * skipped, and the limits of secure processing apply to the expansion of internal entities.
+ * </p>
+ */
+public final class XmlParserBackend implements ParserBackend {
+
+    private static final String FEATURE_EXTERNAL_GENERAL_ENTITIES =
+            "http://xml.org/sax/features/external-general-entities";
+
+    private static final String FEATURE_EXTERNAL_PARAMETER_ENTITIES =
+            "http://xml.org/sax/features/external-parameter-entities";
+
+    private static final String FEATURE_LOAD_EXTERNAL_DTD =
+            "http://apache.org/xml/features/nonvalidating/load-external-dtd";
+
+    private static final String PROPERTY_DECLARATION_HANDLER = "http://xml.org/sax/properties/declaration-handler";
+
+    private static final Logger LOG = LoggerFactory.getLogger(XmlParserBackend.class);
+
+    // Fatal errors are thrown, but nothing is printed; it's stateless, thus it's shared by all parsers as error
+    // handler and as content handler while they're idle.
+    private static final DefaultHandler DEFAULT_HANDLER = new DefaultHandler();
+
+    private final boolean declarationsRejected;
+    private final SAXParserFactory parserFactory;
+    private final ThreadLocal<XMLReader> xmlReaders;
+
+    /**
+     * Creates a strict parser backend.
+     */
+    public XmlParserBackend() {
+        this(false);
+    }
+
+    /*
+     * Creates a strict parser backend, which optionally rejects the documents having markup declarations or entity
+     * references it can't resolve. HtmlCleaner ignores the former and resolves the HTML entities of the latter,
+     * therefore such documents have to be cleaned for the same result.
+     */
+    XmlParserBackend(boolean declarationsRejected) {
+        this.declarationsRejected = declarationsRejected;
+
+        parserFactory = SAXParserFactory.newInstance();
+
+        setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+        setFeature(FEATURE_EXTERNAL_GENERAL_ENTITIES, false);
+        setFeature(FEATURE_EXTERNAL_PARAMETER_ENTITIES, false);
+        setFeature(FEATURE_LOAD_EXTERNAL_DTD, false);
+
+        xmlReaders = new ThreadLocal<>();
+    }
+
+    @Override
+    public void parse(Reader reader, ContentHandler contentHandler) throws IOException, SAXException {
+        // The parser of the current thread is reused; it's taken out while it's being used, so that a nested parse
+        // would create a new one.
+        XMLReader xmlReader = xmlReaders.get();
+
+        if (xmlReader == null) {
+            xmlReader = createXmlReader();
+        } else {
+            xmlReaders.remove();
+        }
+
+        try {
+            ContentHandler pruningContentHandler = new PruningContentHandler(contentHandler);
+
+            if (declarationsRejected) {
+                xmlReader.setContentHandler(new RejectingContentHandler(pruningContentHandler));
+            } else {
+                xmlReader.setContentHandler(pruningContentHandler);
+            }
+
+            xmlReader.parse(new InputSource(reader));
+        } finally {
+            // The pooled parser mustn't retain the handler, which refers to the paragraphs of the document.
+            xmlReader.setContentHandler(DEFAULT_HANDLER);
+
+            xmlReaders.set(xmlReader);
+        }
+    }
+
+    private XMLReader createXmlReader() throws SAXException {
+        XMLReader xmlReader;
+
+        // SAXParserFactory isn't guaranteed to be thread-safe
+        synchronized (parserFactory) {
+            try {
+                xmlReader = parserFactory.newSAXParser().getXMLReader();
+            } catch (ParserConfigurationException pce) {
+                throw new SAXException(pce);
+            }
+        }
+
+        xmlReader.setErrorHandler(DEFAULT_HANDLER);
+
+        if (declarationsRejected) {
+            xmlReader.setProperty(PROPERTY_DECLARATION_HANDLER, new RejectingDeclHandler());
+        }
+
+        return xmlReader;
+    }
+
+    private void setFeature(String name, boolean value) {
+        try {
+            parserFactory.setFeature(name, value);
+        } catch (ParserConfigurationException | SAXException e) {
+            LOG.debug(e.getMessage(), e);
+        }
+    }
+
+    private static SAXParseException reject(String message) {
+        return new SAXParseException(message, null);
+    }
+
+    /*
+     * Rejects references to entities which weren't expanded, eg. HTML entities if the DTD declaring them isn't loaded.
+     */
+    private static final class RejectingContentHandler extends XMLFilterImpl {
+
+        RejectingContentHandler(ContentHandler contentHandler) {
+            setContentHandler(contentHandler);
+        }
+
+        @Override
+        public void skippedEntity(String name) throws SAXException {
+            throw reject("Reference to unresolved entity \"" + name + "\"");
+        }
+
+    }
+
+    /*
+     * Rejects declarations of the internal DTD subset, which might declare entities or default attributes.
+     */
+    private static final class RejectingDeclHandler implements DeclHandler {
+
+        @Override
+        public void attributeDecl(String eName, String aName, String type, String mode, String value)
+            throws SAXException {
+
+            throw reject("Attribute declaration \"" + eName + " " + aName + "\"");
+        }
+
+        @Override
+        public void elementDecl(String name, String model) throws SAXException {
+            throw reject("Element declaration \"" + name + "\"");
+        }
+
+        @Override
+        public void externalEntityDecl(String name, String publicId, String systemId) throws SAXException {
+            throw reject("Entity declaration \"" + name + "\"");
+        }
+
+        @Override
+        public void internalEntityDecl(String name, String value) throws SAXException {
+            throw reject("Entity declaration \"" + name + "\"");
+        }
+
+    }
+
+}
@@ -0,0 +1,138 @@
+/**
+ * Copyright (c) 2016-present WizeNoze B.V. All rights reserved.
+ *
+ * This file is part of justext-java.
+ *
+ * justext-java is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * justext-java is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with justext-java.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.wizenoze.justext.io;
+
+import java.io.Reader;
+import java.nio.CharBuffer;
+
+/**
+ * Reads the characters of a {@link CharSequence} without copying it into a {@link String} first. Strings, string
+ * builders and char buffers are read in bulk, other sequences character by character. The sequence must not be
+ * modified while it's being read; the position of a {@link CharBuffer} isn't modified.
+ */
+public final class CharSequenceReader extends Reader {
+
+    private final CharBuffer charBuffer;
+    private final int charBufferStart;
+    private final int length;
+    private final CharSequence sequence;
+
+    private int mark = 0;
+    private int position = 0;
+
+    /**
+     * Creates a reader of the given characters.
+     *
+     * @param sequence characters to read.
+     */
+    public CharSequenceReader(CharSequence sequence) {
+        this.sequence = sequence;
+
+        if (sequence instanceof CharBuffer) {
+            charBuffer = ((CharBuffer) sequence).duplicate();
+            charBufferStart = charBuffer.position();
+        } else {
+            charBuffer = null;
+            charBufferStart = 0;
+        }
+
+        length = sequence.length();
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public void mark(int readAheadLimit) {
+        mark = position;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public int read() {
+        if (position >= length) {
+            return -1;
+        }
+
+        return sequence.charAt(position++);
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) {
+        if (len == 0) {
+            return 0;
+        }
+
+        if (position >= length) {
+            return -1;
+        }
+
+        int count = Math.min(len, length - position);
+        int end = position + count;
+
+        if (sequence instanceof String) {
+            ((String) sequence).getChars(position, end, cbuf, off);
+        } else if (sequence instanceof StringBuilder) {
+            ((StringBuilder) sequence).getChars(position, end, cbuf, off);
+        } else if (sequence instanceof StringBuffer) {
+            ((StringBuffer) sequence).getChars(position, end, cbuf, off);
+        } else if (charBuffer != null) {
+            charBuffer.position(charBufferStart + position);
+            charBuffer.get(cbuf, off, count);
+        } else {
+            for (int index = position; index < end; index++) {
+                cbuf[off++] = sequence.charAt(index);
+            }
+        }
+
+        position = end;
+
+        return count;
+    }
+
+    @Override
+    public boolean ready() {
+        return true;
+    }
+
+    @Override
+    public void reset() {
+        position = mark;
+    }
+
+    @Override
+    public long skip(long n) {
+        if (n <= 0) {
+            return 0;
+        }
+
+        int count = (int) Math.min(n, length - position);
+
+        position += count;
+
+        return count;
+    }
+
+}
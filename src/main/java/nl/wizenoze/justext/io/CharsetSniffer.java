@@ -0,0 +1,215 @@
+/**
+ * Copyright (c) 2016-present WizeNoze B.V. All rights reserved.
+ *
+ * This file is part of justext-java.
+ *
+ * justext-java is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * justext-java is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with justext-java.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.wizenoze.justext.io;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.util.regex.Pattern.CASE_INSENSITIVE;
+
+/**
+ * Determines the character encoding of an HTML document from its first few kilobytes. A byte order mark takes
+ * precedence, then the charset given by a <code>meta</code> tag (either <code>&lt;meta charset&gt;</code> or
+ * <code>&lt;meta http-equiv="Content-Type"&gt;</code>) or by the XML declaration. Documents without any of these are
+ * decoded as UTF-8.
+ */
+public final class CharsetSniffer {
+
+    /**
+     * Number of bytes examined at the beginning of a document.
+     */
+    public static final int SNIFF_LENGTH = 4096;
+
+    private static final Charset CHARSET_DEFAULT = StandardCharsets.UTF_8;
+
+    private static final Pattern CHARSET_PATTERN = Pattern.compile(
+            "charset\\s*=\\s*[\"']?\\s*([a-z0-9_.:\\-]+)", CASE_INSENSITIVE);
+    private static final Pattern META_PATTERN = Pattern.compile("<meta\\s[^>]*>", CASE_INSENSITIVE);
+    private static final Pattern XML_DECLARATION_PATTERN = Pattern.compile(
+            "^<\\?xml\\s[^>]*encoding\\s*=\\s*[\"']([a-z0-9_.:\\-]+)[\"']", CASE_INSENSITIVE);
+
+    private CharsetSniffer() {
+    }
+
+    /**
+     * Creates a reader which decodes the given HTML document. The encoding is determined by looking at the first
+     * {@link #SNIFF_LENGTH} bytes; malformed input is replaced rather than reported.
+     *
+     * @param inputStream HTML document.
+     * @return reader of the decoded document.
+     * @throws IOException if the beginning of the document cannot be read.
+     */
+    public static Reader newReader(InputStream inputStream) throws IOException {
+        InputStream input = inputStream;
+
+        if (!input.markSupported()) {
+            input = new BufferedInputStream(input, SNIFF_LENGTH);
+        }
+
+        byte[] prefix = new byte[SNIFF_LENGTH];
+
+        input.mark(SNIFF_LENGTH);
+
+        int length = readPrefix(input, prefix);
+
+        input.reset();
+
+        Charset charset = sniff(prefix, length);
+
+        skipFully(input, getByteOrderMarkLength(prefix, length));
+
+        CharsetDecoder charsetDecoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        return new InputStreamReader(input, charsetDecoder);
+    }
+
+    /**
+     * Returns the length of the byte order mark the given document starts with.
+     *
+     * @param prefix first bytes of the document.
+     * @param length number of bytes available in prefix.
+     * @return length of the byte order mark or 0 if there's none.
+     */
+    public static int getByteOrderMarkLength(byte[] prefix, int length) {
+        Charset charset = sniffByteOrderMark(prefix, length);
+
+        if (charset == null) {
+            return 0;
+        }
+
+        if (StandardCharsets.UTF_8.equals(charset)) {
+            return 3;
+        }
+
+        return 2;
+    }
+
+    /**
+     * Determines the character encoding of an HTML document.
+     *
+     * @param prefix first bytes of the document.
+     * @param length number of bytes available in prefix.
+     * @return character encoding of the document.
+     */
+    public static Charset sniff(byte[] prefix, int length) {
+        Charset charset = sniffByteOrderMark(prefix, length);
+
+        if (charset != null) {
+            return charset;
+        }
+
+        // Single-byte decoding keeps the ASCII range intact whatever the actual encoding is
+        String head = new String(prefix, 0, Math.min(length, SNIFF_LENGTH), StandardCharsets.ISO_8859_1);
+
+        Matcher xmlDeclarationMatcher = XML_DECLARATION_PATTERN.matcher(head);
+
+        if (xmlDeclarationMatcher.find()) {
+            charset = forName(xmlDeclarationMatcher.group(1));
+        }
+
+        Matcher metaMatcher = META_PATTERN.matcher(head);
+
+        while ((charset == null) && metaMatcher.find()) {
+            Matcher charsetMatcher = CHARSET_PATTERN.matcher(metaMatcher.group());
+
+            if (charsetMatcher.find()) {
+                charset = forName(charsetMatcher.group(1));
+            }
+        }
+
+        if (charset == null) {
+            return CHARSET_DEFAULT;
+        }
+
+        return charset;
+    }
+
+    private static Charset forName(String charsetName) {
+        Charset charset;
+
+        try {
+            if (!Charset.isSupported(charsetName)) {
+                return null;
+            }
+
+            charset = Charset.forName(charsetName);
+        } catch (IllegalCharsetNameException icne) {
+            return null;
+        }
+
+        // A declaration which could be read as ASCII cannot be right about a 16 or 32 bit encoding.
+        if (charset.name().startsWith("UTF-16") || charset.name().startsWith("UTF-32")) {
+            return CHARSET_DEFAULT;
+        }
+
+        return charset;
+    }
+
+    private static int readPrefix(InputStream input, byte[] prefix) throws IOException {
+        int length = 0;
+
+        while (length < prefix.length) {
+            int count = input.read(prefix, length, prefix.length - length);
+
+            if (count == -1) {
+                break;
+            }
+
+            length += count;
+        }
+
+        return length;
+    }
+
+    private static void skipFully(InputStream input, int count) throws IOException {
+        for (int index = 0; index < count; index++) {
+            input.read();
+        }
+    }
+
+    private static Charset sniffByteOrderMark(byte[] prefix, int length) {
+        if ((length >= 3) && (prefix[0] == (byte) 0xEF) && (prefix[1] == (byte) 0xBB) && (prefix[2] == (byte) 0xBF)) {
+            return StandardCharsets.UTF_8;
+        }
+
+        if ((length >= 2) && (prefix[0] == (byte) 0xFE) && (prefix[1] == (byte) 0xFF)) {
+            return StandardCharsets.UTF_16BE;
+        }
+
+        if ((length >= 2) && (prefix[0] == (byte) 0xFF) && (prefix[1] == (byte) 0xFE)) {
+            return StandardCharsets.UTF_16LE;
+        }
+
+        return null;
+    }
+
+}
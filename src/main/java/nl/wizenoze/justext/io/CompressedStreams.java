@@ -0,0 +1,170 @@
+/**
+ * Copyright (c) 2016-present WizeNoze B.V. All rights reserved.
+ *
+ * This file is part of justext-java.
+ *
+ * justext-java is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * justext-java is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with justext-java.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.wizenoze.justext.io;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Recognizes gzip and zlib compressed documents by their magic bytes and inflates them incrementally, so that never
+ * more than a small chunk of the inflated document is held in memory by the decompressor.
+ *
+ * <p>
+ * A zlib header is only two bytes long and plenty of plain text starts with a valid one (eg. "HK" or "x^"), therefore
+ * documents starting with a zlib header are only inflated if their first chunk can be inflated without errors.
+ * </p>
+ */
+public final class CompressedStreams {
+
+    /**
+     * Size of the chunks in which compressed input is read and inflated.
+     */
+    public static final int CHUNK_SIZE = 8192;
+
+    private static final int GZIP_MAGIC_1 = 0x1F;
+    private static final int GZIP_MAGIC_2 = 0x8B;
+    private static final int GZIP_COMPRESSION_METHOD_DEFLATE = 8;
+    private static final int ZLIB_COMPRESSION_METHOD_DEFLATE = 8;
+    private static final int ZLIB_MAX_COMPRESSION_INFO = 7;
+    private static final int ZLIB_PRESET_DICTIONARY = 0x20;
+
+    private CompressedStreams() {
+    }
+
+    /**
+     * Returns a stream of the inflated document if the given one is gzip or zlib compressed, otherwise a stream of the
+     * document as is.
+     *
+     * @param inputStream possibly compressed document.
+     * @return uncompressed document.
+     * @throws IOException if the beginning of the document cannot be read or the gzip header is corrupt.
+     */
+    public static InputStream decompress(InputStream inputStream) throws IOException {
+        InputStream input = inputStream;
+
+        if (!input.markSupported()) {
+            input = new BufferedInputStream(input, CHUNK_SIZE);
+        }
+
+        input.mark(3);
+
+        int firstByte = input.read();
+        int secondByte = input.read();
+        int thirdByte = input.read();
+
+        input.reset();
+
+        if (isGzip(firstByte, secondByte) && (thirdByte == GZIP_COMPRESSION_METHOD_DEFLATE)) {
+            return new GZIPInputStream(input, CHUNK_SIZE);
+        }
+
+        if (isZlib(firstByte, secondByte) && isInflatable(input)) {
+            return new InflaterInputStream(input, new Inflater(), CHUNK_SIZE);
+        }
+
+        return input;
+    }
+
+    /**
+     * Returns true if the given leading bytes are the gzip magic number.
+     *
+     * @param firstByte first byte of a document or -1.
+     * @param secondByte second byte of a document or -1.
+     * @return true if the document is gzip compressed.
+     */
+    public static boolean isGzip(int firstByte, int secondByte) {
+        return (firstByte == GZIP_MAGIC_1) && (secondByte == GZIP_MAGIC_2);
+    }
+
+    /**
+     * Returns true if the given leading bytes are a valid zlib header (deflate method, at most 32K window, no preset
+     * dictionary and a correct header checksum).
+     *
+     * @param firstByte first byte of a document or -1.
+     * @param secondByte second byte of a document or -1.
+     * @return true if the document is zlib compressed.
+     */
+    public static boolean isZlib(int firstByte, int secondByte) {
+        if ((firstByte < 0) || (secondByte < 0)) {
+            return false;
+        }
+
+        if (((firstByte & 0x0F) != ZLIB_COMPRESSION_METHOD_DEFLATE) || ((firstByte >> 4) > ZLIB_MAX_COMPRESSION_INFO)) {
+            return false;
+        }
+
+        if ((secondByte & ZLIB_PRESET_DICTIONARY) != 0) {
+            return false;
+        }
+
+        return (((firstByte << 8) | secondByte) % 31) == 0;
+    }
+
+    /*
+     * Returns true if the first chunk of the given stream is the beginning of a zlib stream, that is, it can be
+     * inflated without errors and the zlib stream either ends within it or goes on after it. The stream is reset
+     * afterwards.
+     */
+    private static boolean isInflatable(InputStream input) throws IOException {
+        byte[] chunk = new byte[CHUNK_SIZE];
+
+        input.mark(CHUNK_SIZE);
+
+        int length = 0;
+
+        try {
+            while (length < CHUNK_SIZE) {
+                int count = input.read(chunk, length, CHUNK_SIZE - length);
+
+                if (count == -1) {
+                    break;
+                }
+
+                length += count;
+            }
+        } finally {
+            input.reset();
+        }
+
+        Inflater inflater = new Inflater();
+
+        try {
+            byte[] inflated = new byte[CHUNK_SIZE];
+
+            inflater.setInput(chunk, 0, length);
+
+            while (!inflater.finished() && !inflater.needsInput() && !inflater.needsDictionary()) {
+                inflater.inflate(inflated);
+            }
+
+            return inflater.finished() || ((length == CHUNK_SIZE) && inflater.needsInput());
+        } catch (DataFormatException dfe) {
+            return false;
+        } finally {
+            inflater.end();
+        }
+    }
+
+}
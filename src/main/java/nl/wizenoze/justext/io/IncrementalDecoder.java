@@ -0,0 +1,153 @@
+/**
+ * Copyright (c) 2016-present WizeNoze B.V. All rights reserved.
+ *
+ * This file is part of justext-java.
+ *
+ * justext-java is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * justext-java is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with justext-java.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.wizenoze.justext.io;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.CoderResult;
+
+/**
+ * Decodes an HTML document whose bytes arrive in arbitrary chunks. The character encoding is determined by
+ * {@link CharsetSniffer} once its first {@link CharsetSniffer#SNIFF_LENGTH} bytes (or all of them, if it's shorter)
+ * have arrived; until then no characters are produced. Byte sequences split between chunks are decoded correctly.
+ */
+public final class IncrementalDecoder {
+
+    private static final int INITIAL_CAPACITY = 8192;
+
+    private CharsetDecoder charsetDecoder;
+    private CharBuffer output;
+    private ByteBuffer pending;
+
+    /**
+     * Creates a decoder of a new document.
+     */
+    public IncrementalDecoder() {
+        output = CharBuffer.allocate(INITIAL_CAPACITY);
+        pending = ByteBuffer.allocate(CharsetSniffer.SNIFF_LENGTH);
+    }
+
+    /**
+     * Decodes the next chunk of the document.
+     *
+     * @param bytes bytes.
+     * @param offset offset of the first byte to decode.
+     * @param length number of bytes to decode.
+     * @return the decoded characters, which are only valid until the next invocation of this decoder.
+     */
+    public CharBuffer decode(byte[] bytes, int offset, int length) {
+        if (pending.remaining() < length) {
+            ByteBuffer newPending = ByteBuffer.allocate(Math.max(pending.position() + length, pending.capacity() * 2));
+
+            pending.flip();
+            newPending.put(pending);
+
+            pending = newPending;
+        }
+
+        pending.put(bytes, offset, length);
+
+        if ((charsetDecoder == null) && (pending.position() < CharsetSniffer.SNIFF_LENGTH)) {
+            output.clear().flip();
+            return output;
+        }
+
+        return decode(false);
+    }
+
+    /**
+     * Decodes the rest of the document, after its last chunk has been passed to {@link #decode(byte[], int, int)}.
+     *
+     * @return the decoded characters, which are only valid until the next invocation of this decoder.
+     */
+    public CharBuffer finish() {
+        return decode(true);
+    }
+
+    /**
+     * Returns the character encoding of the document.
+     *
+     * @return character encoding or null if it hasn't been determined yet.
+     */
+    public Charset getCharset() {
+        if (charsetDecoder == null) {
+            return null;
+        }
+
+        return charsetDecoder.charset();
+    }
+
+    private CharBuffer decode(boolean endOfInput) {
+        pending.flip();
+
+        if (charsetDecoder == null) {
+            startDecoding();
+        }
+
+        output.clear();
+
+        CoderResult coderResult;
+
+        do {
+            coderResult = charsetDecoder.decode(pending, output, endOfInput);
+
+            if (coderResult.isOverflow()) {
+                growOutput();
+            }
+        } while (coderResult.isOverflow());
+
+        if (endOfInput) {
+            while (charsetDecoder.flush(output).isOverflow()) {
+                growOutput();
+            }
+        }
+
+        pending.compact();
+        output.flip();
+
+        return output;
+    }
+
+    private void growOutput() {
+        CharBuffer newOutput = CharBuffer.allocate(output.capacity() * 2);
+
+        output.flip();
+        newOutput.put(output);
+
+        output = newOutput;
+    }
+
+    private void startDecoding() {
+        byte[] prefix = pending.array();
+        int length = pending.remaining();
+
+        Charset charset = CharsetSniffer.sniff(prefix, length);
+
+        charsetDecoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        pending.position(CharsetSniffer.getByteOrderMarkLength(prefix, length));
+    }
+
+}
@@ -0,0 +1,56 @@
+/**
+ * Copyright (c) 2016-present WizeNoze B.V. All rights reserved.
+ *
+ * This file is part of justext-java.
+ *
+ * justext-java is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * justext-java is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with justext-java.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.wizenoze.justext.io;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Maps files into memory, so that they can be decoded without being read onto the heap first.
+ */
+public final class MappedFiles {
+
+    private MappedFiles() {
+    }
+
+    /**
+     * Maps the whole given file read-only into memory. The mapping stays valid after this method returns and it's
+     * released when the returned buffer gets garbage collected.
+     *
+     * @param path file to map.
+     * @return buffer of the mapped file.
+     * @throws IOException if the file cannot be opened or mapped, or it's larger than 2 GB.
+     */
+    public static MappedByteBuffer map(Path path) throws IOException {
+        try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = fileChannel.size();
+
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(String.format("File %s is too large to be mapped: %d bytes", path, size));
+            }
+
+            return fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+    }
+
+}
@@ -19,9 +19,13 @@
 
 package nl.wizenoze.justext.paragraph;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 
+import nl.wizenoze.justext.util.StopWordMatcher;
 import nl.wizenoze.justext.util.StringUtil;
 
 /**
@@ -60,10 +64,49 @@ abstract class BaseParagraph implements Paragraph {
         return Objects.equals(getText(), paragraph.getText()) && Objects.equals(getXpath(), paragraph.getXpath());
     }
 
-    int getStopWordsCount(String[] words, Set<String> stopWords) {
+    /*
+     * Splits the given text into words, just like text.split("\\s") would do, but only the start and end offsets of
+     * the words are recorded, in pairs.
+     */
+    static int[] getWordOffsets(String text) {
+        int length = text.length();
+        int[] wordOffsets = new int[8];
+        int wordOffsetsLength = 0;
+        int start = 0;
+
+        for (int index = 0; index <= length; index++) {
+            if ((index < length) && !isWordSeparator(text.charAt(index))) {
+                continue;
+            }
+
+            if (wordOffsetsLength == wordOffsets.length) {
+                wordOffsets = Arrays.copyOf(wordOffsets, wordOffsetsLength * 2);
+            }
+
+            wordOffsets[wordOffsetsLength++] = start;
+            wordOffsets[wordOffsetsLength++] = index;
+
+            start = index + 1;
+        }
+
+        // Trailing empty words are dropped, unless the text hasn't been split at all.
+        while ((wordOffsetsLength > 2) && (wordOffsets[wordOffsetsLength - 2] == wordOffsets[wordOffsetsLength - 1])) {
+            wordOffsetsLength -= 2;
+        }
+
+        if ((wordOffsetsLength == 2) && (length > 0) && (wordOffsets[0] == wordOffsets[1])) {
+            wordOffsetsLength = 0;
+        }
+
+        return Arrays.copyOf(wordOffsets, wordOffsetsLength);
+    }
+
+    int getStopWordsCount(String text, int[] wordOffsets, Set<String> stopWords) {
         int stopWordsCount = 0;
 
-        for (String word : words) {
+        for (int index = 0; index < wordOffsets.length; index += 2) {
+            String word = text.substring(wordOffsets[index], wordOffsets[index + 1]);
+
             if (stopWords.contains(word.toLowerCase())) {
                 stopWordsCount++;
             }
@@ -72,20 +115,46 @@ abstract class BaseParagraph implements Paragraph {
         return stopWordsCount;
     }
 
-    float getStopWordsDensity(String[] words, Set<String> stopWords) {
-        int wordsCount = words.length;
+    float getStopWordsDensity(String text, int[] wordOffsets, Set<String> stopWords) {
+        int wordsCount = wordOffsets.length / 2;
+
+        if (wordsCount == 0) {
+            return 0;
+        }
+
+        float stopWordsDensity = 1.0f * getStopWordsCount(text, wordOffsets, stopWords) / wordsCount;
+
+        return stopWordsDensity;
+    }
+
+    float getStopWordsDensity(String text, int[] wordOffsets, StopWordMatcher stopWordMatcher) {
+        int wordsCount = wordOffsets.length / 2;
 
         if (wordsCount == 0) {
             return 0;
         }
 
-        float stopWordsDensity = 1.0f * getStopWordsCount(words, stopWords) / wordsCount;
+        float stopWordsDensity = 1.0f * stopWordMatcher.countStopWords(text, wordOffsets) / wordsCount;
 
         return stopWordsDensity;
     }
 
+    List<String> getWords(String text, int[] wordOffsets) {
+        String[] words = new String[wordOffsets.length / 2];
+
+        for (int index = 0; index < words.length; index++) {
+            words[index] = text.substring(wordOffsets[2 * index], wordOffsets[2 * index + 1]);
+        }
+
+        return Collections.unmodifiableList(Arrays.asList(words));
+    }
+
     boolean hasText(String text) {
         return StringUtil.isNotBlank(text);
     }
 
+    private static boolean isWordSeparator(char ch) {
+        return (ch == ' ') || (ch == '\t') || (ch == '\n') || (ch == '\u000B') || (ch == '\f') || (ch == '\r');
+    }
+
 }
@@ -0,0 +1,87 @@
+/**
+ * Copyright (c) 2016-present WizeNoze B.V. All rights reserved.
+ *
+ * This file is part of justext-java.
+ *
+ * justext-java is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * justext-java is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with justext-java.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.wizenoze.justext.paragraph;
+
+import java.io.Reader;
+import java.util.List;
+import java.util.function.Function;
+
+import nl.wizenoze.justext.html.ParserBackend;
+
+/**
+ * Per-thread state of building paragraphs, which is reused from one document to the next one: the paragraph maker
+ * along with its SAX handler, path stack and list of paragraphs.
+ *
+ * <p>
+ * The list of paragraphs belongs to the context, it's only handed over to the function given to
+ * {@link #traverse(Reader, ParserBackend, Function)} and it's cleared once the function returns, so that an idle thread
+ * doesn't retain the last document. A nested traversal (eg. one started by a parser backend) uses a fresh paragraph
+ * maker instead of the pooled one.
+ * </p>
+ */
+public final class ExtractionContext {
+
+    private static final ThreadLocal<ExtractionContext> CURRENT = ThreadLocal.withInitial(ExtractionContext::new);
+
+    private final ParagraphMaker paragraphMaker;
+
+    private boolean inUse = false;
+
+    private ExtractionContext() {
+        paragraphMaker = new ParagraphMaker();
+    }
+
+    /**
+     * Returns the context of the current thread.
+     *
+     * @return extraction context.
+     */
+    public static ExtractionContext current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Builds paragraphs from the given document and passes them to the given function.
+     *
+     * @param reader document reader.
+     * @param parserBackend parser backend.
+     * @param function function consuming the paragraphs, which mustn't keep a reference to the list.
+     * @param <T> type of the result.
+     * @return result of the function.
+     */
+    public <T> T traverse(
+            Reader reader, ParserBackend parserBackend, Function<List<MutableParagraph>, T> function) {
+
+        if (inUse) {
+            return function.apply(new ParagraphMaker(reader, parserBackend).traverse());
+        }
+
+        inUse = true;
+
+        try {
+            return function.apply(paragraphMaker.traverse(reader, parserBackend));
+        } finally {
+            paragraphMaker.clear();
+
+            inUse = false;
+        }
+    }
+
+}
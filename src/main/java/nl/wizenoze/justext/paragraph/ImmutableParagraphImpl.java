@@ -20,6 +20,7 @@
 package nl.wizenoze.justext.paragraph;
 
 import nl.wizenoze.justext.Classification;
+import nl.wizenoze.justext.util.StopWordMatcher;
 
 import java.util.List;
 import java.util.Set;
@@ -47,9 +48,12 @@ public final class ImmutableParagraphImpl extends BaseParagraph {
     private final int tagsCount;
     private final String text;
     private final String url;
-    private final List<String> words;
+    private final int[] wordOffsets;
     private final int wordsCount;
-    private final String xpath;
+    private final PathNode xpathNode;
+
+    private List<String> words;
+    private String xpath;
 
     /**
      * Creates an immutable copy of the given paragraph.
@@ -69,15 +73,32 @@ public final class ImmutableParagraphImpl extends BaseParagraph {
         isSelect = paragraph.isSelect();
         linkDensity = paragraph.getLinkDensity();
         tagsCount = paragraph.getTagsCount();
-        xpath = paragraph.getXpath();
+
+        // The XPath of a paragraph is rarely needed, it's only built on demand.
+        if (paragraph instanceof MutableParagraphImpl) {
+            xpathNode = ((MutableParagraphImpl) paragraph).getXpathNode();
+        } else {
+            xpathNode = null;
+        }
+
+        if (xpathNode == null) {
+            xpath = paragraph.getXpath();
+        }
 
         text = paragraph.getText();
         hasText = hasText(text);
         length = text.length();
 
         url = paragraph.getUrl();
-        words = paragraph.getWords();
-        wordsCount = words.size();
+
+        // Both paragraphs have got the same text, thus its words can be reused.
+        if (paragraph instanceof MutableParagraphImpl) {
+            wordOffsets = ((MutableParagraphImpl) paragraph).getWordOffsets();
+        } else {
+            wordOffsets = getWordOffsets(text);
+        }
+
+        wordsCount = wordOffsets.length / 2;
     }
 
     @Override
@@ -107,14 +128,22 @@ public final class ImmutableParagraphImpl extends BaseParagraph {
 
     @Override
     public int getStopWordsCount(Set<String> stopWords) {
-        String[] wordArray = new String[getWordsCount()];
-        return getStopWordsCount(getWords().toArray(wordArray), stopWords);
+        return getStopWordsCount(text, wordOffsets, stopWords);
+    }
+
+    @Override
+    public int getStopWordsCount(StopWordMatcher stopWordMatcher) {
+        return stopWordMatcher.countStopWords(text, wordOffsets);
     }
 
     @Override
     public float getStopWordsDensity(Set<String> stopWords) {
-        String[] wordArray = new String[getWordsCount()];
-        return getStopWordsDensity(getWords().toArray(wordArray), stopWords);
+        return getStopWordsDensity(text, wordOffsets, stopWords);
+    }
+
+    @Override
+    public float getStopWordsDensity(StopWordMatcher stopWordMatcher) {
+        return getStopWordsDensity(text, wordOffsets, stopWordMatcher);
     }
 
     @Override
@@ -134,6 +163,10 @@ public final class ImmutableParagraphImpl extends BaseParagraph {
 
     @Override
     public List<String> getWords() {
+        if (words == null) {
+            words = getWords(text, wordOffsets);
+        }
+
         return words;
     }
 
@@ -144,6 +177,11 @@ public final class ImmutableParagraphImpl extends BaseParagraph {
 
     @Override
     public String getXpath() {
+        // Racing threads might both build the same string, which is harmless.
+        if (xpath == null) {
+            xpath = xpathNode.xpath();
+        }
+
         return xpath;
     }
 
@@ -31,6 +31,18 @@ import nl.wizenoze.justext.Classification;
  */
 public interface MutableParagraph extends Paragraph {
 
+    /**
+     * Add the given slice of a character array to the existing text nodes. The default implementation delegates to
+     * {@link #appendText(String)}, implementations may add the characters without creating a string of them.
+     * @param text characters to be added.
+     * @param start index of the first character to be added.
+     * @param length number of characters to be added.
+     * @return length of the normalized input which has just been added to the paragraph.
+     */
+    default int appendText(char[] text, int start, int length) {
+        return appendText(new String(text, start, length)).length();
+    }
+
     /**
      * Add the given text to the existing text nodes.
      * @param text text to be added.
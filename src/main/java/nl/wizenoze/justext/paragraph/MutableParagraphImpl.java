@@ -23,11 +23,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
 import java.util.Set;
-import java.util.regex.Pattern;
 
 import nl.wizenoze.justext.Classification;
+import nl.wizenoze.justext.util.StopWordMatcher;
 import nl.wizenoze.justext.util.StringPool;
 import nl.wizenoze.justext.util.StringUtil;
 
@@ -36,25 +35,38 @@ import static nl.wizenoze.justext.Classification.GOOD;
 /**
  * Implementation of {@link MutableParagraphImpl}.
  *
+ * <p>
+ * Text is accumulated in a growable character buffer and runs of white space are collapsed as they're copied into it,
+ * therefore the text of a paragraph is only turned into a string once it's requested. The boundaries of the appended
+ * text nodes are recorded along with it, so that they can be turned into strings as well on request.
+ * </p>
+ *
  * @author László Csontos
  */
 final class MutableParagraphImpl extends BaseParagraph implements MutableParagraph {
 
-    private static final Pattern HEADER_PATTERN = Pattern.compile("\\bh\\d\\b");
-    private static final Pattern HEADLINE_PATTERN = Pattern.compile("\\bh1\\b");
-    private static final Pattern IMAGE_PATTERN = Pattern.compile("\\bimg\\b");
-    private static final Pattern SELECT_PATTERN = Pattern.compile("^select|\\.select");
+    private static final int INITIAL_CAPACITY = 16;
+
+    // Start, end, merged leading white space and original last character of each text node
+    private static final int TEXT_NODE_FIELDS = 4;
 
+    private char[] buffer;
+    private int bufferLength = 0;
     private int charsInLinksCount = 0;
     private Classification classification;
-    private Optional<String> domPath;
+    private String domPath;
     private Classification firstClassification;
     private int tagsCount = 0;
+    private int pathFlags = 0;
+    private PathNode pathNode;
     private String text;
-    private List<String> textNodes;
+    private int textEnd = 0;
+    private int[] textNodes;
+    private int textNodesCount = 0;
+    private int textStart = -1;
     private String url;
-    private String[] words;
-    private Optional<String> xpath;
+    private int[] wordOffsets;
+    private String xpath;
 
     /**
      * Creates an empty paragraph with the given path info.
@@ -71,30 +83,37 @@ final class MutableParagraphImpl extends BaseParagraph implements MutableParagra
      * @param charsInLinksCount character count in links
      * @param tagsCount tags count
      */
-    MutableParagraphImpl(PathInfo pathInfo, List<String> textNodes, int charsInLinksCount, int tagsCount) {
+    MutableParagraphImpl(
+            PathInfo pathInfo, List<? extends CharSequence> textNodes, int charsInLinksCount, int tagsCount) {
         if (pathInfo != null) {
-            setDomPath(pathInfo.dom());
-            setXpath(pathInfo.xpath());
-        } else {
-            domPath = Optional.empty();
-            xpath = Optional.empty();
+            pathNode = pathInfo.peek();
+        }
+
+        if (pathNode != null) {
+            pathFlags = pathNode.getFlags();
+        }
+
+        // Paths are only turned into strings when they're requested.
+        if (pathNode == null) {
+            domPath = (pathInfo != null) ? pathInfo.dom() : StringPool.EMPTY;
+            xpath = (pathInfo != null) ? pathInfo.xpath() : StringPool.EMPTY;
         }
 
         this.charsInLinksCount = charsInLinksCount;
         this.tagsCount = tagsCount;
 
-        if (textNodes == null) {
-            textNodes = new ArrayList<>();
-        }
+        buffer = new char[INITIAL_CAPACITY];
 
-        this.textNodes = textNodes;
+        if (textNodes != null) {
+            appendTextNodes(textNodes);
+        }
     }
 
     /**
      * Creates a paragraph with the given text nodes.
      * @param textNodes text nodes.
      */
-    MutableParagraphImpl(List<String> textNodes) {
+    MutableParagraphImpl(List<? extends CharSequence> textNodes) {
         this(null, textNodes, 0, 0);
     }
 
@@ -103,7 +122,7 @@ final class MutableParagraphImpl extends BaseParagraph implements MutableParagra
      * @param textNodes text nodes.
      * @param charsInLinksCount count of characters in links.
      */
-    MutableParagraphImpl(List<String> textNodes, int charsInLinksCount) {
+    MutableParagraphImpl(List<? extends CharSequence> textNodes, int charsInLinksCount) {
         this(null, textNodes, charsInLinksCount, 0);
     }
 
@@ -113,14 +132,57 @@ final class MutableParagraphImpl extends BaseParagraph implements MutableParagra
     }
 
     @Override
-    public String appendText(String text) {
+    public int appendText(char[] text, int start, int length) {
         reset();
 
-        text = StringUtil.normalizeWhiteSpaces(text);
+        ensureCapacity(length);
 
-        textNodes.add(text);
+        int nodeStart = bufferLength;
+        char leading = 0;
+        int normalizedLength = 0;
 
-        return text;
+        for (int index = start; index < start + length; index++) {
+            char ch = text[index];
+
+            if (!StringUtil.isUnicodeWhiteSpace(ch)) {
+                append(ch);
+                normalizedLength++;
+                continue;
+            }
+
+            // A run of white space becomes a single new line if it contains one, otherwise a single space.
+            boolean newLine = false;
+
+            for (; (index < start + length) && StringUtil.isUnicodeWhiteSpace(text[index]); index++) {
+                newLine |= (text[index] == '\n') || (text[index] == '\r');
+            }
+
+            index--;
+            normalizedLength++;
+
+            // Runs at the boundary of two pieces of text are merged, just as if they were appended together.
+            if ((bufferLength > 0) && isCollapsed(buffer[bufferLength - 1])) {
+                if (newLine) {
+                    buffer[bufferLength - 1] = '\n';
+                }
+
+                // It can only be the leading run, as runs within the text node are preceded by other characters.
+                leading = newLine ? '\n' : ' ';
+            } else {
+                append(newLine ? '\n' : ' ');
+            }
+        }
+
+        addTextNode(nodeStart, leading);
+
+        return normalizedLength;
+    }
+
+    @Override
+    public String appendText(String text) {
+        appendText(text.toCharArray(), 0, text.length());
+
+        return getTextNode(textNodesCount - 1);
     }
 
     @Override
@@ -145,7 +207,11 @@ final class MutableParagraphImpl extends BaseParagraph implements MutableParagra
 
     @Override
     public String getDomPath() {
-        return domPath.orElse(StringPool.EMPTY);
+        if (domPath == null) {
+            domPath = pathNode.dom();
+        }
+
+        return domPath;
     }
 
     @Override
@@ -166,12 +232,22 @@ final class MutableParagraphImpl extends BaseParagraph implements MutableParagra
 
     @Override
     public int getStopWordsCount(Set<String> stopWords) {
-        return getStopWordsCount(words(), stopWords);
+        return getStopWordsCount(getText(), getWordOffsets(), stopWords);
+    }
+
+    @Override
+    public int getStopWordsCount(StopWordMatcher stopWordMatcher) {
+        return stopWordMatcher.countStopWords(getText(), getWordOffsets());
     }
 
     @Override
     public float getStopWordsDensity(Set<String> stopWords) {
-        return getStopWordsDensity(words(), stopWords);
+        return getStopWordsDensity(getText(), getWordOffsets(), stopWords);
+    }
+
+    @Override
+    public float getStopWordsDensity(StopWordMatcher stopWordMatcher) {
+        return getStopWordsDensity(getText(), getWordOffsets(), stopWordMatcher);
     }
 
     @Override
@@ -182,8 +258,7 @@ final class MutableParagraphImpl extends BaseParagraph implements MutableParagra
     @Override
     public String getText() {
         if (text == null) {
-            text = String.join(StringPool.EMPTY, textNodes);
-            text = StringUtil.normalizeWhiteSpaces(text.trim());
+            text = hasText() ? new String(buffer, textStart, textEnd - textStart) : StringPool.EMPTY;
         }
 
         return text;
@@ -191,7 +266,13 @@ final class MutableParagraphImpl extends BaseParagraph implements MutableParagra
 
     @Override
     public List<String> getTextNodes() {
-        return textNodes;
+        List<String> textNodeList = new ArrayList<>(textNodesCount);
+
+        for (int index = 0; index < textNodesCount; index++) {
+            textNodeList.add(getTextNode(index));
+        }
+
+        return Collections.unmodifiableList(textNodeList);
     }
 
     @Override
@@ -201,22 +282,26 @@ final class MutableParagraphImpl extends BaseParagraph implements MutableParagra
 
     @Override
     public List<String> getWords() {
-        return Collections.unmodifiableList(Arrays.asList(words()));
+        return getWords(getText(), getWordOffsets());
     }
 
     @Override
     public int getWordsCount() {
-        return words().length;
+        return getWordOffsets().length / 2;
     }
 
     @Override
     public String getXpath() {
-        return xpath.orElse(StringPool.EMPTY);
+        if (xpath == null) {
+            xpath = pathNode.xpath();
+        }
+
+        return xpath;
     }
 
     @Override
     public boolean hasText() {
-        return StringUtil.isNotBlank(getText());
+        return textStart >= 0;
     }
 
     @Override
@@ -236,27 +321,27 @@ final class MutableParagraphImpl extends BaseParagraph implements MutableParagra
 
     @Override
     public boolean isHeading() {
-        return HEADER_PATTERN.matcher(getDomPath()).find();
+        return (pathFlags & PathFlags.HEADING) != 0;
     }
 
     @Override
     public boolean isHeadline() {
-        return HEADLINE_PATTERN.matcher(getDomPath()).find();
+        return (pathFlags & PathFlags.HEADLINE) != 0;
     }
 
     @Override
     public boolean isImage() {
-        return IMAGE_PATTERN.matcher(getDomPath()).find();
+        return (pathFlags & PathFlags.IMAGE) != 0;
     }
 
     @Override
     public boolean isSelect() {
-        return SELECT_PATTERN.matcher(getDomPath()).find();
+        return (pathFlags & PathFlags.SELECT) != 0;
     }
 
     @Override
     public int length() {
-        return getText().length();
+        return hasText() ? (textEnd - textStart) : 0;
     }
 
     /**
@@ -281,7 +366,9 @@ final class MutableParagraphImpl extends BaseParagraph implements MutableParagra
      * @param domPath DOM path.
      */
     public void setDomPath(String domPath) {
-        this.domPath = Optional.of(domPath);
+        this.domPath = domPath;
+
+        pathFlags = PathFlags.getFlags(domPath);
     }
 
     /**
@@ -299,7 +386,12 @@ final class MutableParagraphImpl extends BaseParagraph implements MutableParagra
     public void setTextNodes(List<String> textNodes) {
         reset();
 
-        this.textNodes = textNodes;
+        bufferLength = 0;
+        textEnd = 0;
+        textNodesCount = 0;
+        textStart = -1;
+
+        appendTextNodes(textNodes);
     }
 
     @Override
@@ -312,20 +404,105 @@ final class MutableParagraphImpl extends BaseParagraph implements MutableParagra
      * @param xpath xpath.
      */
     public void setXpath(String xpath) {
-        this.xpath = Optional.of(xpath);
+        this.xpath = xpath;
     }
 
-    private void reset() {
-        text = null;
-        words = null;
+    /*
+     * Returns the start and end offsets of words within the text, in pairs.
+     */
+    int[] getWordOffsets() {
+        if (wordOffsets == null) {
+            wordOffsets = getWordOffsets(getText());
+        }
+
+        return wordOffsets;
+    }
+
+    /*
+     * Returns the node the XPath can be built from later, or null if it's already known.
+     */
+    PathNode getXpathNode() {
+        if (xpath != null) {
+            return null;
+        }
+
+        return pathNode;
     }
 
-    private String[] words() {
-        if (words == null) {
-            words = getText().split("\\s");
+    private static boolean isCollapsed(char ch) {
+        return (ch == ' ') || (ch == '\n');
+    }
+
+    /*
+     * Leading and trailing characters up to U+0020 aren't part of the text, just like String.trim() would remove them.
+     * Collapsed white space is always one of those, hence the text never starts or ends with white space.
+     */
+    private void append(char ch) {
+        if (ch > ' ') {
+            if (textStart < 0) {
+                textStart = bufferLength;
+            }
+
+            textEnd = bufferLength + 1;
+        }
+
+        buffer[bufferLength++] = ch;
+    }
+
+    private void addTextNode(int nodeStart, char leading) {
+        if (textNodes == null) {
+            textNodes = new int[TEXT_NODE_FIELDS * 2];
+        } else if ((textNodesCount + 1) * TEXT_NODE_FIELDS > textNodes.length) {
+            textNodes = Arrays.copyOf(textNodes, textNodes.length * 2);
         }
 
-        return words;
+        int offset = textNodesCount++ * TEXT_NODE_FIELDS;
+
+        textNodes[offset] = nodeStart;
+        textNodes[offset + 1] = bufferLength;
+        textNodes[offset + 2] = leading;
+        textNodes[offset + 3] = (bufferLength > nodeStart) ? buffer[bufferLength - 1] : 0;
+    }
+
+    private void appendTextNodes(List<? extends CharSequence> textNodes) {
+        for (CharSequence textNode : textNodes) {
+            appendText(textNode.toString());
+        }
+    }
+
+    /*
+     * Rebuilds a text node as if it had been normalized on its own: the leading run of white space merged into the
+     * previous one is restored, as is the last character, which a subsequent run might have turned into a new line.
+     */
+    private String getTextNode(int index) {
+        int offset = index * TEXT_NODE_FIELDS;
+        int nodeStart = textNodes[offset];
+        int nodeEnd = textNodes[offset + 1];
+        char leading = (char) textNodes[offset + 2];
+
+        StringBuilder textNode = new StringBuilder(nodeEnd - nodeStart + 1);
+
+        if (leading != 0) {
+            textNode.append(leading);
+        }
+
+        if (nodeEnd > nodeStart) {
+            textNode.append(buffer, nodeStart, nodeEnd - nodeStart - 1);
+            textNode.append((char) textNodes[offset + 3]);
+        }
+
+        return textNode.toString();
+    }
+
+    private void ensureCapacity(int length) {
+        if (bufferLength + length > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(bufferLength + length, buffer.length * 2));
+        }
+    }
+
+    private void reset() {
+        text = null;
+        wordOffsets = null;
     }
 
 }
@@ -23,6 +23,7 @@ import java.util.List;
 import java.util.Set;
 
 import nl.wizenoze.justext.Classification;
+import nl.wizenoze.justext.util.StopWordMatcher;
 
 /**
  * Represents peaces of text extracted from textual ({@link ParagraphTag}) HTML elements.
@@ -72,6 +73,23 @@ public interface Paragraph {
      */
     int getStopWordsCount(Set<String> stopWords);
 
+    /**
+     * Gets stop words count. The default implementation matches the words returned by {@link #getWords()}.
+     * @param stopWordMatcher stop word matcher.
+     * @return stop words count.
+     */
+    default int getStopWordsCount(StopWordMatcher stopWordMatcher) {
+        int stopWordsCount = 0;
+
+        for (String word : getWords()) {
+            if (stopWordMatcher.contains(word, 0, word.length())) {
+                stopWordsCount++;
+            }
+        }
+
+        return stopWordsCount;
+    }
+
     /**
      * Gets stop words density.
      * @param stopWords words.
@@ -79,6 +97,21 @@ public interface Paragraph {
      */
     float getStopWordsDensity(Set<String> stopWords);
 
+    /**
+     * Gets stop words density. The default implementation is based on {@link #getStopWordsCount(StopWordMatcher)}.
+     * @param stopWordMatcher stop word matcher.
+     * @return stop words density.
+     */
+    default float getStopWordsDensity(StopWordMatcher stopWordMatcher) {
+        int wordsCount = getWordsCount();
+
+        if (wordsCount == 0) {
+            return 0;
+        }
+
+        return 1.0f * getStopWordsCount(stopWordMatcher) / wordsCount;
+    }
+
     /**
      * Gets tags count.
      * @return tags count.
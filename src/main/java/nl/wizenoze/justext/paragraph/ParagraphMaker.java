@@ -26,32 +26,32 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
+import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
 
 import nl.wizenoze.justext.exception.JusTextParseException;
+import nl.wizenoze.justext.html.HtmlBeautifier;
+import nl.wizenoze.justext.html.ParserBackend;
 import nl.wizenoze.justext.util.StringUtil;
 
+import org.htmlcleaner.TagNode;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.DefaultHandler;
 
 import static nl.wizenoze.justext.util.StringPool.ATTRIBUTE_ALT;
 import static nl.wizenoze.justext.util.StringPool.ATTRIBUTE_SRC;
-import static nl.wizenoze.justext.util.StringPool.TAG_A;
-import static nl.wizenoze.justext.util.StringPool.TAG_BR;
-import static nl.wizenoze.justext.util.StringPool.TAG_IMG;
 
 /**
- * Traverses the given XML document and constructs a list of {@link MutableParagraph} objects.
+ * Traverses the given XML document or HTML tree and constructs a list of {@link MutableParagraph} objects.
  *
  * @author László Csontos
  */
@@ -59,23 +59,28 @@ public class ParagraphMaker {
 
     private static final Logger LOG = LoggerFactory.getLogger(ParagraphMaker.class);
 
-    private static final Set<String> TEXTUAL_TAGS;
+    private static final SAXParserFactory PARSER_FACTORY = createParserFactory();
+
+    private static final int TEXT_BUFFER_SIZE = 1024;
 
     private final DefaultHandler paragraphHandler;
     private final List<MutableParagraph> paragraphs;
-    private final SAXParser parser;
     private final PathInfo pathInfo;
-    private final InputSource source;
+    private final EventSource source;
 
     private boolean isImage = false;
     private boolean isLink = false;
     private boolean isBreak = false;
     private MutableParagraph lastParagraph;
+    private char[] text = new char[TEXT_BUFFER_SIZE];
+    private int textLength = 0;
 
-    static {
-        Stream<String> textualTagsStream = Arrays.stream(
-                ParagraphTag.values()).map(Enum::name).map(String::toLowerCase);
-        TEXTUAL_TAGS = textualTagsStream.collect(Collectors.toSet());
+    /**
+     * Create a paragraph maker which isn't bound to a particular document. The events of a document have to be pushed
+     * to {@link #getContentHandler()} and the resulting paragraphs can be retrieved by {@link #getParagraphs()}.
+     */
+    public ParagraphMaker() {
+        this((DefaultHandler handler) -> { });
     }
 
     /**
@@ -83,7 +88,7 @@ public class ParagraphMaker {
      * @param reader XML document reader.
      */
     public ParagraphMaker(Reader reader) {
-        this(new InputSource(reader));
+        this((DefaultHandler handler) -> parse(new InputSource(reader), handler));
     }
 
     /**
@@ -91,24 +96,52 @@ public class ParagraphMaker {
      * @param xml XML document.
      */
     public ParagraphMaker(String xml) {
-        this(new InputSource(new StringReader(xml)));
+        this(new StringReader(xml));
+    }
+
+    /**
+     * Create a paragraph maker which walks an already cleaned HTML tree directly, instead of serializing it and parsing
+     * it again. The resulting paragraphs are the same as if {@link HtmlBeautifier#cleanHtml(String)} had been parsed.
+     *
+     * @param rootNode root node returned by {@link HtmlBeautifier#clean(String)}.
+     * @param htmlBeautifier beautifier which cleaned the given tree.
+     */
+    public ParagraphMaker(TagNode rootNode, HtmlBeautifier htmlBeautifier) {
+        this((DefaultHandler handler) -> htmlBeautifier.traverse(rootNode, handler));
     }
 
-    ParagraphMaker(InputSource source) {
+    /**
+     * Create a paragraph maker which parses the given document with the given parser backend.
+     *
+     * @param reader document reader.
+     * @param parserBackend parser backend.
+     */
+    public ParagraphMaker(Reader reader, ParserBackend parserBackend) {
+        this((DefaultHandler handler) -> parserBackend.parse(reader, handler));
+    }
+
+    private ParagraphMaker(EventSource source) {
         this.source = source;
 
         paragraphHandler = new ParagraphHandler();
         paragraphs = new ArrayList<>();
         pathInfo = new PathInfo();
+    }
 
-        SAXParserFactory parserFactory = SAXParserFactory.newInstance();
+    /**
+     * Returns the handler which builds paragraphs from the SAX events it receives.
+     * @return SAX handler.
+     */
+    public final ContentHandler getContentHandler() {
+        return paragraphHandler;
+    }
 
-        try {
-            parser = parserFactory.newSAXParser();
-        } catch (Exception e) {
-            LOG.error(e.getMessage(), e);
-            throw new JusTextParseException(e.getMessage(), e);
-        }
+    /**
+     * Returns the paragraphs built from the events received so far. A paragraph is only added once it's complete.
+     * @return list of paragraphs.
+     */
+    public final List<MutableParagraph> getParagraphs() {
+        return Collections.unmodifiableList(paragraphs);
     }
 
     /**
@@ -124,10 +157,151 @@ public class ParagraphMaker {
         }
     }
 
+    /*
+     * Traverses the given document instead of the one this object was created for. Paragraphs of the previous document
+     * are discarded, thus the returned list is only valid until the next invocation.
+     */
+    final List<MutableParagraph> traverse(Reader reader, ParserBackend parserBackend) {
+        try {
+            parserBackend.parse(reader, paragraphHandler);
+        } catch (Exception e) {
+            LOG.warn(e.getMessage(), e);
+            throw new JusTextParseException(e.getMessage(), e);
+        }
+
+        return getParagraphs();
+    }
+
+    /*
+     * Discards the paragraphs and the path of the current document.
+     */
+    final void clear() {
+        paragraphs.clear();
+        pathInfo.clear();
+
+        isImage = false;
+        isLink = false;
+        isBreak = false;
+        lastParagraph = null;
+        textLength = 0;
+    }
+
+    private static SAXParserFactory createParserFactory() {
+        SAXParserFactory parserFactory = SAXParserFactory.newInstance();
+
+        // Every element and text is reported like before, only external DTDs and entities aren't loaded.
+        setFeature(parserFactory, "http://xml.org/sax/features/external-general-entities", false);
+        setFeature(parserFactory, "http://xml.org/sax/features/external-parameter-entities", false);
+        setFeature(parserFactory, "http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+
+        return parserFactory;
+    }
+
+    private static void parse(InputSource source, DefaultHandler handler) throws IOException, SAXException {
+        SAXParser parser;
+
+        // SAXParserFactory isn't guaranteed to be thread-safe
+        synchronized (PARSER_FACTORY) {
+            try {
+                parser = PARSER_FACTORY.newSAXParser();
+            } catch (ParserConfigurationException pce) {
+                throw new SAXException(pce);
+            }
+        }
+
+        parser.parse(source, handler);
+    }
+
+    private static void setFeature(SAXParserFactory parserFactory, String name, boolean value) {
+        try {
+            parserFactory.setFeature(name, value);
+        } catch (ParserConfigurationException | SAXException e) {
+            LOG.debug(e.getMessage(), e);
+        }
+    }
+
+    private static boolean isLineBreak(char ch) {
+        return (ch == '\n') || (ch == '\r');
+    }
+
+    private static int scanBrackets(char[] chars, int index, int end) {
+        while ((index < end) && (chars[index] == ']')) {
+            index++;
+        }
+
+        return index;
+    }
+
+    /*
+     * Returns the end of the chunk starting at the given index. A chunk consists of at most two runs of text, each of
+     * them starting with the line breaks it's preceded by and ending before the next line break, along with the
+     * closing brackets it's followed by. A surrogate pair right after the first run also ends the chunk. These are the
+     * chunks the XML parser of the JDK reports the text of a well-formed document in, apart from those it's split into
+     * at character references, CDATA sections and at the end of its input buffer.
+     */
+    private static int scanChunk(char[] chars, int index, int end) {
+        index = scanRun(chars, index, end);
+
+        if ((index < end) && Character.isSurrogate(chars[index])) {
+            return index + Character.charCount(Character.codePointAt(chars, index, end));
+        }
+
+        index = scanBrackets(chars, index, end);
+
+        return scanBrackets(chars, scanRun(chars, index, end), end);
+    }
+
+    private static int scanRun(char[] chars, int index, int end) {
+        while ((index < end) && isLineBreak(chars[index])) {
+            index++;
+        }
+
+        while ((index < end) && !isLineBreak(chars[index]) && (chars[index] != ']')
+                && !Character.isSurrogate(chars[index])) {
+
+            index++;
+        }
+
+        return index;
+    }
+
+    private void appendChunk(int start, int end) {
+        if (StringUtil.isBlank(text, start, end - start)) {
+            return;
+        }
+
+        int chunkLength = lastParagraph.appendText(text, start, end - start);
+
+        if (isLink) {
+            lastParagraph.incrementCharsInLinksCount(chunkLength);
+        }
+
+        isBreak = false;
+    }
+
+    /*
+     * Appends the text collected since the previous element to the last paragraph. It's split into chunks by its own
+     * content, regardless of how the parser backend has reported it, and the chunks made of white spaces only are
+     * dropped.
+     */
+    private void flushText() {
+        int index = 0;
+
+        while (index < textLength) {
+            int start = index;
+
+            index = scanChunk(text, index, textLength);
+
+            appendChunk(start, index);
+        }
+
+        textLength = 0;
+    }
+
     private List<MutableParagraph> doTraverse() throws IOException, SAXException {
-        parser.parse(source, paragraphHandler);
+        source.emit(paragraphHandler);
 
-        return Collections.unmodifiableList(paragraphs);
+        return getParagraphs();
     }
 
     private void startNewParagraph() {
@@ -138,74 +312,97 @@ public class ParagraphMaker {
         lastParagraph = new MutableParagraphImpl(pathInfo);
     }
 
+    /*
+     * Reports a document as a series of SAX events to the given handler.
+     */
+    @FunctionalInterface
+    private interface EventSource {
+
+        void emit(DefaultHandler handler) throws IOException, SAXException;
+
+    }
+
     private class ParagraphHandler extends DefaultHandler {
 
         @Override
         public void characters(char[] ch, int start, int length) throws SAXException {
-            String text = String.valueOf(ch, start, length);
-
             if (isImage) {
                 if (LOG.isDebugEnabled()) {
-                    LOG.debug("Ignoring text \"{}\" within an IMG tag.", StringUtil.shorten(text));
+                    LOG.debug(
+                            "Ignoring text \"{}\" within an IMG tag.",
+                            StringUtil.shorten(String.valueOf(ch, start, length)));
                 }
 
                 return;
             }
 
-            if (StringUtil.isNotBlank(text)) {
-                text = lastParagraph.appendText(text);
-
-                if (isLink) {
-                    lastParagraph.incrementCharsInLinksCount(text.length());
-                }
-
-                isBreak = false;
+            if (textLength + length > text.length) {
+                text = Arrays.copyOf(text, Math.max(text.length * 2, textLength + length));
             }
+
+            System.arraycopy(ch, start, text, textLength, length);
+            textLength += length;
         }
 
         @Override
         public void endDocument() throws SAXException {
+            flushText();
             startNewParagraph();
         }
 
         @Override
         public void endElement(String uri, String localName, String qName) throws SAXException {
-            String tagName = getName(localName, qName);
+            int tagFlags = TagTable.getFlags(TagTable.getId(getRawName(localName, qName)));
 
+            flushText();
             pathInfo.pop();
 
-            if (TEXTUAL_TAGS.contains(tagName)) {
+            if ((tagFlags & TagTable.PARAGRAPH) != 0) {
                 startNewParagraph();
             }
 
-            if (TAG_A.equals(tagName)) {
+            if ((tagFlags & TagTable.LINK) != 0) {
                 isLink = false;
             }
 
-            if (TAG_IMG.equals(tagName)) {
+            if ((tagFlags & TagTable.IMAGE) != 0) {
                 isImage = false;
             }
         }
 
+        @Override
+        public void startDocument() throws SAXException {
+            // A parser backend might start over after it has already reported a part of the document.
+            clear();
+        }
+
         @Override
         public void startElement(
                 String uri, String localName, String qName, Attributes attributes)
             throws SAXException {
 
-            String tagName = getName(localName, qName);
+            flushText();
+
+            String rawTagName = getRawName(localName, qName);
+            int tagId = TagTable.getId(rawTagName);
+            int tagFlags = TagTable.getFlags(tagId);
 
-            pathInfo.append(tagName);
+            if (tagId == TagTable.UNKNOWN) {
+                pathInfo.append(rawTagName.toLowerCase(), tagId);
+            } else {
+                pathInfo.append(TagTable.getName(tagId), tagId);
+            }
 
-            boolean tagNameIsBR = TAG_BR.equals(tagName);
+            boolean tagNameIsBR = (tagFlags & TagTable.BREAK) != 0;
 
-            if (TEXTUAL_TAGS.contains(tagName) || (tagNameIsBR && isBreak)) {
+            if (((tagFlags & TagTable.PARAGRAPH) != 0) || (tagNameIsBR && isBreak)) {
                 if (tagNameIsBR) {
                     lastParagraph.decrementTagsCount();
                 }
 
                 startNewParagraph();
 
-                if (TAG_IMG.equals(tagName)) {
+                if ((tagFlags & TagTable.IMAGE) != 0) {
                     isImage = true;
 
                     for (int index = 0; index < attributes.getLength(); index++) {
@@ -231,7 +428,7 @@ public class ParagraphMaker {
             } else {
                 isBreak = tagNameIsBR;
 
-                if (TAG_A.equals(tagName)) {
+                if ((tagFlags & TagTable.LINK) != 0) {
                     isLink = true;
                 }
 
@@ -242,13 +439,15 @@ public class ParagraphMaker {
         }
 
         private String getName(String localName, String qName) {
-            String tagName = qName;
+            return getRawName(localName, qName).toLowerCase();
+        }
 
+        private String getRawName(String localName, String qName) {
             if (StringUtil.isNotEmpty(localName)) {
-                tagName = localName;
+                return localName;
             }
 
-            return tagName.toLowerCase();
+            return qName;
         }
 
     }
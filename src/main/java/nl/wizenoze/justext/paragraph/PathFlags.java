@@ -0,0 +1,105 @@
+/**
+ * Copyright (c) 2016-present WizeNoze B.V. All rights reserved.
+ *
+ * This file is part of justext-java.
+ *
+ * justext-java is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * justext-java is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with justext-java.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.wizenoze.justext.paragraph;
+
+import java.util.regex.Pattern;
+
+/**
+ * Structural flags of a DOM path, eg. whether it's within a heading or an image. Paths are built element by element,
+ * therefore the flags of a path are the union of the flags of its elements, which are computed once per tag name.
+ */
+final class PathFlags {
+
+    /**
+     * The path is within a heading (<code>h1</code> to <code>h6</code>).
+     */
+    static final int HEADING = 1;
+
+    /**
+     * The path is within a top-level heading (<code>h1</code>).
+     */
+    static final int HEADLINE = 1 << 1;
+
+    /**
+     * The path is within an image.
+     */
+    static final int IMAGE = 1 << 2;
+
+    /**
+     * The path is within a select box.
+     */
+    static final int SELECT = 1 << 3;
+
+    private static final Pattern HEADER_PATTERN = Pattern.compile("\\bh\\d\\b");
+    private static final Pattern HEADLINE_PATTERN = Pattern.compile("\\bh1\\b");
+    private static final Pattern IMAGE_PATTERN = Pattern.compile("\\bimg\\b");
+    private static final Pattern SELECT_PATTERN = Pattern.compile("^select|\\.select");
+
+    private static final int[] TAG_FLAGS = new int[TagTable.getTagCount()];
+
+    static {
+        for (int tagId = 0; tagId < TAG_FLAGS.length; tagId++) {
+            TAG_FLAGS[tagId] = getFlags(TagTable.getName(tagId));
+        }
+    }
+
+    private PathFlags() {
+    }
+
+    /**
+     * Returns the flags of the given DOM path or tag name. As elements are separated by periods, the flags of an
+     * element don't depend on the elements surrounding it.
+     *
+     * @param domPath DOM path or tag name.
+     * @return flags.
+     */
+    static int getFlags(String domPath) {
+        int flags = 0;
+
+        if (HEADER_PATTERN.matcher(domPath).find()) {
+            flags |= HEADING;
+        }
+
+        if (HEADLINE_PATTERN.matcher(domPath).find()) {
+            flags |= HEADLINE;
+        }
+
+        if (IMAGE_PATTERN.matcher(domPath).find()) {
+            flags |= IMAGE;
+        }
+
+        if (SELECT_PATTERN.matcher(domPath).find()) {
+            flags |= SELECT;
+        }
+
+        return flags;
+    }
+
+    /**
+     * Returns the flags of the given tag.
+     *
+     * @param tagId ID of a tag, other than {@link TagTable#UNKNOWN}.
+     * @return flags.
+     */
+    static int getTagFlags(int tagId) {
+        return TAG_FLAGS[tagId];
+    }
+
+}
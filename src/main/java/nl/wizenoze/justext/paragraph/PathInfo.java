@@ -21,26 +21,44 @@ package nl.wizenoze.justext.paragraph;
 
 import nl.wizenoze.justext.util.StringPool;
 
-import java.util.Deque;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 /**
  * Thi class represents a hierarchical path of a certain HTML tag within the document.
  *
+ * <p>
+ * The path is a stack of {@link PathNode} objects, which aren't turned into strings until {@link #dom()} or
+ * {@link #xpath()} is called. The positions of elements are counted per tag name across the whole document, below its
+ * root element.
+ * </p>
+ *
+ * <p>
+ * Each node also carries the {@link PathFlags} of its path, which are computed once per tag name.
+ * </p>
+ *
  * @author László Csontos
  */
 public final class PathInfo {
 
-    private final Deque<PathElement> elements;
+    private static final int INITIAL_DEPTH = 32;
+
+    private final int[] counters;
+    // Order counter and path flags of unknown tags
+    private final Map<String, int[]> otherTags;
+
+    private int depth = 0;
+    private PathNode[] elements;
 
     /**
      * Creates an empty {@link PathInfo}.
      */
     public PathInfo() {
-        elements = new LinkedList<>();
+        counters = new int[TagTable.getTagCount()];
+        elements = new PathNode[INITIAL_DEPTH];
+        otherTags = new HashMap<>();
     }
 
     /**
@@ -50,17 +68,26 @@ public final class PathInfo {
      * @return this object in order to enable clients to chain invocation of {@link #append(String)} and {@link #pop()}.
      */
     public PathInfo append(String tagName) {
-        Map<String, Integer> children = getChildren();
-
-        Integer order = children.get(tagName);
+        int tagId = TagTable.getId(tagName);
 
-        if (order == null) {
-            order = 0;
+        // Counters of known tags are only shared by their canonical names.
+        if ((tagId != TagTable.UNKNOWN) && !TagTable.getName(tagId).equals(tagName)) {
+            tagId = TagTable.UNKNOWN;
         }
 
-        children.put(tagName, ++order);
+        return append(tagName, tagId);
+    }
 
-        elements.push(new PathElement(tagName, order));
+    /**
+     * Removes all elements, so that this object can be used for another document.
+     *
+     * @return this object in order to enable clients to chain invocation of {@link #append(String)} and {@link #pop()}.
+     */
+    public PathInfo clear() {
+        Arrays.fill(elements, 0, depth, null);
+        otherTags.clear();
+
+        depth = 0;
 
         return this;
     }
@@ -77,26 +104,11 @@ public final class PathInfo {
      * @return simple string representation of this path object.
      */
     public String dom() {
-        if (elements.isEmpty()) {
+        if (depth == 0) {
             return StringPool.EMPTY;
         }
 
-        StringBuilder sb = new StringBuilder();
-
-        PathElement firstElement = elements.peekFirst();
-        Iterator<PathElement> elementIterator = elements.descendingIterator();
-
-        while (elementIterator.hasNext()) {
-            PathElement element = elementIterator.next();
-
-            sb.append(element.tagName);
-
-            if (element != firstElement) {
-                sb.append(StringPool.PERIOD);
-            }
-        }
-
-        return sb.toString();
+        return elements[depth - 1].dom();
     }
 
     /**
@@ -105,7 +117,11 @@ public final class PathInfo {
      * @return this object in order to enable clients to chain invocation of {@link #append(String)} and {@link #pop()}.
      */
     public PathInfo pop() {
-        elements.pop();
+        if (depth == 0) {
+            throw new NoSuchElementException();
+        }
+
+        elements[--depth] = null;
 
         return this;
     }
@@ -122,51 +138,63 @@ public final class PathInfo {
      * @return simple string representation of this path object.
      */
     public String xpath() {
-        if (elements.isEmpty()) {
+        if (depth == 0) {
             return StringPool.SLASH;
         }
 
-        StringBuilder sb = new StringBuilder();
+        return elements[depth - 1].xpath();
+    }
 
-        Iterator<PathElement> elementIterator = elements.descendingIterator();
+    /*
+     * Appends a tag whose ID has already been resolved by TagTable.
+     */
+    PathInfo append(String tagName, int tagId) {
+        if (depth == 0) {
+            // A new root element starts counting over, the root element itself isn't counted.
+            Arrays.fill(counters, 0);
+            otherTags.clear();
+        }
 
-        while (elementIterator.hasNext()) {
-            PathElement element = elementIterator.next();
+        int order = 1;
+        int tagFlags;
 
-            sb.append(StringPool.SLASH);
-            sb.append(element.tagName);
-            sb.append(StringPool.OPENING_BRACKET);
-            sb.append(element.order);
-            sb.append(StringPool.CLOSING_BRACKET);
-        }
+        if (tagId != TagTable.UNKNOWN) {
+            tagFlags = PathFlags.getTagFlags(tagId);
 
-        return sb.toString();
-    }
+            if (depth > 0) {
+                order = ++counters[tagId];
+            }
+        } else {
+            int[] otherTag = otherTags.computeIfAbsent(
+                    tagName, (String key) -> new int[] {0, PathFlags.getFlags(key)});
 
-    private Map<String, Integer> getChildren() {
-        if (elements.isEmpty()) {
-            return new HashMap<>();
+            tagFlags = otherTag[1];
+
+            if (depth > 0) {
+                order = ++otherTag[0];
+            }
         }
 
-        return elements.peekLast().children;
-    }
+        if (depth == elements.length) {
+            elements = Arrays.copyOf(elements, depth * 2);
+        }
 
-    private class PathElement {
+        PathNode parent = (depth == 0) ? null : elements[depth - 1];
 
-        private final Map<String, Integer> children;
-        private final int order;
-        private final String tagName;
+        elements[depth++] = new PathNode(parent, tagName, order, tagFlags);
 
-        PathElement(String tagName, int order) {
-            this(tagName, order, new HashMap<>());
-        }
+        return this;
+    }
 
-        PathElement(String tagName, int order, Map<String, Integer> children) {
-            this.tagName = tagName;
-            this.order = order;
-            this.children = children;
+    /*
+     * Returns the node of the last element, or null if the path is empty.
+     */
+    PathNode peek() {
+        if (depth == 0) {
+            return null;
         }
 
+        return elements[depth - 1];
     }
 
 }
@@ -0,0 +1,132 @@
+/**
+ * Copyright (c) 2016-present WizeNoze B.V. All rights reserved.
+ *
+ * This file is part of justext-java.
+ *
+ * justext-java is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * justext-java is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with justext-java.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.wizenoze.justext.paragraph;
+
+/**
+ * An element of a {@link PathInfo}. Nodes are immutable and only point to their parents, hence paths sharing a prefix
+ * share the nodes of that prefix as well. Paragraphs keep the node they were created at and the string representations
+ * are only built on demand.
+ */
+final class PathNode {
+
+    private final int depth;
+    private final int flags;
+    private final int order;
+    private final PathNode parent;
+    private final String tagName;
+
+    PathNode(PathNode parent, String tagName, int order, int tagFlags) {
+        this.parent = parent;
+        this.tagName = tagName;
+        this.order = order;
+
+        if (parent == null) {
+            depth = 1;
+            flags = tagFlags;
+        } else {
+            depth = parent.depth + 1;
+            flags = parent.flags | tagFlags;
+        }
+    }
+
+    /**
+     * Creates the dotted representation of the path ending at this node, eg. <code>html.body.div</code>.
+     *
+     * @return simple string representation of the path.
+     */
+    String dom() {
+        int length = depth - 1;
+
+        for (PathNode node = this; node != null; node = node.parent) {
+            length += node.tagName.length();
+        }
+
+        char[] chars = new char[length];
+        int position = length;
+
+        // The path is written backwards, starting from its last element.
+        for (PathNode node = this; node != null; node = node.parent) {
+            position -= node.tagName.length();
+            node.tagName.getChars(0, node.tagName.length(), chars, position);
+
+            if (node.parent != null) {
+                chars[--position] = '.';
+            }
+        }
+
+        return new String(chars);
+    }
+
+    /**
+     * Returns the {@link PathFlags} of the path ending at this node.
+     *
+     * @return flags of the path.
+     */
+    int getFlags() {
+        return flags;
+    }
+
+    /**
+     * Creates the XPath representation of the path ending at this node, eg. <code>/html[1]/body[1]/div[1]</code>.
+     *
+     * @return XPath representation of the path.
+     */
+    String xpath() {
+        int length = 0;
+
+        for (PathNode node = this; node != null; node = node.parent) {
+            length += node.tagName.length() + getDigitCount(node.order) + 3;
+        }
+
+        char[] chars = new char[length];
+        int position = length;
+
+        for (PathNode node = this; node != null; node = node.parent) {
+            chars[--position] = ']';
+
+            int order = node.order;
+
+            do {
+                chars[--position] = (char) ('0' + (order % 10));
+                order /= 10;
+            } while (order > 0);
+
+            chars[--position] = '[';
+
+            position -= node.tagName.length();
+            node.tagName.getChars(0, node.tagName.length(), chars, position);
+
+            chars[--position] = '/';
+        }
+
+        return new String(chars);
+    }
+
+    private static int getDigitCount(int number) {
+        int digitCount = 1;
+
+        for (int remainder = number / 10; remainder > 0; remainder /= 10) {
+            digitCount++;
+        }
+
+        return digitCount;
+    }
+
+}
@@ -0,0 +1,225 @@
+/**
+ * Copyright (c) 2016-present WizeNoze B.V. All rights reserved.
+ *
+ * This file is part of justext-java.
+ *
+ * justext-java is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * justext-java is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with justext-java.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.wizenoze.justext.paragraph;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import static nl.wizenoze.justext.util.StringPool.TAG_A;
+import static nl.wizenoze.justext.util.StringPool.TAG_BR;
+
+/**
+ * Resolves the tag names {@link ParagraphMaker} cares about to compact integer IDs. The IDs of {@link ParagraphTag}
+ * are their ordinals, followed by those of <code>a</code> and <code>br</code>.
+ *
+ * <p>
+ * Names are looked up by a perfect hash, which is computed case-insensitively, therefore neither a lowercased copy of
+ * the name is made nor are strings compared more than once. Every ID has a set of flags describing how the tag is
+ * treated.
+ * </p>
+ */
+final class TagTable {
+
+    /**
+     * ID of tags which aren't in the table.
+     */
+    static final int UNKNOWN = -1;
+
+    /**
+     * Tags which start a new paragraph.
+     */
+    static final int PARAGRAPH = 1;
+
+    /**
+     * Tags whose text counts as the text of a link.
+     */
+    static final int LINK = 1 << 1;
+
+    /**
+     * Line breaks.
+     */
+    static final int BREAK = 1 << 2;
+
+    /**
+     * Images.
+     */
+    static final int IMAGE = 1 << 3;
+
+    private static final int SLOT_BITS = 8;
+
+    private static final String[] NAMES;
+    private static final int[] FLAGS;
+    private static final int MULTIPLIER;
+    private static final byte[] SLOTS = new byte[1 << SLOT_BITS];
+
+    static {
+        ParagraphTag[] paragraphTags = ParagraphTag.values();
+
+        NAMES = new String[paragraphTags.length + 2];
+        FLAGS = new int[NAMES.length];
+
+        for (ParagraphTag paragraphTag : paragraphTags) {
+            NAMES[paragraphTag.ordinal()] = paragraphTag.name().toLowerCase(Locale.ROOT);
+            FLAGS[paragraphTag.ordinal()] = PARAGRAPH;
+        }
+
+        FLAGS[ParagraphTag.IMG.ordinal()] |= IMAGE;
+
+        NAMES[paragraphTags.length] = TAG_A;
+        FLAGS[paragraphTags.length] = LINK;
+
+        NAMES[paragraphTags.length + 1] = TAG_BR;
+        FLAGS[paragraphTags.length + 1] = BREAK;
+
+        MULTIPLIER = findMultiplier();
+    }
+
+    private TagTable() {
+    }
+
+    /**
+     * Returns the flags of the given tag.
+     *
+     * @param tagId tag ID.
+     * @return flags of the tag, zero for {@link #UNKNOWN}.
+     */
+    static int getFlags(int tagId) {
+        if (tagId == UNKNOWN) {
+            return 0;
+        }
+
+        return FLAGS[tagId];
+    }
+
+    /**
+     * Returns the ID of the given tag.
+     *
+     * @param tagName tag name in any case.
+     * @return tag ID or {@link #UNKNOWN}.
+     */
+    static int getId(String tagName) {
+        int length = tagName.length();
+        int hash = 0;
+
+        for (int index = 0; index < length; index++) {
+            char ch = tagName.charAt(index);
+
+            // Non-ASCII characters might still be lowercased to ASCII ones.
+            if (ch >= 0x80) {
+                String lowerCaseTagName = tagName.toLowerCase(Locale.ROOT);
+
+                return lowerCaseTagName.equals(tagName) ? UNKNOWN : getId(lowerCaseTagName);
+            }
+
+            hash = 31 * hash + (ch | 0x20);
+        }
+
+        int tagId = SLOTS[getSlot(hash, MULTIPLIER)] - 1;
+
+        if ((tagId == UNKNOWN) || !matches(NAMES[tagId], tagName)) {
+            return UNKNOWN;
+        }
+
+        return tagId;
+    }
+
+    /**
+     * Returns the number of known tags, IDs range from zero to this number, exclusive.
+     *
+     * @return number of known tags.
+     */
+    static int getTagCount() {
+        return NAMES.length;
+    }
+
+    /**
+     * Returns the lowercase name of the given tag.
+     *
+     * @param tagId tag ID, other than {@link #UNKNOWN}.
+     * @return tag name.
+     */
+    static String getName(int tagId) {
+        return NAMES[tagId];
+    }
+
+    /*
+     * Finds a multiplier which maps every name to a different slot. The table is filled with ID + 1, zero means an
+     * empty slot.
+     */
+    private static int findMultiplier() {
+        int[] hashes = Arrays.stream(NAMES).mapToInt(TagTable::hash).toArray();
+
+        for (int multiplier = 1; multiplier > 0; multiplier += 2) {
+            Arrays.fill(SLOTS, (byte) 0);
+
+            boolean perfect = true;
+
+            for (int tagId = 0; perfect && (tagId < hashes.length); tagId++) {
+                int slot = getSlot(hashes[tagId], multiplier);
+
+                perfect = (SLOTS[slot] == 0);
+                SLOTS[slot] = (byte) (tagId + 1);
+            }
+
+            if (perfect) {
+                return multiplier;
+            }
+        }
+
+        throw new IllegalStateException("There's no perfect hash for " + Arrays.toString(NAMES));
+    }
+
+    private static int getSlot(int hash, int multiplier) {
+        return (hash * multiplier) >>> (Integer.SIZE - SLOT_BITS);
+    }
+
+    private static int hash(String tagName) {
+        int hash = 0;
+
+        for (int index = 0; index < tagName.length(); index++) {
+            hash = 31 * hash + (tagName.charAt(index) | 0x20);
+        }
+
+        return hash;
+    }
+
+    private static boolean matches(String name, String tagName) {
+        int length = name.length();
+
+        if (tagName.length() != length) {
+            return false;
+        }
+
+        for (int index = 0; index < length; index++) {
+            char ch = tagName.charAt(index);
+
+            if ((ch >= 'A') && (ch <= 'Z')) {
+                ch += 'a' - 'A';
+            }
+
+            if (ch != name.charAt(index)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+}
@@ -0,0 +1,203 @@
+/**
+ * Copyright (c) 2016-present WizeNoze B.V. All rights reserved.
+ *
+ * This file is part of justext-java.
+ *
+ * justext-java is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * justext-java is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with justext-java.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.wizenoze.justext.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import nl.wizenoze.justext.exception.JusTextStopWordsException;
+
+/**
+ * Identifies the language of a text by the stop-words of a {@link StopWordDictionary}. Each word is looked up only once
+ * and it's counted for every language it's a stop-word in.
+ *
+ * <p>
+ * The lists differ in size by two orders of magnitude and the longer ones contain lots of words of other languages,
+ * thus stop-words aren't counted equally. Each language is modelled as if its stop-words were drawn uniformly from its
+ * list, that is, the log-likelihood of a text grows by <code>log(V / n)</code> for each stop-word, where
+ * <code>n</code> is the size of the list and <code>V</code> is the size of the whole vocabulary.
+ * </p>
+ *
+ * <p>
+ * Words are fed to the detector as a {@link StopWordMatcher}, typically by
+ * {@link nl.wizenoze.justext.paragraph.Paragraph#getStopWordsCount(StopWordMatcher)}, which visits the already
+ * tokenized words of a paragraph. A detector collects the words of a single document and it isn't thread-safe;
+ * {@link #reset()} makes it reusable.
+ * </p>
+ */
+public final class LanguageDetector implements StopWordMatcher {
+
+    private static final int VOCABULARY_SIZE = 1 << 15;
+
+    private final int[] maskCounts;
+    private final StopWordDictionary stopWordDictionary;
+    private final double[] weights;
+
+    private int stopWordsCount = 0;
+
+    /**
+     * Creates a detector using the default stop-word dictionary.
+     */
+    public LanguageDetector() {
+        this(getDefaultStopWordDictionary());
+    }
+
+    /**
+     * Creates a detector using the given stop-word dictionary.
+     *
+     * @param stopWordDictionary stop-word dictionary.
+     */
+    public LanguageDetector(StopWordDictionary stopWordDictionary) {
+        this.stopWordDictionary = stopWordDictionary;
+
+        maskCounts = new int[stopWordDictionary.getMaskCount()];
+        weights = new double[stopWordDictionary.getLanguageCount()];
+
+        int vocabularySize = VOCABULARY_SIZE;
+
+        for (int languageIndex = 0; languageIndex < weights.length; languageIndex++) {
+            vocabularySize = Math.max(vocabularySize, stopWordDictionary.getWordCount(languageIndex) * 2);
+        }
+
+        for (int languageIndex = 0; languageIndex < weights.length; languageIndex++) {
+            int wordCount = Math.max(stopWordDictionary.getWordCount(languageIndex), 1);
+
+            weights[languageIndex] = Math.log(vocabularySize / (double) wordCount);
+        }
+    }
+
+    /**
+     * Records the given word if it's a stop-word in any of the languages.
+     *
+     * @param text text containing the word.
+     * @param start index of the first character of the word.
+     * @param end index after the last character of the word.
+     * @return if it's a stop-word in any of the languages.
+     */
+    @Override
+    public boolean contains(CharSequence text, int start, int end) {
+        int maskIndex = stopWordDictionary.find(text, start, end, true);
+
+        if (maskIndex < 0) {
+            return false;
+        }
+
+        maskCounts[maskIndex]++;
+        stopWordsCount++;
+
+        return true;
+    }
+
+    /**
+     * Returns the code of the most likely language of the words recorded so far. Ties are broken by the order of the
+     * language codes.
+     *
+     * @return ISO 639-1 language code or <code>null</code> if none of the words is a stop-word.
+     */
+    public String getLanguageCode() {
+        if (stopWordsCount == 0) {
+            return null;
+        }
+
+        int[] scores = getScoreArray();
+        int bestLanguageIndex = 0;
+        double bestLikelihood = 0;
+
+        for (int languageIndex = 0; languageIndex < scores.length; languageIndex++) {
+            double likelihood = scores[languageIndex] * weights[languageIndex];
+
+            if (likelihood > bestLikelihood) {
+                bestLanguageIndex = languageIndex;
+                bestLikelihood = likelihood;
+            }
+        }
+
+        return stopWordDictionary.getLanguageCode(bestLanguageIndex);
+    }
+
+    /**
+     * Returns the number of stop-words recorded so far for each language, in descending order. Languages without a
+     * stop-word are omitted.
+     *
+     * @return map of language codes to the number of their stop-words.
+     */
+    public Map<String, Integer> getScores() {
+        int[] scores = getScoreArray();
+        Integer[] languageIndexes = new Integer[scores.length];
+
+        for (int languageIndex = 0; languageIndex < scores.length; languageIndex++) {
+            languageIndexes[languageIndex] = languageIndex;
+        }
+
+        Arrays.sort(languageIndexes, (Integer first, Integer second) -> scores[second] - scores[first]);
+
+        Map<String, Integer> scoreMap = new LinkedHashMap<>();
+
+        for (int languageIndex : languageIndexes) {
+            if (scores[languageIndex] > 0) {
+                scoreMap.put(stopWordDictionary.getLanguageCode(languageIndex), scores[languageIndex]);
+            }
+        }
+
+        return Collections.unmodifiableMap(scoreMap);
+    }
+
+    /**
+     * Returns the number of words recorded so far which are stop-words in any of the languages.
+     *
+     * @return number of stop-words.
+     */
+    public int getStopWordsCount() {
+        return stopWordsCount;
+    }
+
+    /**
+     * Forgets the words recorded so far.
+     */
+    public void reset() {
+        Arrays.fill(maskCounts, 0);
+        stopWordsCount = 0;
+    }
+
+    private static StopWordDictionary getDefaultStopWordDictionary() {
+        StopWordDictionary stopWordDictionary = StopWordDictionary.getDefault();
+
+        if (stopWordDictionary == null) {
+            throw new JusTextStopWordsException("Stop-word dictionary isn't available");
+        }
+
+        return stopWordDictionary;
+    }
+
+    private int[] getScoreArray() {
+        int[] scores = new int[stopWordDictionary.getLanguageCount()];
+
+        for (int maskIndex = 0; maskIndex < maskCounts.length; maskIndex++) {
+            if (maskCounts[maskIndex] > 0) {
+                stopWordDictionary.addScores(maskIndex, maskCounts[maskIndex], scores);
+            }
+        }
+
+        return scores;
+    }
+
+}
@@ -0,0 +1,657 @@
+/**
+ * Copyright (c) 2016-present WizeNoze B.V. All rights reserved.
+ *
+ * This file is part of justext-java.
+ *
+ * justext-java is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * justext-java is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with justext-java.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.wizenoze.justext.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import nl.wizenoze.justext.exception.JusTextStopWordsException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Read-only dictionary of the stop-words of several languages, compiled from the plain-text lists at build time. The
+ * dictionary is accessed in place, normally through a memory mapped file, therefore it doesn't occupy the heap and its
+ * pages are shared by all processes mapping the same file.
+ *
+ * <p>
+ * Each word is stored once along with the set of languages it's a stop-word in. The stop-words of a language are
+ * exposed as a {@link StopWordMatcher} view by {@link #getStopWords(String)}.
+ * </p>
+ */
+public final class StopWordDictionary {
+
+    static final int ENTRY_HEADER_SIZE = Integer.BYTES + Character.BYTES * 2;
+    static final int MAGIC = 0x4A545344;
+    static final int VERSION = 1;
+
+    private static final Logger LOG = LoggerFactory.getLogger(StopWordDictionary.class);
+
+    private static final Set<PosixFilePermission> OWNER_PERMISSIONS = Collections.unmodifiableSet(EnumSet.of(
+            PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE, PosixFilePermission.OWNER_EXECUTE));
+
+    private static final String RESOURCE_NAME = "/stopwords.dict";
+
+    private final ByteBuffer buffer;
+    private final int entriesOffset;
+    private final String[] languageCodes;
+    private final Map<String, Integer> languageIndexes;
+    private final int maskCount;
+    private final int maskWords;
+    private final int masksOffset;
+    private final int tableMask;
+    private final int tableOffset;
+    private final int[] wordCounts;
+
+    /**
+     * Creates a dictionary backed by the given buffer, which has to contain a compiled dictionary from its current
+     * position up to its limit. The buffer must not be modified afterwards.
+     *
+     * @param buffer compiled dictionary.
+     */
+    public StopWordDictionary(ByteBuffer buffer) {
+        this.buffer = buffer.slice();
+
+        try {
+            check((this.buffer.getInt() == MAGIC) && (this.buffer.getInt() == VERSION));
+
+            int languageCount = this.buffer.getInt();
+
+            checkSize(languageCount >= 0, (long) languageCount * (Byte.BYTES + Integer.BYTES));
+
+            languageCodes = new String[languageCount];
+            languageIndexes = new HashMap<>();
+            wordCounts = new int[languageCount];
+
+            for (int languageIndex = 0; languageIndex < languageCount; languageIndex++) {
+                byte[] code = new byte[this.buffer.get()];
+
+                this.buffer.get(code);
+
+                languageCodes[languageIndex] = new String(code, StandardCharsets.US_ASCII);
+                languageIndexes.put(languageCodes[languageIndex], languageIndex);
+                wordCounts[languageIndex] = this.buffer.getInt();
+            }
+
+            maskWords = this.buffer.getInt();
+
+            maskCount = this.buffer.getInt();
+
+            checkSize((maskWords == (languageCount + Long.SIZE - 1) / Long.SIZE) && (maskCount >= 0)
+                    && (maskCount <= Character.MAX_VALUE + 1), (long) maskCount * maskWords * Long.BYTES);
+
+            masksOffset = this.buffer.position();
+
+            this.buffer.position(masksOffset + maskCount * maskWords * Long.BYTES);
+
+            int tableSize = this.buffer.getInt();
+
+            checkSize((tableSize > 0) && (Integer.bitCount(tableSize) == 1), (long) tableSize * Integer.BYTES);
+
+            tableMask = tableSize - 1;
+            tableOffset = this.buffer.position();
+            entriesOffset = tableOffset + tableSize * Integer.BYTES;
+
+            checkEntries();
+        } catch (RuntimeException re) {
+            if (re instanceof JusTextStopWordsException) {
+                throw re;
+            }
+
+            throw new JusTextStopWordsException("Invalid stop-word dictionary", re);
+        }
+    }
+
+    /**
+     * Returns the dictionary shipped with the library. If it's packaged in a JAR, it's extracted to a private directory
+     * of the current user within the temporary directory first, where it's shared by all processes of the user using
+     * the same version.
+     *
+     * @return the default dictionary or <code>null</code> if it isn't available.
+     */
+    public static StopWordDictionary getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    /**
+     * Opens a dictionary file by mapping it into memory.
+     *
+     * @param path path of the dictionary.
+     * @return dictionary.
+     * @throws IOException if the file can't be mapped.
+     */
+    public static StopWordDictionary open(Path path) throws IOException {
+        try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new StopWordDictionary(fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileChannel.size()));
+        }
+    }
+
+    /**
+     * Returns the codes of the languages in this dictionary.
+     *
+     * @return set of language codes.
+     */
+    public Set<String> getLanguageCodes() {
+        return Collections.unmodifiableSet(languageIndexes.keySet());
+    }
+
+    /**
+     * Returns the size of this dictionary in bytes.
+     *
+     * @return size in bytes.
+     */
+    public long getSize() {
+        return buffer.capacity();
+    }
+
+    /**
+     * Returns a matcher of the stop-words of several languages, for documents mixing them. A word is a stop-word if
+     * it's a stop-word in any of the languages, but {@link StopWordMatcher#countStopWords(CharSequence, int[])} counts
+     * the stop-words of each language separately, in a single pass, and it returns the highest count. Thus each
+     * paragraph is classified by the language it has the most stop-words of.
+     *
+     * @param languageCodes ISO 639-1 language codes, at most 64 of them.
+     * @return stop word matcher.
+     */
+    public StopWordMatcher getStopWordMatcher(Collection<String> languageCodes) {
+        if (languageCodes.size() > Long.SIZE) {
+            throw new JusTextStopWordsException("At most " + Long.SIZE + " languages can be matched at once");
+        }
+
+        int[] candidateIndexes = new int[languageCodes.size()];
+        int candidateCount = 0;
+
+        for (String languageCode : languageCodes) {
+            Integer languageIndex = languageIndexes.get(languageCode);
+
+            if (languageIndex == null) {
+                throw new JusTextStopWordsException(String.format("Language code %s doesn't exist", languageCode));
+            }
+
+            candidateIndexes[candidateCount++] = languageIndex;
+        }
+
+        return new MultiLanguageStopWordMatcher(candidateIndexes);
+    }
+
+    /**
+     * Returns the stop-words of the given language. The returned set is a view of this dictionary.
+     *
+     * @param languageCode ISO 639-1 language code.
+     * @return set of stop-words which correspond to the given language code.
+     */
+    public Set<String> getStopWords(String languageCode) {
+        Integer languageIndex = languageIndexes.get(languageCode);
+
+        if (languageIndex == null) {
+            throw new JusTextStopWordsException(String.format("Language code %s doesn't exist", languageCode));
+        }
+
+        return new LanguageStopWords(languageIndex);
+    }
+
+    static int getTableSize(int wordCount) {
+        int tableSize = 2;
+
+        // The table is kept at most 60% full.
+        while (tableSize * 3 < wordCount * 5) {
+            tableSize <<= 1;
+        }
+
+        return tableSize;
+    }
+
+    static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /*
+     * Adds the given count to the score of every language in the given set of languages.
+     */
+    void addScores(int maskIndex, int count, int[] scores) {
+        int offset = masksOffset + maskIndex * maskWords * Long.BYTES;
+
+        for (int index = 0; index < maskWords; index++, offset += Long.BYTES) {
+            long mask = buffer.getLong(offset);
+
+            while (mask != 0) {
+                scores[index * Long.SIZE + Long.numberOfTrailingZeros(mask)] += count;
+
+                mask &= mask - 1;
+            }
+        }
+    }
+
+    String getLanguageCode(int languageIndex) {
+        return languageCodes[languageIndex];
+    }
+
+    int getLanguageCount() {
+        return languageCodes.length;
+    }
+
+    int getMaskCount() {
+        return maskCount;
+    }
+
+    int getWordCount(int languageIndex) {
+        return wordCounts[languageIndex];
+    }
+
+    /*
+     * Returns the index of the set of languages the given range of characters is a stop-word in, or -1 if it isn't a
+     * stop-word in any of them. If ignoreCase is set, the range is converted to lower case first.
+     */
+    int find(CharSequence text, int start, int end, boolean ignoreCase) {
+        int hash = 0;
+
+        for (int index = start; index < end; index++) {
+            char ch = text.charAt(index);
+
+            if (ignoreCase) {
+                if ((ch >= 'A') && (ch <= 'Z')) {
+                    ch += 'a' - 'A';
+                } else if ((ch >= 0x80) && (Character.isSurrogate(ch) || (Character.toLowerCase(ch) != ch))) {
+                    String word = text.subSequence(start, end).toString().toLowerCase(Locale.ROOT);
+
+                    return find(word, 0, word.length(), false);
+                }
+            }
+
+            hash = 31 * hash + ch;
+        }
+
+        int slot = spread(hash) & tableMask;
+        int entryOffset;
+
+        while ((entryOffset = buffer.getInt(tableOffset + slot * Integer.BYTES)) != 0) {
+            if ((buffer.getInt(entryOffset) == hash) && matches(entryOffset, text, start, end, ignoreCase)) {
+                return buffer.getChar(entryOffset + Integer.BYTES);
+            }
+
+            slot = (slot + 1) & tableMask;
+        }
+
+        return -1;
+    }
+
+    /*
+     * Returns if the given set of languages includes the given language.
+     */
+    boolean hasLanguage(int maskIndex, int languageIndex) {
+        int offset = masksOffset + (maskIndex * maskWords + (languageIndex >>> 6)) * Long.BYTES;
+
+        return ((buffer.getLong(offset) >>> languageIndex) & 1L) != 0;
+    }
+
+    private static void check(boolean condition) {
+        if (!condition) {
+            throw new JusTextStopWordsException("Invalid stop-word dictionary");
+        }
+    }
+
+    private static StopWordDictionary loadDefault() {
+        URL url = StopWordDictionary.class.getResource(RESOURCE_NAME);
+
+        if (url == null) {
+            return null;
+        }
+
+        try {
+            if ("file".equals(url.getProtocol())) {
+                return open(Paths.get(url.toURI()));
+            }
+
+            byte[] bytes;
+
+            try (InputStream inputStream = url.openStream()) {
+                bytes = inputStream.readAllBytes();
+            }
+
+            try {
+                return open(extract(bytes));
+            } catch (IOException ioe) {
+                LOG.warn("Unable to extract the stop-word dictionary, it's kept on the heap.", ioe);
+
+                return new StopWordDictionary(ByteBuffer.wrap(bytes));
+            }
+        } catch (IOException | URISyntaxException e) {
+            LOG.warn("Unable to load the stop-word dictionary.", e);
+
+            return null;
+        }
+    }
+
+    /*
+     * Extracts the dictionary into a private directory of the current user under a name derived from its checksum,
+     * unless it's already been extracted there by another process.
+     */
+    private static Path extract(byte[] bytes) throws IOException {
+        CRC32 crc32 = new CRC32();
+
+        crc32.update(bytes);
+
+        Path directory = getExtractDirectory();
+        Path path = directory.resolve(
+                String.format("justext-stopwords-%08x-%d.dict", crc32.getValue(), bytes.length));
+
+        // The contents are verified, as a file left behind by a different build might have the same name.
+        if (Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS) && (Files.size(path) == bytes.length)
+                && Arrays.equals(Files.readAllBytes(path), bytes)) {
+
+            return path;
+        }
+
+        Path temporaryPath = Files.createTempFile(directory, "justext-stopwords-", ".tmp");
+
+        try {
+            Files.write(temporaryPath, bytes);
+
+            try {
+                Files.move(temporaryPath, path, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException amnse) {
+                Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporaryPath);
+        }
+
+        return path;
+    }
+
+    /*
+     * Returns the directory of the current user within the temporary directory. On POSIX file systems it's created
+     * with owner-only permissions and it's refused if it's owned by someone else or it's accessible to others, as files
+     * in the shared temporary directory could be planted or modified by other users.
+     */
+    private static Path getExtractDirectory() throws IOException {
+        Path directory = Paths.get(
+                System.getProperty("java.io.tmpdir"), "justext-" + System.getProperty("user.name"));
+
+        if (!FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            return Files.createDirectories(directory);
+        }
+
+        try {
+            Files.createDirectory(directory, PosixFilePermissions.asFileAttribute(OWNER_PERMISSIONS));
+        } catch (FileAlreadyExistsException faee) {
+            LOG.debug("Reusing {}.", directory);
+        }
+
+        PosixFileAttributes attributes = Files.readAttributes(
+                directory, PosixFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+
+        UserPrincipal user = FileSystems.getDefault().getUserPrincipalLookupService().lookupPrincipalByName(
+                System.getProperty("user.name"));
+
+        if (!attributes.isDirectory() || !attributes.owner().equals(user)
+                || !OWNER_PERMISSIONS.containsAll(attributes.permissions())) {
+
+            throw new IOException(directory + " isn't a private directory of the current user");
+        }
+
+        return directory;
+    }
+
+    private void checkEntries() {
+        int limit = buffer.limit();
+        int entryOffset = entriesOffset;
+
+        while (entryOffset < limit) {
+            checkEntry(entryOffset);
+
+            entryOffset += ENTRY_HEADER_SIZE + buffer.getChar(entryOffset + Integer.BYTES + Character.BYTES)
+                    * Character.BYTES;
+        }
+
+        check(entryOffset == limit);
+
+        boolean emptySlot = false;
+
+        for (int slot = 0; slot <= tableMask; slot++) {
+            entryOffset = buffer.getInt(tableOffset + slot * Integer.BYTES);
+
+            if (entryOffset == 0) {
+                emptySlot = true;
+            } else {
+                check((entryOffset >= entriesOffset) && (entryOffset < limit));
+                checkEntry(entryOffset);
+            }
+        }
+
+        check(emptySlot);
+    }
+
+    private void checkEntry(int entryOffset) {
+        check(entryOffset <= buffer.limit() - ENTRY_HEADER_SIZE);
+        check(buffer.getChar(entryOffset + Integer.BYTES) < maskCount);
+
+        int length = buffer.getChar(entryOffset + Integer.BYTES + Character.BYTES);
+
+        check(length <= (buffer.limit() - entryOffset - ENTRY_HEADER_SIZE) / Character.BYTES);
+    }
+
+    /*
+     * Checks the given condition and that the given number of bytes are left in the buffer.
+     */
+    private void checkSize(boolean condition, long size) {
+        check(condition && (size <= buffer.remaining()));
+    }
+
+    private boolean matches(int entryOffset, CharSequence text, int start, int end, boolean ignoreCase) {
+        int length = buffer.getChar(entryOffset + Integer.BYTES + Character.BYTES);
+
+        if (length != end - start) {
+            return false;
+        }
+
+        int offset = entryOffset + ENTRY_HEADER_SIZE;
+
+        for (int index = start; index < end; index++, offset += Character.BYTES) {
+            char ch = text.charAt(index);
+
+            if (ignoreCase && (ch >= 'A') && (ch <= 'Z')) {
+                ch += 'a' - 'A';
+            }
+
+            if (ch != buffer.getChar(offset)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static final class DefaultHolder {
+
+        private static final StopWordDictionary INSTANCE = loadDefault();
+
+    }
+
+    /*
+     * Stop-words of several languages. Each set of languages of the dictionary is mapped to the set of candidates in
+     * advance, therefore a word is looked up only once regardless of the number of candidates.
+     */
+    private final class MultiLanguageStopWordMatcher implements StopWordMatcher {
+
+        private final long[] candidateMasks;
+        private final int candidateCount;
+
+        MultiLanguageStopWordMatcher(int[] candidateIndexes) {
+            candidateCount = candidateIndexes.length;
+            candidateMasks = new long[maskCount];
+
+            for (int maskIndex = 0; maskIndex < maskCount; maskIndex++) {
+                for (int candidate = 0; candidate < candidateCount; candidate++) {
+                    if (hasLanguage(maskIndex, candidateIndexes[candidate])) {
+                        candidateMasks[maskIndex] |= 1L << candidate;
+                    }
+                }
+            }
+        }
+
+        @Override
+        public boolean contains(CharSequence text, int start, int end) {
+            int maskIndex = find(text, start, end, true);
+
+            return (maskIndex >= 0) && (candidateMasks[maskIndex] != 0);
+        }
+
+        @Override
+        public int countStopWords(CharSequence text, int[] wordOffsets) {
+            int[] stopWordsCounts = new int[candidateCount];
+            int maxStopWordsCount = 0;
+
+            for (int index = 0; index < wordOffsets.length; index += 2) {
+                int maskIndex = find(text, wordOffsets[index], wordOffsets[index + 1], true);
+
+                if (maskIndex < 0) {
+                    continue;
+                }
+
+                for (long mask = candidateMasks[maskIndex]; mask != 0; mask &= mask - 1) {
+                    int stopWordsCount = ++stopWordsCounts[Long.numberOfTrailingZeros(mask)];
+
+                    maxStopWordsCount = Math.max(maxStopWordsCount, stopWordsCount);
+                }
+            }
+
+            return maxStopWordsCount;
+        }
+
+    }
+
+    /*
+     * Stop-words of a single language. Look-ups go to the dictionary directly, only iteration creates strings.
+     */
+    private final class LanguageStopWords extends AbstractSet<String> implements StopWordMatcher {
+
+        private final int languageIndex;
+
+        LanguageStopWords(int languageIndex) {
+            this.languageIndex = languageIndex;
+        }
+
+        @Override
+        public boolean contains(CharSequence text, int start, int end) {
+            int maskIndex = find(text, start, end, true);
+
+            return (maskIndex >= 0) && hasLanguage(maskIndex, languageIndex);
+        }
+
+        @Override
+        public boolean contains(Object object) {
+            if (!(object instanceof String)) {
+                return false;
+            }
+
+            String word = (String) object;
+            int maskIndex = find(word, 0, word.length(), false);
+
+            return (maskIndex >= 0) && hasLanguage(maskIndex, languageIndex);
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return new Iterator<String>() {
+
+                private int entryOffset = nextEntry(entriesOffset);
+
+                @Override
+                public boolean hasNext() {
+                    return entryOffset < buffer.limit();
+                }
+
+                @Override
+                public String next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+
+                    int length = getLength(entryOffset);
+                    char[] word = new char[length];
+
+                    for (int index = 0; index < length; index++) {
+                        word[index] = buffer.getChar(entryOffset + ENTRY_HEADER_SIZE + index * Character.BYTES);
+                    }
+
+                    entryOffset = nextEntry(entryOffset + ENTRY_HEADER_SIZE + length * Character.BYTES);
+
+                    return new String(word);
+                }
+
+                private int getLength(int offset) {
+                    return buffer.getChar(offset + Integer.BYTES + Character.BYTES);
+                }
+
+                private int nextEntry(int fromOffset) {
+                    int offset = fromOffset;
+
+                    while ((offset < buffer.limit())
+                            && !hasLanguage(buffer.getChar(offset + Integer.BYTES), languageIndex)) {
+
+                        offset += ENTRY_HEADER_SIZE + getLength(offset) * Character.BYTES;
+                    }
+
+                    return offset;
+                }
+
+            };
+        }
+
+        @Override
+        public int size() {
+            return wordCounts[languageIndex];
+        }
+
+    }
+
+}
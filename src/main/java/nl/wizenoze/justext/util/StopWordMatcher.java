@@ -0,0 +1,80 @@
+/**
+ * Copyright (c) 2016-present WizeNoze B.V. All rights reserved.
+ *
+ * This file is part of justext-java.
+ *
+ * justext-java is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * justext-java is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with justext-java.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.wizenoze.justext.util;
+
+import java.util.Set;
+
+/**
+ * Decides whether a word is a stop word. Words are given as a range of characters, so that they don't have to be
+ * turned into strings, and they're matched case-insensitively, as if they were lowercased first.
+ */
+public interface StopWordMatcher {
+
+    /**
+     * Returns if the given range of characters, converted to lower case, is a stop word.
+     *
+     * @param text text containing the word.
+     * @param start index of the first character of the word.
+     * @param end index after the last character of the word.
+     * @return if it's a stop word.
+     */
+    boolean contains(CharSequence text, int start, int end);
+
+    /**
+     * Counts the stop words among the given words of a text.
+     *
+     * @param text text containing the words.
+     * @param wordOffsets start and end offsets of the words, in pairs.
+     * @return number of stop words.
+     */
+    default int countStopWords(CharSequence text, int[] wordOffsets) {
+        int stopWordsCount = 0;
+
+        for (int index = 0; index < wordOffsets.length; index += 2) {
+            if (contains(text, wordOffsets[index], wordOffsets[index + 1])) {
+                stopWordsCount++;
+            }
+        }
+
+        return stopWordsCount;
+    }
+
+    /**
+     * Returns a matcher of the given lower-case stop words. The matcher of a {@link StopWordSet} is returned, as is a
+     * set which is a matcher itself (eg. the ones of {@link StopWordDictionary}). Any other set is copied into a
+     * {@link StopWordSet} the first time it's given on the current thread; the copy is reused for the same set as long
+     * as its size and hash code are unchanged.
+     *
+     * @param stopWords Set of lower-case stop words.
+     * @return stop word matcher.
+     */
+    static StopWordMatcher of(Set<String> stopWords) {
+        if (stopWords instanceof StopWordSet) {
+            return ((StopWordSet) stopWords).asMatcher();
+        }
+
+        if (stopWords instanceof StopWordMatcher) {
+            return (StopWordMatcher) stopWords;
+        }
+
+        return StopWordSetCache.get(stopWords).asMatcher();
+    }
+
+}
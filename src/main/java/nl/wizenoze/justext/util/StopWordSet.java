@@ -0,0 +1,239 @@
+/**
+ * Copyright (c) 2016-present WizeNoze B.V. All rights reserved.
+ *
+ * This file is part of justext-java.
+ *
+ * justext-java is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * justext-java is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with justext-java.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.wizenoze.justext.util;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable set of stop words, which can be used as a {@link StopWordMatcher} by {@link #asMatcher()}. Words are kept
+ * in an open-addressing hash table with linear probing; their hash codes are those of {@link String}, thus a range of
+ * characters can be hashed and lowercased in a single pass without creating a string.
+ *
+ * <p>
+ * ASCII letters are lowercased directly. Words having upper-case characters outside of the ASCII range are lowercased
+ * by {@link String#toLowerCase(Locale)}, with the root locale.
+ * </p>
+ */
+public final class StopWordSet extends AbstractSet<String> {
+
+    private static final int ARRAY_OVERHEAD = 16;
+    private static final int OBJECT_OVERHEAD = 24;
+    private static final int REFERENCE_SIZE = 4;
+    private static final int STRING_OVERHEAD = 24;
+
+    private final int[] hashes;
+    private final int mask;
+    private final StopWordMatcher matcher;
+    private final int size;
+    private final String[] words;
+
+    /**
+     * Creates a set of the given stop words.
+     *
+     * @param stopWords lower-case stop words.
+     */
+    public StopWordSet(Collection<String> stopWords) {
+        int capacity = 2;
+
+        // The table is kept at most half full.
+        while (capacity < stopWords.size() * 2) {
+            capacity <<= 1;
+        }
+
+        hashes = new int[capacity];
+        mask = capacity - 1;
+        words = new String[capacity];
+
+        int count = 0;
+
+        for (String stopWord : stopWords) {
+            int slot = findSlot(stopWord, stopWord.hashCode());
+
+            if (words[slot] == null) {
+                hashes[slot] = stopWord.hashCode();
+                words[slot] = stopWord;
+                count++;
+            }
+        }
+
+        size = count;
+
+        matcher = this::contains;
+    }
+
+    /**
+     * Returns a matcher of the words of this set. It's a separate object, so that a set can't be passed to a method
+     * which is overloaded for both {@link java.util.Set} and {@link StopWordMatcher} by mistake.
+     *
+     * @return stop word matcher.
+     */
+    public StopWordMatcher asMatcher() {
+        return matcher;
+    }
+
+    /**
+     * Returns if the given range of characters, converted to lower case, is a stop word.
+     *
+     * @param text text containing the word.
+     * @param start index of the first character of the word.
+     * @param end index after the last character of the word.
+     * @return if it's a stop word.
+     */
+    public boolean contains(CharSequence text, int start, int end) {
+        int hash = 0;
+
+        for (int index = start; index < end; index++) {
+            char ch = text.charAt(index);
+
+            if ((ch >= 'A') && (ch <= 'Z')) {
+                ch += 'a' - 'A';
+            } else if ((ch >= 0x80) && (Character.isSurrogate(ch) || (Character.toLowerCase(ch) != ch))) {
+                String word = text.subSequence(start, end).toString().toLowerCase(Locale.ROOT);
+
+                return contains(word);
+            }
+
+            hash = 31 * hash + ch;
+        }
+
+        for (int slot = spread(hash) & mask; words[slot] != null; slot = (slot + 1) & mask) {
+            if ((hashes[slot] == hash) && equalsIgnoringAsciiCase(words[slot], text, start, end)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public boolean contains(Object object) {
+        if (!(object instanceof String)) {
+            return false;
+        }
+
+        String word = (String) object;
+
+        return words[findSlot(word, word.hashCode())] != null;
+    }
+
+    /**
+     * Returns the estimated number of bytes retained by this set, assuming compressed object pointers and two bytes per
+     * character.
+     *
+     * @return estimated memory usage in bytes.
+     */
+    public long getMemoryUsage() {
+        long memoryUsage = OBJECT_OVERHEAD + ARRAY_OVERHEAD * 2;
+
+        memoryUsage += (long) words.length * (Integer.BYTES + REFERENCE_SIZE);
+
+        for (String word : words) {
+            if (word != null) {
+                memoryUsage += STRING_OVERHEAD + ARRAY_OVERHEAD + word.length() * Character.BYTES;
+            }
+        }
+
+        return memoryUsage;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<String>() {
+
+            private int slot = nextSlot(0);
+
+            @Override
+            public boolean hasNext() {
+                return slot < words.length;
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                String word = words[slot];
+
+                slot = nextSlot(slot + 1);
+
+                return word;
+            }
+
+            private int nextSlot(int fromSlot) {
+                int nextSlot = fromSlot;
+
+                while ((nextSlot < words.length) && (words[nextSlot] == null)) {
+                    nextSlot++;
+                }
+
+                return nextSlot;
+            }
+
+        };
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private static boolean equalsIgnoringAsciiCase(String word, CharSequence text, int start, int end) {
+        if (word.length() != end - start) {
+            return false;
+        }
+
+        for (int index = start; index < end; index++) {
+            char ch = text.charAt(index);
+
+            if ((ch >= 'A') && (ch <= 'Z')) {
+                ch += 'a' - 'A';
+            }
+
+            if (ch != word.charAt(index - start)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /*
+     * Returns the slot of the given word or the empty slot where it would be inserted.
+     */
+    private int findSlot(String word, int hash) {
+        int slot = spread(hash) & mask;
+
+        while ((words[slot] != null) && !((hashes[slot] == hash) && words[slot].equals(word))) {
+            slot = (slot + 1) & mask;
+        }
+
+        return slot;
+    }
+
+}
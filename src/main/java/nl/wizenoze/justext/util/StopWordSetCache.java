@@ -0,0 +1,98 @@
+/**
+ * Copyright (c) 2016-present WizeNoze B.V. All rights reserved.
+ *
+ * This file is part of justext-java.
+ *
+ * justext-java is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * justext-java is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with justext-java.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.wizenoze.justext.util;
+
+import java.lang.ref.WeakReference;
+import java.util.Set;
+
+/**
+ * Per-thread cache of the {@link StopWordSet} copies of the sets passed to {@link StopWordMatcher#of(Set)}, so that a
+ * set which is given for every document is converted only once. Sets are looked up by identity and they're only
+ * referenced weakly. A copy is reused as long as the size and the hash code of the set are unchanged, which detects
+ * the modification of a set unless both of them happen to be retained.
+ */
+final class StopWordSetCache {
+
+    private static final int CAPACITY = 8;
+
+    private static final ThreadLocal<StopWordSetCache> CURRENT = ThreadLocal.withInitial(StopWordSetCache::new);
+
+    private final Entry[] entries = new Entry[CAPACITY];
+
+    private int nextIndex = 0;
+
+    private StopWordSetCache() {
+    }
+
+    /*
+     * Returns the copy of the given set.
+     */
+    static StopWordSet get(Set<String> stopWords) {
+        return CURRENT.get().doGet(stopWords);
+    }
+
+    private StopWordSet doGet(Set<String> stopWords) {
+        int size = stopWords.size();
+        int hashCode = stopWords.hashCode();
+        int index = nextIndex;
+
+        for (int entryIndex = 0; entryIndex < CAPACITY; entryIndex++) {
+            Entry entry = entries[entryIndex];
+
+            if ((entry != null) && (entry.get() == stopWords)) {
+                if ((entry.size == size) && (entry.hashCode == hashCode)) {
+                    return entry.stopWordSet;
+                }
+
+                // The set has been modified, its copy is replaced.
+                index = entryIndex;
+
+                break;
+            }
+        }
+
+        StopWordSet stopWordSet = new StopWordSet(stopWords);
+
+        entries[index] = new Entry(stopWords, size, hashCode, stopWordSet);
+
+        if (index == nextIndex) {
+            nextIndex = (nextIndex + 1) % CAPACITY;
+        }
+
+        return stopWordSet;
+    }
+
+    private static final class Entry extends WeakReference<Set<String>> {
+
+        private final int hashCode;
+        private final int size;
+        private final StopWordSet stopWordSet;
+
+        Entry(Set<String> stopWords, int size, int hashCode, StopWordSet stopWordSet) {
+            super(stopWords);
+
+            this.hashCode = hashCode;
+            this.size = size;
+            this.stopWordSet = stopWordSet;
+        }
+
+    }
+
+}
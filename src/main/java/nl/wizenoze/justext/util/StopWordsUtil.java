@@ -23,29 +23,153 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Collectors;
 
 import nl.wizenoze.justext.exception.JusTextStopWordsException;
 
 /**
+ * Loads stop-words from the classpath. Each language is loaded only once per class loader and kept in a process-wide
+ * cache, thus subsequent look-ups of the same language cost only a map look-up.
+ *
+ * <p>
+ * Languages of the precompiled {@link StopWordDictionary} are served from the dictionary, which is memory mapped and
+ * isn't parsed at all. Other languages are read from their plain-text lists.
+ * </p>
+ *
  * @author László Csontos
  */
 public final class StopWordsUtil {
 
+    private static final ConcurrentMap<String, Set<String>> STOP_WORDS = new ConcurrentHashMap<>();
+
     private StopWordsUtil() {
     }
 
     /**
-     * Returns a set of stop-words which correspond to the given language code.
+     * Returns the language codes whose stop-words have already been loaded.
+     *
+     * @return sorted set of language codes.
+     */
+    public static Set<String> getCachedLanguageCodes() {
+        return Collections.unmodifiableSet(new TreeSet<>(STOP_WORDS.keySet()));
+    }
+
+    /**
+     * Returns the estimated number of bytes retained on the heap by the stop-words loaded so far. Languages served
+     * from the memory mapped {@link StopWordDictionary} don't occupy the heap.
+     *
+     * @return estimated memory usage in bytes.
+     */
+    public static long getCachedMemoryUsage() {
+        long memoryUsage = 0;
+
+        for (Set<String> stopWords : STOP_WORDS.values()) {
+            if (stopWords instanceof StopWordSet) {
+                memoryUsage += ((StopWordSet) stopWords).getMemoryUsage();
+            }
+        }
+
+        return memoryUsage;
+    }
+
+    /**
+     * Returns a matcher of the stop-words of the given languages, see
+     * {@link StopWordDictionary#getStopWordMatcher(Collection)}. Each paragraph is classified by the language it has
+     * the most stop-words of.
+     *
+     * @param languageCodes ISO 639-1 language codes.
+     * @return stop word matcher.
+     */
+    public static StopWordMatcher getStopWordMatcher(String... languageCodes) {
+        return getStopWordMatcher(Arrays.asList(languageCodes));
+    }
+
+    /**
+     * Returns a matcher of the stop-words of the given languages, see
+     * {@link StopWordDictionary#getStopWordMatcher(Collection)}. Each paragraph is classified by the language it has
+     * the most stop-words of.
+     *
+     * @param languageCodes ISO 639-1 language codes.
+     * @return stop word matcher.
+     */
+    public static StopWordMatcher getStopWordMatcher(Collection<String> languageCodes) {
+        if (languageCodes.size() == 1) {
+            return StopWordMatcher.of(getStopWords(languageCodes.iterator().next()));
+        }
+
+        StopWordDictionary stopWordDictionary = StopWordDictionary.getDefault();
+
+        if ((stopWordDictionary != null) && stopWordDictionary.getLanguageCodes().containsAll(languageCodes)) {
+            return stopWordDictionary.getStopWordMatcher(languageCodes);
+        }
+
+        List<StopWordMatcher> stopWordMatchers = new ArrayList<>();
+
+        for (String languageCode : languageCodes) {
+            stopWordMatchers.add(StopWordMatcher.of(getStopWords(languageCode)));
+        }
+
+        return new MaxStopWordMatcher(stopWordMatchers);
+    }
+
+    /**
+     * Returns a set of stop-words which correspond to the given language code. The returned set is immutable and it's
+     * shared by all callers.
      *
      * @param languageCode ISO 639-1 language code.
      * @return set of stop-words which correspond to the given language code.
      */
     public static Set<String> getStopWords(String languageCode) {
+        if (languageCode == null) {
+            throw new JusTextStopWordsException("Language code must not be null");
+        }
+
+        Set<String> stopWords = STOP_WORDS.get(languageCode);
+
+        if (stopWords != null) {
+            return stopWords;
+        }
+
+        return STOP_WORDS.computeIfAbsent(languageCode, StopWordsUtil::loadStopWords);
+    }
+
+    /**
+     * Loads the stop-words of the given languages in advance, so that later look-ups don't have to read them.
+     *
+     * @param languageCodes ISO 639-1 language codes.
+     */
+    public static void preload(String... languageCodes) {
+        preload(Arrays.asList(languageCodes));
+    }
+
+    /**
+     * Loads the stop-words of the given languages in advance, so that later look-ups don't have to read them.
+     *
+     * @param languageCodes ISO 639-1 language codes.
+     */
+    public static void preload(Collection<String> languageCodes) {
+        languageCodes.forEach(StopWordsUtil::getStopWords);
+    }
+
+    private static Set<String> loadStopWords(String languageCode) {
+        StopWordDictionary stopWordDictionary = StopWordDictionary.getDefault();
+
+        if ((stopWordDictionary != null) && stopWordDictionary.getLanguageCodes().contains(languageCode)) {
+            return stopWordDictionary.getStopWords(languageCode);
+        }
+
         try {
-            return Collections.unmodifiableSet(stopWords(languageCode));
+            return new StopWordSet(stopWords(languageCode));
         } catch (IOException ioe) {
             throw new JusTextStopWordsException(ioe.getMessage(), ioe);
         }
@@ -59,9 +183,46 @@ public final class StopWordsUtil {
             throw new JusTextStopWordsException(String.format("Language code %s doesn't exist", languageCode));
         }
 
-        try (BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(inputStream))) {
+        try (BufferedReader bufferedReader = new BufferedReader(
+                new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+
             return bufferedReader.lines().map(String::toLowerCase).collect(Collectors.toSet());
         }
     }
 
+    /*
+     * Fallback for languages which aren't in the dictionary, the stop-words of each language are counted separately.
+     */
+    private static final class MaxStopWordMatcher implements StopWordMatcher {
+
+        private final List<StopWordMatcher> stopWordMatchers;
+
+        MaxStopWordMatcher(List<StopWordMatcher> stopWordMatchers) {
+            this.stopWordMatchers = stopWordMatchers;
+        }
+
+        @Override
+        public boolean contains(CharSequence text, int start, int end) {
+            for (StopWordMatcher stopWordMatcher : stopWordMatchers) {
+                if (stopWordMatcher.contains(text, start, end)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        @Override
+        public int countStopWords(CharSequence text, int[] wordOffsets) {
+            int maxStopWordsCount = 0;
+
+            for (StopWordMatcher stopWordMatcher : stopWordMatchers) {
+                maxStopWordsCount = Math.max(maxStopWordsCount, stopWordMatcher.countStopWords(text, wordOffsets));
+            }
+
+            return maxStopWordsCount;
+        }
+
+    }
+
 }
@@ -19,46 +19,60 @@
 
 package nl.wizenoze.justext.util;
 
-import java.util.HashSet;
-import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
-import static java.util.regex.Pattern.UNICODE_CHARACTER_CLASS;
-
-import static nl.wizenoze.justext.util.StringPool.CARRIAGE_RETURN;
-import static nl.wizenoze.justext.util.StringPool.NEW_LINE;
-import static nl.wizenoze.justext.util.StringPool.SPACE;
-
 /**
  * @author László Csontos
  */
 public final class StringUtil {
 
-    private static final Pattern MULTIPLE_WHITESPACE_PATTERN = Pattern.compile("\\s+", UNICODE_CHARACTER_CLASS);
     private static final int SHORTEN_LENGTH_DEFAULT = 20;
-    private static final Set<Character> UNICODE_WHITESPACE_CHARACTERS = new HashSet<>(17);
+
+    // http://www.fileformat.info/info/unicode/category/Zs/list.htm
+    private static final char[] SPACE_SEPARATORS = {
+        '\u0020',   // SPACE
+        '\u00A0',   // NO-BREAK SPACE
+        '\u1680',   // OGHAM SPACE MARK
+        '\u2000',   // EN QUAD
+        '\u2001',   // EM QUAD
+        '\u2002',   // EN SPACE
+        '\u2003',   // EM SPACE
+        '\u2004',   // THREE-PER-EM SPACE
+        '\u2005',   // FOUR-PER-EM SPACE
+        '\u2006',   // SIX-PER-EM SPACE
+        '\u2007',   // FIGURE SPACE
+        '\u2008',   // PUNCTUATION SPACE
+        '\u2009',   // THIN SPACE
+        '\u200A',   // HAIR SPACE
+        '\u202F',   // NARROW NO-BREAK SPACE
+        '\u205F',   // MEDIUM MATHEMATICAL SPACE
+        '\u3000'    // IDEOGRAPHIC SPACE
+    };
+
+    // Characters having the White_Space property besides the space separators above
+    private static final char[] OTHER_WHITE_SPACES = {
+        '\t', '\n', '\u000B', '\f', '\r', '\u0085', '\u2028', '\u2029'
+    };
+
+    // There are no white space characters after U+3000, therefore the lookup tables end there.
+    private static final char TABLE_LIMIT = '\u3000';
+
+    private static final long[] UNICODE_WHITE_SPACE_TABLE = new long[(TABLE_LIMIT >>> 6) + 1];
+    private static final long[] WHITESPACE_TABLE = new long[(TABLE_LIMIT >>> 6) + 1];
 
     static {
-        // http://www.fileformat.info/info/unicode/category/Zs/list.htm
-
-        UNICODE_WHITESPACE_CHARACTERS.add('\u0020');    // SPACE
-        UNICODE_WHITESPACE_CHARACTERS.add('\u00A0');    // NO-BREAK SPACE
-        UNICODE_WHITESPACE_CHARACTERS.add('\u1680');    // OGHAM SPACE MARK
-        UNICODE_WHITESPACE_CHARACTERS.add('\u2000');    // EN QUAD
-        UNICODE_WHITESPACE_CHARACTERS.add('\u2001');    // EM QUAD
-        UNICODE_WHITESPACE_CHARACTERS.add('\u2002');    // EN SPACE
-        UNICODE_WHITESPACE_CHARACTERS.add('\u2003');    // EM SPACE
-        UNICODE_WHITESPACE_CHARACTERS.add('\u2004');    // THREE-PER-EM SPACE
-        UNICODE_WHITESPACE_CHARACTERS.add('\u2005');    // FOUR-PER-EM SPACE
-        UNICODE_WHITESPACE_CHARACTERS.add('\u2006');    // SIX-PER-EM SPACE
-        UNICODE_WHITESPACE_CHARACTERS.add('\u2007');    // FIGURE SPACE
-        UNICODE_WHITESPACE_CHARACTERS.add('\u2008');    // PUNCTUATION SPACE
-        UNICODE_WHITESPACE_CHARACTERS.add('\u2009');    // THIN SPACE
-        UNICODE_WHITESPACE_CHARACTERS.add('\u200A');    // HAIR SPACE
-        UNICODE_WHITESPACE_CHARACTERS.add('\u202F');    // NARROW NO-BREAK SPACE
-        UNICODE_WHITESPACE_CHARACTERS.add('\u205F');    // MEDIUM MATHEMATICAL SPACE
-        UNICODE_WHITESPACE_CHARACTERS.add('\u3000');    // IDEOGRAPHIC SPACE
+        for (char ch : SPACE_SEPARATORS) {
+            setBit(UNICODE_WHITE_SPACE_TABLE, ch);
+            setBit(WHITESPACE_TABLE, ch);
+        }
+
+        for (char ch : OTHER_WHITE_SPACES) {
+            setBit(UNICODE_WHITE_SPACE_TABLE, ch);
+        }
+
+        for (char ch = 0; ch <= TABLE_LIMIT; ch++) {
+            if (Character.isWhitespace(ch)) {
+                setBit(WHITESPACE_TABLE, ch);
+            }
+        }
     }
 
     private StringUtil() {
@@ -119,6 +133,25 @@ public final class StringUtil {
         return true;
     }
 
+    /**
+     * Returns if the given slice of a character array is blank, meaning that it's either empty or contains only white
+     * space characters.
+     *
+     * @param chars character array.
+     * @param start index of the first character to check.
+     * @param length number of characters to check.
+     * @return if it's blank or not.
+     */
+    public static boolean isBlank(char[] chars, int start, int length) {
+        for (int index = start; index < start + length; index++) {
+            if (!isWhitespace(chars[index])) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     /**
      * Returns if the given string is empty, meaning that it's either <code>null</code> or an empty string.
      *
@@ -153,6 +186,17 @@ public final class StringUtil {
         return !isEmpty(string);
     }
 
+    /**
+     * Returns if the given character is matched by <code>\s</code> in Unicode mode, that is, if it has the
+     * <code>White_Space</code> property. These are the characters {@link #normalizeWhiteSpaces(String)} collapses.
+     *
+     * @param ch character to check.
+     * @return if it's a white space character.
+     */
+    public static boolean isUnicodeWhiteSpace(char ch) {
+        return getBit(UNICODE_WHITE_SPACE_TABLE, ch);
+    }
+
     /**
      * Translates multiple whitespace into single space character. If there is at least one new line character chunk is
      * replaced by single LF (Unix new line) character.
@@ -160,23 +204,72 @@ public final class StringUtil {
      * @return normalized text.
      */
     public static String normalizeWhiteSpaces(String text) {
-        Matcher matcher = MULTIPLE_WHITESPACE_PATTERN.matcher(text);
+        int length = text.length();
 
-        StringBuffer stringBuffer = new StringBuffer();
+        // Most of the text doesn't need to be changed at all, that is checked first without copying anything.
+        int index = 0;
 
-        while (matcher.find()) {
-            String token = matcher.group();
+        while ((index < length) && !needsNormalization(text, index, length)) {
+            index++;
+        }
 
-            if (contains(token, CARRIAGE_RETURN) || contains(token, NEW_LINE)) {
-                matcher.appendReplacement(stringBuffer, NEW_LINE);
-            } else {
-                matcher.appendReplacement(stringBuffer, SPACE);
-            }
+        if (index == length) {
+            return text;
         }
 
-        matcher.appendTail(stringBuffer);
+        StringBuilder normalized = new StringBuilder(length);
+        normalized.append(text, 0, index);
+
+        appendNormalized(text, index, length, normalized);
+
+        return normalized.toString();
+    }
+
+    /**
+     * Translates multiple whitespace into single space character, like {@link #normalizeWhiteSpaces(String)} does, and
+     * appends the result to the given builder.
+     * @param text text to be normalized.
+     * @param normalized builder the normalized text is appended to.
+     */
+    public static void normalizeWhiteSpaces(CharSequence text, StringBuilder normalized) {
+        appendNormalized(text, 0, text.length(), normalized);
+    }
+
+    /**
+     * Translates multiple whitespace into single space character, like {@link #normalizeWhiteSpaces(String)} does, and
+     * writes the result to the given array. Normalized text is never longer than the original one, therefore
+     * <code>length</code> characters of room is always enough and the source and destination may even be the same.
+     * @param text characters to be normalized.
+     * @param start index of the first character to be normalized.
+     * @param length number of characters to be normalized.
+     * @param normalized array the normalized text is written to.
+     * @param normalizedStart index the normalized text is written from.
+     * @return length of the normalized text.
+     */
+    public static int normalizeWhiteSpaces(char[] text, int start, int length, char[] normalized, int normalizedStart) {
+        int end = start + length;
+        int position = normalizedStart;
+
+        for (int index = start; index < end; index++) {
+            char ch = text[index];
+
+            if (!isUnicodeWhiteSpace(ch)) {
+                normalized[position++] = ch;
+                continue;
+            }
+
+            boolean newLine = false;
+
+            for (; (index < end) && isUnicodeWhiteSpace(text[index]); index++) {
+                newLine |= isNewLine(text[index]);
+            }
 
-        return stringBuffer.toString();
+            index--;
+
+            normalized[position++] = newLine ? '\n' : ' ';
+        }
+
+        return position - normalizedStart;
     }
 
     /**
@@ -247,8 +340,59 @@ public final class StringUtil {
         return shorten(string, SHORTEN_LENGTH_DEFAULT, suffix);
     }
 
+    private static void appendNormalized(CharSequence text, int start, int end, StringBuilder normalized) {
+        for (int index = start; index < end; index++) {
+            char ch = text.charAt(index);
+
+            if (!isUnicodeWhiteSpace(ch)) {
+                normalized.append(ch);
+                continue;
+            }
+
+            boolean newLine = false;
+
+            for (; (index < end) && isUnicodeWhiteSpace(text.charAt(index)); index++) {
+                newLine |= isNewLine(text.charAt(index));
+            }
+
+            index--;
+
+            normalized.append(newLine ? '\n' : ' ');
+        }
+    }
+
+    private static boolean getBit(long[] table, char ch) {
+        return (ch <= TABLE_LIMIT) && ((table[ch >>> 6] & (1L << ch)) != 0);
+    }
+
+    private static boolean isNewLine(char ch) {
+        return (ch == '\n') || (ch == '\r');
+    }
+
     private static boolean isWhitespace(char codePoint) {
-        return (UNICODE_WHITESPACE_CHARACTERS.contains(codePoint) || Character.isWhitespace(codePoint));
+        return getBit(WHITESPACE_TABLE, codePoint);
+    }
+
+    /*
+     * A white space character has to be replaced unless it's a single space or a new line, which isn't followed by
+     * further white space.
+     */
+    private static boolean needsNormalization(String text, int index, int length) {
+        char ch = text.charAt(index);
+
+        if (!isUnicodeWhiteSpace(ch)) {
+            return false;
+        }
+
+        if ((ch != ' ') && (ch != '\n')) {
+            return true;
+        }
+
+        return (index + 1 < length) && isUnicodeWhiteSpace(text.charAt(index + 1));
+    }
+
+    private static void setBit(long[] table, char ch) {
+        table[ch >>> 6] |= 1L << ch;
     }
 
 }
@@ -0,0 +1,45 @@
+package nl.wizenoze.justext
+
+import spock.lang.Specification
+
+/**
+ * Created by lcsontos on 10/18/26.
+ */
+class ClassifierPlanTest extends Specification {
+
+    def testDefaultPlanIsShared() {
+        expect:
+        ClassifierPlan.compile(ClassifierProperties.getDefault()).is(
+                ClassifierPlan.compile(Classifier.CLASSIFIER_PROPERTIES_DEFAULT))
+    }
+
+    def testCompile() {
+        def classifierProperties = new ClassifierProperties.Builder()
+                .setLengthHigh(300)
+                .setLengthLow(50)
+                .setMaxHeadingDistance(150)
+                .setMaxLinkDensity(new BigDecimal("0.25"))
+                .setNoHeadings(true)
+                .setNoHeadlines(true)
+                .setNoImages(false)
+                .setStopWordsHigh(new BigDecimal("0.4"))
+                .setStopWordsLow(new BigDecimal("0.2"))
+                .build()
+
+        when:
+        def classifierPlan = ClassifierPlan.compile(classifierProperties)
+
+        then:
+        !classifierPlan.is(ClassifierPlan.compile(ClassifierProperties.getDefault()))
+        classifierPlan.lengthHigh == 300
+        classifierPlan.lengthLow == 50
+        classifierPlan.maxHeadingDistance == 150
+        classifierPlan.maxLinkDensity == 0.25f
+        classifierPlan.stopWordsHigh == 0.4f
+        classifierPlan.stopWordsLow == 0.2f
+        !classifierPlan.hasHeadlines()
+        !classifierPlan.hasHeadingRevisions()
+        classifierPlan.hasImageRevisions()
+    }
+
+}
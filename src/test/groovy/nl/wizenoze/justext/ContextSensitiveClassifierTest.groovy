@@ -2,6 +2,7 @@ package nl.wizenoze.justext
 
 import nl.wizenoze.justext.paragraph.MutableParagraph
 import nl.wizenoze.justext.paragraph.MutableParagraphImpl
+import nl.wizenoze.justext.paragraph.PathInfo
 
 import spock.lang.Specification
 
@@ -188,4 +189,146 @@ class ContextSensitiveClassifierTest extends Specification {
         paragraphs.isEmpty()
     }
 
+    /*
+     * Straightforward implementation which scans the neighbours of each paragraph, as the algorithm is described.
+     */
+    static List<Classification> reviseByScanning(List<Classification> classifications) {
+        def revised = new ArrayList<Classification>(classifications)
+
+        def findBoundary = { int index, int step ->
+            def seen = [] as Set
+
+            for (int current = index; current >= 0 && current < revised.size(); current += step) {
+                if (revised[current] in [BAD, GOOD, NEAR_GOOD]) {
+                    seen << revised[current]
+
+                    if (revised[current] in [BAD, GOOD]) {
+                        return seen
+                    }
+                }
+            }
+
+            [BAD] as Set
+        }
+
+        def revise = { Classification target, Closure<Classification> classifier ->
+            revised.eachWithIndex { Classification classification, int index ->
+                if (classification != target) {
+                    return
+                }
+
+                def next = findBoundary(index + 1, 1)
+                def prev = findBoundary(index, -1)
+                def nearGoodRemovedFromNext = next.remove(NEAR_GOOD) && next != [GOOD] as Set
+                def nearGoodRemovedFromPrev = prev.remove(NEAR_GOOD) && prev != [GOOD] as Set
+                def nearGoodRemoved = nearGoodRemovedFromNext || nearGoodRemovedFromPrev
+                def merged = next + prev
+
+                revised[index] = classifier(merged, nearGoodRemoved && merged == [BAD, GOOD] as Set)
+            }
+        }
+
+        revise(SHORT) { Set<Classification> merged, boolean nearGoodRemoved ->
+            merged.size() == 1 ? merged.first() : (nearGoodRemoved ? GOOD : BAD)
+        }
+
+        revise(NEAR_GOOD) { Set<Classification> merged, boolean nearGoodRemoved ->
+            merged == [BAD] as Set ? BAD : GOOD
+        }
+
+        revised
+    }
+
+    def testSameAsScanning() {
+        def random = new Random(20261017)
+        def values = [BAD, GOOD, NEAR_GOOD, SHORT, SHORT]
+
+        expect:
+        1000.times {
+            def classifications = (0..<random.nextInt(40)).collect { values[random.nextInt(values.size())] }
+            def paragraphs = classifications.collect { new MutableParagraphImpl(it) }
+
+            Classifier.classifyContextSensitive(paragraphs)
+
+            assert paragraphs*.classification == reviseByScanning(classifications)
+        }
+    }
+
+    /*
+     * Straightforward implementation of the context sensitive classification with headings and images, which scans the
+     * paragraphs following each heading or image.
+     */
+    static List<Classification> classifyByScanning(List<MutableParagraph> paragraphs, int maxHeadingDistance) {
+        def revised = paragraphs*.classification
+
+        def reviseHeadings = { Classification newClassification, Closure<Boolean> predicate ->
+            paragraphs.eachWithIndex { MutableParagraph heading, int index ->
+                if (!predicate(heading, revised[index])) {
+                    return
+                }
+
+                int distance = 0
+                int size = paragraphs.size()
+
+                for (int current = index + 1; current < size && distance <= maxHeadingDistance; current++) {
+                    if (revised[current] == GOOD) {
+                        revised[index] = newClassification
+                        break
+                    }
+
+                    distance += paragraphs[current].length()
+                }
+            }
+        }
+
+        reviseHeadings(NEAR_GOOD) { paragraph, classification ->
+            (paragraph.heading || paragraph.image) && classification == SHORT
+        }
+
+        reviseHeadings(NEAR_GOOD) { paragraph, classification -> paragraph.image }
+
+        revised = reviseByScanning(revised)
+
+        reviseHeadings(GOOD) { paragraph, classification -> paragraph.heading && classification == BAD }
+
+        revised
+    }
+
+    def testHeadingsAndImagesSameAsScanning() {
+        def random = new Random(20261018)
+        def tagNames = ["p", "p", "h2", "img"]
+        def values = [BAD, GOOD, NEAR_GOOD, SHORT, SHORT]
+        def properties = new ClassifierProperties.Builder().setMaxHeadingDistance(100).setNoImages(false).build()
+
+        expect:
+        1000.times {
+            def paragraphs = (0..<random.nextInt(40)).collect {
+                def pathInfo = new PathInfo().append("body").append(tagNames[random.nextInt(tagNames.size())])
+                def paragraph = new MutableParagraphImpl(pathInfo, ["x" * (1 + random.nextInt(60))], 0, 0)
+
+                paragraph.classification = values[random.nextInt(values.size())]
+                paragraph
+            }
+
+            def expected = classifyByScanning(paragraphs, 100)
+
+            Classifier.classifyContextSensitive(paragraphs, properties)
+
+            assert paragraphs*.classification == expected
+        }
+    }
+
+    def testLongRunOfShortParagraphs() {
+        def paragraphs = [new MutableParagraphImpl(GOOD)] +
+                (1..20000).collect { new MutableParagraphImpl(it % 1000 == 0 ? NEAR_GOOD : SHORT) } +
+                [new MutableParagraphImpl(BAD)]
+
+        when:
+        Classifier.classifyContextSensitive(new LinkedList<MutableParagraph>(paragraphs))
+
+        then:
+        paragraphs[1..20000].every { it.classification == GOOD }
+        paragraphs[20001].classification == BAD
+    }
+
 }
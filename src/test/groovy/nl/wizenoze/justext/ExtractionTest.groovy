@@ -0,0 +1,95 @@
+package nl.wizenoze.justext
+
+import nl.wizenoze.justext.html.StreamingHtmlParser
+
+import spock.lang.Shared
+import spock.lang.Specification
+
+import java.nio.charset.StandardCharsets
+
+/**
+ * Created by lcsontos on 10/17/26.
+ */
+class ExtractionTest extends Specification {
+
+    @Shared
+    JusText jusTextDefault = new JusText()
+
+    @Shared
+    JusText jusTextStreaming = new JusText(
+            new ClassifierProperties.Builder().build(), [] as Set, new StreamingHtmlParser())
+
+    def loadHtml(String name) {
+        return getClass().getResource("/html/${name}").text
+    }
+
+    def feedChars(Extraction extraction, String html, int chunkSize) {
+        def chars = html.toCharArray()
+
+        for (int offset = 0; offset < chars.length; offset += chunkSize) {
+            extraction.feed(chars, offset, Math.min(chunkSize, chars.length - offset))
+        }
+
+        extraction.finish()
+    }
+
+    def feedBytes(Extraction extraction, byte[] bytes, int chunkSize) {
+        for (int offset = 0; offset < bytes.length; offset += chunkSize) {
+            extraction.feed(Arrays.copyOfRange(bytes, offset, Math.min(offset + chunkSize, bytes.length)))
+        }
+
+        extraction.finish()
+    }
+
+    def testFeedCharacters() {
+        def html = loadHtml("cosmos.html")
+
+        expect:
+        feedChars(jusText.newExtraction("en"), html, chunkSize) == jusText.extract(html, "en")
+
+        where:
+        jusText               | chunkSize
+        jusTextStreaming      | 1
+        jusTextStreaming      | 17
+        jusTextStreaming      | 8192
+        jusTextDefault        | 17
+    }
+
+    def testFeedBytes() {
+        def html = loadHtml("bbc_bitesize.html")
+        def bytes = html.getBytes(StandardCharsets.UTF_8)
+
+        expect:
+        feedBytes(jusText.newExtraction("en"), bytes, chunkSize) == jusText.extract(html, "en")
+
+        where:
+        jusText               | chunkSize
+        jusTextStreaming      | 1
+        jusTextStreaming      | 1000
+        jusTextDefault        | 1000
+    }
+
+    def testMixingCharactersAndBytes() {
+        def extraction = jusTextStreaming.newExtraction()
+
+        when:
+        extraction.feed('<p>'.toCharArray())
+        extraction.feed('text'.bytes)
+
+        then:
+        thrown(IllegalStateException)
+    }
+
+    def testFinishTwice() {
+        def extraction = jusTextStreaming.newExtraction()
+
+        when:
+        extraction.feed('<p>text</p>'.toCharArray())
+        extraction.finish()
+        extraction.finish()
+
+        then:
+        thrown(IllegalStateException)
+    }
+
+}
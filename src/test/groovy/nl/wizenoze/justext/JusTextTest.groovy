@@ -1,8 +1,20 @@
 package nl.wizenoze.justext
 
+import nl.wizenoze.justext.exception.JusTextIOException
+import nl.wizenoze.justext.html.HtmlBeautifier
+import nl.wizenoze.justext.html.StreamingHtmlParser
+import nl.wizenoze.justext.html.XmlParserBackend
 import nl.wizenoze.justext.paragraph.Paragraph
+import nl.wizenoze.justext.util.StopWordSet
+import nl.wizenoze.justext.util.StopWordsUtil
 import spock.lang.Specification
 
+import java.nio.ByteBuffer
+import java.nio.CharBuffer
+import java.nio.file.Paths
+import java.util.zip.GZIPOutputStream
+import java.nio.charset.StandardCharsets
+
 /**
  * Created by lcsontos on 1/17/16.
  */
@@ -148,4 +160,170 @@ class JusTextTest extends Specification {
         paragraphs[0].text.startsWith("Remember the ALS ice bucket challenge?")
     }
 
+    def testParserBackends() {
+        def classifierProperties = new ClassifierProperties.Builder().setNoImages(false).build()
+        def jusTextStreaming = new JusText(classifierProperties, [] as Set, new StreamingHtmlParser())
+        def jusTextXml = new JusText(classifierProperties, [] as Set, new XmlParserBackend())
+        def htmlBeautifier = new HtmlBeautifier()
+
+        def html = loadHtml(name)
+        def paragraphs = jusTextWithImages.extract(html, "en", false)
+        def streamedParagraphs = jusTextStreaming.extract(html, "en", false)
+
+        expect:
+        jusTextXml.extract(htmlBeautifier.cleanHtml(html), "en", false) == paragraphs
+        streamedParagraphs.collect { [it.text, it.classification] } == paragraphs.collect { [it.text, it.classification] }
+        paragraphs.indices.findAll { streamedParagraphs[it] != paragraphs[it] } == differentParagraphs
+
+        where:
+        // The streaming parser repairs malformed markup differently, which changes the paths of some paragraphs
+        name                            | differentParagraphs
+        "BBCNatureReptile.html"         | []
+        "Bill_Clinton.html"             | [74, 84]
+        "Patrick_Pearse.html"           | []
+        "The_ice_bucket_challenge.html" | []
+        "aardgas.html"                  | []
+        "bbc_bitesize.html"             | []
+        "cosmos.html"                   | []
+        "grassland.html"                | (59..103).toList()
+    }
+
+    def testExtractBytes() {
+        def html = loadHtml("bbc_bitesize.html")
+        def bytes = html.getBytes(StandardCharsets.UTF_8)
+        def buffer = ByteBuffer.wrap(bytes)
+        def paragraphs = jusTextDefault.extract(html, "en")
+
+        expect:
+        jusTextDefault.extract(new ByteArrayInputStream(bytes), "en") == paragraphs
+        jusTextDefault.extract(buffer, "en") == paragraphs
+        buffer.position() == 0
+    }
+
+    def testExtractFiles() {
+        def names = ["bbc_bitesize.html", "cosmos.html"]
+        def paths = names.collect { Paths.get(getClass().getResource("/html/${it}").toURI()) }
+
+        when:
+        def paragraphsByPath = jusTextDefault.extractAll(paths, "en")
+
+        then:
+        paragraphsByPath.keySet() as List == paths
+        jusTextDefault.extract(paths[0], "en") == jusTextDefault.extract(loadHtml(names[0]), "en")
+        paragraphsByPath[paths[1]] == jusTextDefault.extract(loadHtml(names[1]), "en")
+    }
+
+    def testExtractMissingFile() {
+        when:
+        jusTextDefault.extract(Paths.get("no-such-file.html"))
+
+        then:
+        thrown(JusTextIOException)
+    }
+
+    def testExtractCharacters() {
+        def html = loadHtml("cosmos.html")
+        def chars = ("xx" + html + "yy").toCharArray()
+        def charBuffer = CharBuffer.wrap(chars, 2, html.length())
+        def paragraphs = jusTextDefault.extract(html, "en")
+
+        expect:
+        jusTextDefault.extract(new StringBuilder(html), "en") == paragraphs
+        jusTextDefault.extract(chars, 2, html.length(), "en") == paragraphs
+        jusTextDefault.extract(charBuffer, "en") == paragraphs
+        charBuffer.position() == 2
+    }
+
+    def testExtractCompressedBytes() {
+        def html = loadHtml("bbc_bitesize.html")
+        def bytes = new ByteArrayOutputStream()
+
+        new GZIPOutputStream(bytes).withStream { it.write(html.getBytes(StandardCharsets.UTF_8)) }
+
+        expect:
+        jusTextDefault.extract(new ByteArrayInputStream(bytes.toByteArray()), "en") == jusTextDefault.extract(html, "en")
+    }
+
+    def testDetectLanguage() {
+        expect:
+        jusTextDefault.detectLanguage(loadHtml(name)) == languageCode
+
+        where:
+        name                            || languageCode
+        "aardgas.html"                  || "nl"
+        "BBCNatureReptile.html"         || "en"
+        "Bill_Clinton.html"             || "en"
+        "Patrick_Pearse.html"           || "en"
+        "The_ice_bucket_challenge.html" || "en"
+        "bbc_bitesize.html"             || "en"
+        "cosmos.html"                   || "en"
+        "grassland.html"                || "en"
+    }
+
+    def testDetectLanguageWithoutStopWords() {
+        expect:
+        jusTextDefault.detectLanguage("<html><body><p>xyzzy 12345</p></body></html>") == null
+        jusTextDefault.extract("<html><body><p>xyzzy 12345</p></body></html>", JusText.DETECT_LANGUAGE, false)*.text ==
+                ["xyzzy 12345"]
+    }
+
+    def testExtractDetectingLanguage() {
+        expect:
+        jusTextWithImages.extract(loadHtml("aardgas.html"), JusText.DETECT_LANGUAGE) ==
+                jusTextWithImages.extract(loadHtml("aardgas.html"), "nl")
+        jusTextDefault.extract(loadHtml("cosmos.html"), JusText.DETECT_LANGUAGE, false) ==
+                jusTextDefault.extract(loadHtml("cosmos.html"), "en", false)
+    }
+
+    def testExtractDetectingLanguageOfEachInput() {
+        def html = loadHtml("cosmos.html")
+        def path = Paths.get(getClass().getResource("/html/cosmos.html").toURI())
+        def bytes = html.getBytes(StandardCharsets.UTF_8)
+        def expected = jusTextDefault.extract(html, "en")
+
+        expect:
+        jusTextDefault.extract((CharSequence) new StringBuilder(html), JusText.DETECT_LANGUAGE) == expected
+        jusTextDefault.extract(CharBuffer.wrap(html), JusText.DETECT_LANGUAGE) == expected
+        jusTextDefault.extract(html.toCharArray(), 0, html.length(), JusText.DETECT_LANGUAGE) == expected
+        jusTextDefault.extract(new ByteArrayInputStream(bytes), JusText.DETECT_LANGUAGE) == expected
+        jusTextDefault.extract(ByteBuffer.wrap(bytes), JusText.DETECT_LANGUAGE) == expected
+        jusTextDefault.extract(path, JusText.DETECT_LANGUAGE) == expected
+        jusTextDefault.extractAll([path], JusText.DETECT_LANGUAGE) == [(path): expected]
+    }
+
+    def testExtractWithEmptyStopWordSet() {
+        def html = loadHtml("cosmos.html")
+
+        expect:
+        jusTextDefault.extract(html, new StopWordSet(Collections.emptySet()), true) ==
+                jusTextDefault.extract(html, Collections.emptySet(), true)
+        jusTextDefault.extract(html, new StopWordSet(Collections.emptySet()), true) !=
+                jusTextDefault.extract(html, JusText.DETECT_LANGUAGE, true)
+    }
+
+    def testExtractionDetectingLanguage() {
+        def extraction = jusTextDefault.newExtraction(JusText.DETECT_LANGUAGE)
+
+        when:
+        extraction.feed(loadHtml("cosmos.html").toCharArray())
+
+        then:
+        extraction.finish() == jusTextDefault.extract(loadHtml("cosmos.html"), "en")
+    }
+
+    def testExtractMixedLanguages() {
+        def english = "This is a paragraph which has been written in English, and it is about the natural gas which " +
+                "is found in the ground below the north of the country, where it has been produced for many years. " +
+                "It was discovered in the fifties and since then it has been one of the main sources of energy."
+        def dutch = "Dit is een alinea die in het Nederlands is geschreven, en het gaat over het aardgas dat in de " +
+                "bodem van het noorden van het land wordt gevonden, waar het al vele jaren wordt gewonnen. " +
+                "Het werd in de jaren vijftig ontdekt en sindsdien is het een van de belangrijkste bronnen van energie."
+        def html = "<html><body><p>${english}</p><p>${dutch}</p></body></html>"
+
+        expect:
+        jusTextDefault.extract(html, "en")*.text == [english]
+        jusTextDefault.extract(html, "nl")*.text == [dutch]
+        jusTextDefault.extract(html, StopWordsUtil.getStopWordMatcher("en", "nl"), true)*.text == [english, dutch]
+    }
+
 }
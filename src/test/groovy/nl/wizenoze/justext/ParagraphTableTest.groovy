@@ -0,0 +1,93 @@
+package nl.wizenoze.justext
+
+import nl.wizenoze.justext.paragraph.MutableParagraph
+import nl.wizenoze.justext.paragraph.MutableParagraphImpl
+import nl.wizenoze.justext.paragraph.PathInfo
+import nl.wizenoze.justext.util.StopWordSet
+
+import spock.lang.Specification
+
+import static nl.wizenoze.justext.Classification.BAD
+import static nl.wizenoze.justext.Classification.GOOD
+import static nl.wizenoze.justext.Classification.SHORT
+
+/**
+ * Created by lcsontos on 10/18/26.
+ */
+class ParagraphTableTest extends Specification {
+
+    static class CountingParagraph implements MutableParagraph {
+
+        @Delegate
+        MutableParagraphImpl paragraph
+
+        int updatesCount
+
+        @Override
+        void setClassification(Classification classification) {
+            updatesCount++
+            paragraph.setClassification(classification)
+        }
+
+    }
+
+    def createParagraph(String tagName, String text, int charsInLinksCount) {
+        new MutableParagraphImpl(new PathInfo().append("body").append(tagName), [text], charsInLinksCount, 0)
+    }
+
+    def testFeatures() {
+        def paragraphs = [
+                createParagraph("h1", "The title", 0),
+                createParagraph("img", "caption", 0),
+                createParagraph("p", "a link", 4),
+                createParagraph("select", "", 0)
+        ]
+
+        paragraphs[2].classification = SHORT
+
+        when:
+        def paragraphTable = new ParagraphTable(paragraphs)
+
+        then:
+        paragraphTable.size() == 4
+        (0..3).collect { paragraphTable.length(it) } == [9, 7, 6, 0]
+        (0..3).collect { paragraphTable.getCharsInLinksCount(it) } == [0, 0, 4, 0]
+        (0..3).collect { paragraphTable.getLinkDensity(it) } == paragraphs*.linkDensity
+        (0..3).collect { paragraphTable.getClassification(it) } == [null, null, SHORT, null]
+        (0..3).collect { paragraphTable.isHeading(it) } == [true, false, false, false]
+        (0..3).collect { paragraphTable.isHeadline(it) } == [true, false, false, false]
+        (0..3).collect { paragraphTable.isImage(it) } == [false, true, false, false]
+        (0..3).collect { paragraphTable.isSelect(it) } == [false, false, false, true]
+        (0..3).every { paragraphTable.getParagraph(it).is(paragraphs[it]) }
+    }
+
+    def testStopWordsDensity() {
+        def paragraphTable = new ParagraphTable([createParagraph("p", "The cat and the dog", 0)])
+
+        when:
+        paragraphTable.countStopWords(0, new StopWordSet(["the", "and"]).asMatcher())
+
+        then:
+        paragraphTable.getStopWordsDensity(0) == 0.6f
+    }
+
+    def testWriteClassifications() {
+        def paragraphs = (0..2).collect {
+            new CountingParagraph(paragraph: createParagraph("p", "text", 0))
+        }
+
+        def paragraphTable = new ParagraphTable(paragraphs)
+
+        when:
+        paragraphTable.setClassification(0, GOOD)
+        paragraphTable.setClassification(1, BAD)
+        paragraphTable.writeClassifications()
+        paragraphTable.setClassification(1, GOOD)
+        paragraphTable.writeClassifications()
+
+        then:
+        paragraphs*.classification == [GOOD, GOOD, null]
+        paragraphs*.updatesCount == [1, 2, 0]
+    }
+
+}
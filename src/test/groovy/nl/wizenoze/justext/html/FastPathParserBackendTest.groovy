@@ -0,0 +1,167 @@
+package nl.wizenoze.justext.html
+
+import nl.wizenoze.justext.paragraph.ParagraphMaker
+
+import java.nio.file.Files
+
+import spock.lang.Specification
+
+import static nl.wizenoze.justext.html.FastPathParserBackend.ParsePath.FALLBACK
+import static nl.wizenoze.justext.html.FastPathParserBackend.ParsePath.FAST
+
+/**
+ * Created by lcsontos on 10/17/26.
+ */
+class FastPathParserBackendTest extends Specification {
+
+    private final HtmlBeautifier htmlBeautifier = new HtmlBeautifier()
+    private final List<FastPathParserBackend.ParsePath> parsePaths = []
+    private final FastPathParserBackend fastPathParserBackend = new FastPathParserBackend(
+            { parsePaths.add(it) } as FastPathParserBackend.ParsePathListener)
+
+    def createParagraphs(String html, ParserBackend parserBackend) {
+        new ParagraphMaker(new StringReader(html), parserBackend).traverse().collect {
+            [it.text, it.domPath, it.xpath, it.tagsCount, it.charsInLinksCount, it.url, it.wordsCount]
+        }
+    }
+
+    def loadHtml(String name) {
+        return getClass().getResource("/html/${name}").text
+    }
+
+    def testWellFormedDocument() {
+        def html = htmlBeautifier.cleanHtml(loadHtml("cosmos.html"))
+
+        when:
+        def paragraphs = createParagraphs(html, fastPathParserBackend)
+
+        then:
+        paragraphs == createParagraphs(html, new HtmlCleanerParserBackend())
+        parsePaths == [FAST]
+        fastPathParserBackend.fastCount == 1
+        fastPathParserBackend.fallbackCount == 0
+    }
+
+    def testMalformedDocument() {
+        def html = loadHtml("Bill_Clinton.html")
+
+        when:
+        def paragraphs = createParagraphs(html, fastPathParserBackend)
+
+        then:
+        paragraphs == createParagraphs(html, new HtmlCleanerParserBackend())
+        parsePaths == [FALLBACK]
+        fastPathParserBackend.fastCount == 0
+        fastPathParserBackend.fallbackCount == 1
+    }
+
+    def testMalformedDocumentAfterWellFormedContent() {
+        def html = "<html><body>${'<p>paragraph</p>' * 10000}<p>broken<br></p></body></html>"
+
+        when:
+        def paragraphs = createParagraphs(html, fastPathParserBackend)
+
+        then:
+        paragraphs.size() == 10001
+        paragraphs == createParagraphs(html, new HtmlCleanerParserBackend())
+        parsePaths == [FALLBACK]
+    }
+
+    def testDocumentWithoutHtmlAndBody() {
+        when:
+        def paragraphs = createParagraphs(html, fastPathParserBackend)
+
+        then:
+        paragraphs == createParagraphs(html, new HtmlCleanerParserBackend())
+        paragraphs*.getAt(2) == xpaths
+        parsePaths == [FALLBACK]
+
+        where:
+        html                                                      | xpaths
+        '<p>a</p>'                                                | ["/html[1]/body[1]/p[1]"]
+        '<!DOCTYPE html><p>a<!-- c -->b</p>'                      | ["/html[1]/body[1]/p[1]"]
+        '<html><p>a</p></html>'                                   | ["/html[1]/body[1]/p[1]"]
+        '<html>a<body><p>b</p></body></html>'                     | ["/html[1]/body[1]", "/html[1]/body[1]/p[1]"]
+        '<html><body><p>a</p></body><p>b</p></html>'              | ["/html[1]/body[1]/p[1]", "/html[1]/body[1]/p[2]"]
+        '<body><p>a</p></body>'                                   | ["/html[1]/body[1]/p[1]"]
+    }
+
+    def testDocumentWithHeadAndBody() {
+        def html = '<html>\n<head><title>t</title></head>\n<body><p>a</p></body>\n</html>'
+
+        when:
+        def paragraphs = createParagraphs(html, fastPathParserBackend)
+
+        then:
+        paragraphs == createParagraphs(html, new HtmlCleanerParserBackend())
+        parsePaths == [FAST]
+    }
+
+    def testExternalEntityIsNotResolved() {
+        def secretPath = Files.createTempFile("justext-secret", ".txt")
+        Files.write(secretPath, "secret-content".getBytes("UTF-8"))
+        def html = "<!DOCTYPE html [<!ENTITY x SYSTEM \"${secretPath.toUri()}\">]><p>leak: &x;</p>"
+
+        when:
+        def paragraphs = createParagraphs(html, fastPathParserBackend)
+
+        then:
+        paragraphs == createParagraphs(html, new HtmlCleanerParserBackend())
+        !paragraphs.any { it[0].contains("secret-content") }
+        parsePaths == [FALLBACK]
+
+        cleanup:
+        Files.deleteIfExists(secretPath)
+    }
+
+    def testInternalEntityDeclaration() {
+        def html = "<!DOCTYPE html [<!ENTITY x \"expanded\">]><html><body><p>text &x;</p></body></html>"
+
+        when:
+        def paragraphs = createParagraphs(html, fastPathParserBackend)
+
+        then:
+        paragraphs == createParagraphs(html, new HtmlCleanerParserBackend())
+        parsePaths == [FALLBACK]
+    }
+
+    def testHtmlEntitiesWithoutDtd() {
+        def html = '<!DOCTYPE html PUBLIC "-//W3C//DTD XHTML 1.0 Strict//EN" ' +
+                '"http://www.w3.org/TR/xhtml1/DTD/xhtml1-strict.dtd">' +
+                '<html><body><p>Caf&eacute;&nbsp;and&nbsp;more text here</p></body></html>'
+
+        when:
+        def paragraphs = createParagraphs(html, fastPathParserBackend)
+
+        then:
+        paragraphs == createParagraphs(html, new HtmlCleanerParserBackend())
+        paragraphs[0][0] == "Caf\u00E9 and more text here"
+        parsePaths == [FALLBACK]
+    }
+
+    def testDoctypeWithoutEntities() {
+        def html = '<!DOCTYPE html PUBLIC "-//W3C//DTD XHTML 1.0 Strict//EN" ' +
+                '"http://www.w3.org/TR/xhtml1/DTD/xhtml1-strict.dtd">' +
+                '<html><body><p>Caf&#233; and &lt;more&gt; text here</p></body></html>'
+
+        when:
+        def paragraphs = createParagraphs(html, fastPathParserBackend)
+
+        then:
+        paragraphs == createParagraphs(html, new HtmlCleanerParserBackend())
+        parsePaths == [FAST]
+    }
+
+    def testMalformedStream() {
+        def html = "<html><body>${'<p>paragraph</p>' * 1000}<p>broken<br></p></body></html>"
+
+        when:
+        def paragraphs = new ParagraphMaker(new BufferedReader(new StringReader(html)), fastPathParserBackend)
+                .traverse()*.text
+
+        then:
+        paragraphs == createParagraphs(html, new HtmlCleanerParserBackend()).collect { it[0] }
+        parsePaths == [FALLBACK]
+    }
+
+}
@@ -0,0 +1,51 @@
+package nl.wizenoze.justext.html
+
+import nl.wizenoze.justext.io.CharSequenceReader
+
+import spock.lang.Specification
+
+/**
+ * Created by lcsontos on 10/18/26.
+ */
+class ReplayableReaderTest extends Specification {
+
+    static final String DOCUMENT = "<html><body>${'<p>paragraph</p>' * 1000}</body></html>"
+
+    def readPartially(ReplayableReader replayableReader) {
+        def buffer = new char[100]
+
+        replayableReader.read()
+        replayableReader.read(buffer, 0, buffer.length)
+        replayableReader.close()
+    }
+
+    def testInMemoryReaderIsRewound() {
+        def replayableReader = new ReplayableReader(reader)
+
+        when:
+        readPartially(replayableReader)
+
+        then:
+        replayableReader.@recorded == null
+        replayableReader.replay().text == DOCUMENT
+
+        where:
+        reader << [
+                new StringReader(DOCUMENT), new CharArrayReader(DOCUMENT.toCharArray()),
+                new CharSequenceReader(DOCUMENT)
+        ]
+    }
+
+    def testStreamIsRecorded() {
+        def replayableReader = new ReplayableReader(new BufferedReader(new StringReader(DOCUMENT)))
+
+        when:
+        readPartially(replayableReader)
+
+        then:
+        replayableReader.@recordedLength == 101
+        replayableReader.replay().text == DOCUMENT
+        replayableReader.@recorded == null
+    }
+
+}
@@ -0,0 +1,125 @@
+package nl.wizenoze.justext.html
+
+import org.xml.sax.Attributes
+import org.xml.sax.SAXException
+import org.xml.sax.helpers.DefaultHandler
+
+import spock.lang.Specification
+
+/**
+ * Created by lcsontos on 10/17/26.
+ */
+class StreamingHtmlParserTest extends Specification {
+
+    private final StreamingHtmlParser streamingHtmlParser = new StreamingHtmlParser()
+
+    def parse(String html) {
+        def handler = new RecordingHandler()
+
+        streamingHtmlParser.parse(new StringReader(html), handler)
+
+        handler.events.join()
+    }
+
+    def testHtmlAndBodyAreSynthesized() {
+        expect:
+        parse('text <b>bold</b>') == '<html><body>text <b>bold</b></body></html>'
+    }
+
+    def testHeadIsSkipped() {
+        def html = [
+            '<!DOCTYPE html><html><head><title>Title</title><meta charset="utf-8">',
+            '<style>p { color: red; }</style><noscript><img src="x.png"></noscript></head>',
+            '<body><p>text</p></body></html>'
+        ].join()
+
+        expect:
+        parse(html) == '<html><body><p>text</p></body></html>'
+    }
+
+    def testScriptAndStyleAreSkipped() {
+        def html = '<p>a<script>if (a < b) { document.write("</p>"); }</script>b<style>p > a {}</style>c</p>'
+
+        expect:
+        parse(html) == '<html><body><p>abc</p></body></html>'
+    }
+
+    def testImplicitlyClosedElements() {
+        def html = [
+            '<p>one<p>two<div>three</div>',
+            '<ul><li>a<li>b</ul>',
+            '<table><tr><td>1<td>2<tr><td>3</table>'
+        ].join()
+
+        expect:
+        parse(html) == [
+            '<html><body><p>one</p><p>two</p><div>three</div>',
+            '<ul><li>a</li><li>b</li></ul>',
+            '<table><tbody><tr><td>1</td><td>2</td></tr><tr><td>3</td></tr></tbody></table></body></html>'
+        ].join()
+    }
+
+    def testVoidElements() {
+        expect:
+        parse('<p>a<br>b<img src="x.png" alt="x">c<br/></br></p>') ==
+                '<html><body><p>a<br></br>b<img alt="x" src="x.png"></img>c<br></br></p></body></html>'
+    }
+
+    def testReferencesAndAttributes() {
+        expect:
+        parse('<a HREF="?a=1&amp;b=2" title=\' x\ny \' class=c>&lt;x&gt; &copy; &#65;&#x42; &bogus;</a>') == [
+            '<html><body><a class="c" href="?a=1&b=2" title="x y">',
+            '<|x|>| © AB |&|bogus;</a></body></html>'
+        ].join()
+    }
+
+    def testCommentsAndCdataSections() {
+        expect:
+        parse('<p>a<!-- <b>comment</b> -->b<![CDATA[<c>]]></p>') == '<html><body><p>ab|<|c|></p></body></html>'
+    }
+
+    def testLongTextIsFlushedInChunks() {
+        def size = HtmlTreeBuilder.TEXT_BUFFER_SIZE
+        def html = "<p>${'x' * (size * 2 + 100)}</p>"
+
+        expect:
+        parse(html) == "<html><body><p>${'x' * size}|${'x' * size}|${'x' * 100}</p></body></html>"
+    }
+
+    private static class RecordingHandler extends DefaultHandler {
+
+        final List<String> events = []
+
+        boolean text = false
+
+        @Override
+        void characters(char[] ch, int start, int length) throws SAXException {
+            if (text) {
+                events.add('|')
+            }
+
+            events.add(new String(ch, start, length))
+
+            text = true
+        }
+
+        @Override
+        void endElement(String uri, String localName, String qName) throws SAXException {
+            events.add("</${qName}>")
+
+            text = false
+        }
+
+        @Override
+        void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+            def names = (0..<attributes.length).collect { attributes.getQName(it) }.sort()
+            def values = names.collect { " ${it}=\"${attributes.getValue(it)}\"" }
+
+            events.add("<${qName}${values.join()}>")
+
+            text = false
+        }
+
+    }
+
+}
@@ -0,0 +1,81 @@
+package nl.wizenoze.justext.html
+
+import nl.wizenoze.justext.exception.JusTextParseException
+import nl.wizenoze.justext.paragraph.ParagraphMaker
+
+import org.xml.sax.helpers.DefaultHandler
+
+import java.nio.file.Files
+
+import spock.lang.Specification
+
+/**
+ * Created by lcsontos on 10/18/26.
+ */
+class XmlParserBackendTest extends Specification {
+
+    def createParagraphs(String xml) {
+        new ParagraphMaker(new StringReader(xml), new XmlParserBackend()).traverse()*.text
+    }
+
+    def testExternalEntityIsNotResolved() {
+        def secretPath = Files.createTempFile("justext-secret", ".txt")
+        Files.write(secretPath, "secret-content".getBytes("UTF-8"))
+        def xml = "<!DOCTYPE html [<!ENTITY x SYSTEM \"${secretPath.toUri()}\">]><p>leak: &x;</p>"
+
+        expect:
+        createParagraphs(xml) == ["leak:"]
+
+        cleanup:
+        Files.deleteIfExists(secretPath)
+    }
+
+    def testExternalParameterEntityIsNotResolved() {
+        def secretPath = Files.createTempFile("justext-secret", ".dtd")
+        Files.write(secretPath, '<!ENTITY x "secret-content">'.getBytes("UTF-8"))
+        def xml = "<!DOCTYPE html [<!ENTITY % p SYSTEM \"${secretPath.toUri()}\"> %p;]><p>leak: &x;</p>"
+
+        when:
+        createParagraphs(xml)
+
+        then:
+        // The parameter entity isn't loaded, thus the entity declared by it is undefined.
+        def e = thrown(JusTextParseException)
+        e.message.contains("\"x\"")
+        !e.message.contains("secret-content")
+
+        cleanup:
+        Files.deleteIfExists(secretPath)
+    }
+
+    def testMalformedDocumentIsNotReported() {
+        def systemErr = System.err
+        def errorStream = new ByteArrayOutputStream()
+        System.err = new PrintStream(errorStream, true)
+
+        when:
+        createParagraphs('<p>a<br>b</p>')
+
+        then:
+        thrown(JusTextParseException)
+        errorStream.size() == 0
+
+        cleanup:
+        System.err = systemErr
+    }
+
+    def testHandlerIsNotRetained() {
+        def xmlParserBackend = new XmlParserBackend()
+        def contentHandler = new DefaultHandler()
+
+        when:
+        xmlParserBackend.parse(new StringReader('<p>text</p>'), contentHandler)
+        def retainedHandler = xmlParserBackend.xmlReaders.get().contentHandler
+
+        then:
+        retainedHandler != null
+        !(retainedHandler instanceof PruningContentHandler)
+        !retainedHandler.is(contentHandler)
+    }
+
+}
@@ -0,0 +1,80 @@
+package nl.wizenoze.justext.io
+
+import spock.lang.Specification
+
+import java.nio.CharBuffer
+
+/**
+ * Created by lcsontos on 10/17/26.
+ */
+class CharSequenceReaderTest extends Specification {
+
+    static final String TEXT = 'Příliš žluťoučký kůň úpěl ďábelské ódy. ' * 500
+
+    def testRead() {
+        expect:
+        new CharSequenceReader(sequence).text == TEXT
+
+        where:
+        sequence << [
+            TEXT,
+            new StringBuilder(TEXT),
+            new StringBuffer(TEXT),
+            CharBuffer.wrap(TEXT),
+            CharBuffer.wrap(TEXT.toCharArray()),
+            new Segment(TEXT)
+        ]
+    }
+
+    def testCharBufferPositionIsKept() {
+        def charBuffer = CharBuffer.wrap(('xx' + TEXT).toCharArray())
+        charBuffer.position(2)
+
+        when:
+        def text = new CharSequenceReader(charBuffer).text
+
+        then:
+        text == TEXT
+        charBuffer.position() == 2
+    }
+
+    def testSkipAndReset() {
+        def reader = new CharSequenceReader('abcdef')
+
+        when:
+        reader.skip(2)
+        reader.mark(0)
+        def first = reader.read()
+        reader.reset()
+
+        then:
+        first == ('c' as char)
+        reader.text == 'cdef'
+    }
+
+    private static class Segment implements CharSequence {
+
+        final String text
+
+        Segment(String text) {
+            this.text = text
+        }
+
+        @Override
+        int length() {
+            text.length()
+        }
+
+        @Override
+        char charAt(int index) {
+            text.charAt(index)
+        }
+
+        @Override
+        CharSequence subSequence(int start, int end) {
+            text.subSequence(start, end)
+        }
+
+    }
+
+}
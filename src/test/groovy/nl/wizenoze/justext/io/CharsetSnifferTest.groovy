@@ -0,0 +1,68 @@
+package nl.wizenoze.justext.io
+
+import spock.lang.Specification
+
+import java.nio.ByteBuffer
+import java.nio.charset.Charset
+import java.nio.charset.StandardCharsets
+
+/**
+ * Created by lcsontos on 10/17/26.
+ */
+class CharsetSnifferTest extends Specification {
+
+    def sniff(byte[] bytes) {
+        CharsetSniffer.sniff(bytes, bytes.length)
+    }
+
+    def testByteOrderMarks() {
+        expect:
+        sniff([0xEF, 0xBB, 0xBF, 0x3C] as byte[]) == StandardCharsets.UTF_8
+        sniff([0xFE, 0xFF, 0x00, 0x3C] as byte[]) == StandardCharsets.UTF_16BE
+        sniff([0xFF, 0xFE, 0x3C, 0x00] as byte[]) == StandardCharsets.UTF_16LE
+    }
+
+    def testMetaCharset() {
+        expect:
+        sniff('<html><head><meta charset="windows-1250"></head>'.bytes) == Charset.forName("windows-1250")
+        sniff("<html><head><META CHARSET='ISO-8859-2'></head>".bytes) == Charset.forName("ISO-8859-2")
+    }
+
+    def testMetaHttpEquiv() {
+        def html = '<html><head><meta http-equiv="Content-Type" content="text/html; charset=iso-8859-1" /></head>'
+
+        expect:
+        sniff(html.bytes) == StandardCharsets.ISO_8859_1
+    }
+
+    def testXmlDeclaration() {
+        expect:
+        sniff('<?xml version="1.0" encoding="windows-1252"?><html/>'.bytes) == Charset.forName("windows-1252")
+    }
+
+    def testDefault() {
+        expect:
+        sniff('<html><body>text</body></html>'.bytes) == StandardCharsets.UTF_8
+        sniff('<meta charset="no-such-charset">'.bytes) == StandardCharsets.UTF_8
+        sniff('<meta charset="utf-16">'.bytes) == StandardCharsets.UTF_8
+        sniff(("<p>${' ' * CharsetSniffer.SNIFF_LENGTH}</p><meta charset=\"windows-1250\">").bytes) ==
+                StandardCharsets.UTF_8
+    }
+
+    def testNewReader() {
+        def html = '<html><head><meta charset="windows-1250"></head><body>Příliš žluťoučký kůň</body></html>'
+        def bytes = html.getBytes("windows-1250")
+
+        expect:
+        CharsetSniffer.newReader(new ByteArrayInputStream(bytes)).text == html
+        CharsetSniffer.newReader(new ByteBufferInputStream(ByteBuffer.wrap(bytes))).text == html
+    }
+
+    def testNewReaderSkipsByteOrderMark() {
+        def bytes = ([0xEF, 0xBB, 0xBF] + ('<p>čau</p>'.getBytes(StandardCharsets.UTF_8) as List)) as byte[]
+
+        expect:
+        CharsetSniffer.newReader(new ByteArrayInputStream(bytes)).text == '<p>čau</p>'
+    }
+
+}
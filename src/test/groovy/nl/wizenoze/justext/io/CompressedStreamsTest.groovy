@@ -0,0 +1,76 @@
+package nl.wizenoze.justext.io
+
+import spock.lang.Specification
+
+import java.nio.charset.StandardCharsets
+import java.util.zip.DeflaterOutputStream
+import java.util.zip.GZIPOutputStream
+
+/**
+ * Created by lcsontos on 10/17/26.
+ */
+class CompressedStreamsTest extends Specification {
+
+    static final String HTML = '<html><body><p>' + ('Some text. ' * 10000) + '</p></body></html>'
+
+    def compress(Class<? extends OutputStream> outputStreamClass) {
+        def bytes = new ByteArrayOutputStream()
+        def outputStream = outputStreamClass.newInstance(bytes)
+
+        outputStream.write(HTML.getBytes(StandardCharsets.UTF_8))
+        outputStream.close()
+
+        bytes.toByteArray()
+    }
+
+    def decompress(byte[] bytes) {
+        new String(CompressedStreams.decompress(new ByteArrayInputStream(bytes)).bytes, StandardCharsets.UTF_8)
+    }
+
+    def testGzip() {
+        expect:
+        decompress(compress(GZIPOutputStream)) == HTML
+    }
+
+    def testZlib() {
+        expect:
+        decompress(compress(DeflaterOutputStream)) == HTML
+    }
+
+    def testUncompressed() {
+        expect:
+        decompress(HTML.getBytes(StandardCharsets.UTF_8)) == HTML
+        decompress('x'.bytes) == 'x'
+        decompress(new byte[0]) == ''
+    }
+
+    def testPlainTextWithZlibHeader() {
+        expect:
+        CompressedStreams.isZlib((int) text.charAt(0), (int) text.charAt(1))
+        decompress(text.getBytes(StandardCharsets.UTF_8)) == text
+
+        where:
+        text << [
+                'HK', 'x^', 'XG', 'HKEY_LOCAL_MACHINE is a registry hive', 'x^2 + y^2 = z^2',
+                'XGA was a graphics standard', 'HK' + ('<p>Some text.</p>' * 1000)
+        ]
+    }
+
+    def testPlainTextWithGzipMagic() {
+        def bytes = [0x1F, 0x8B, 0x41, 0x42] as byte[]
+
+        expect:
+        CompressedStreams.decompress(new ByteArrayInputStream(bytes)).bytes == bytes
+    }
+
+    def testZlibHeader() {
+        expect:
+        CompressedStreams.isZlib(0x78, 0x9C)
+        CompressedStreams.isZlib(0x78, 0x01)
+        CompressedStreams.isZlib(0x78, 0xDA)
+        !CompressedStreams.isZlib(0x3C, 0x21)
+        !CompressedStreams.isZlib(0x78, 0x6D)
+        !CompressedStreams.isZlib(0x78, -1)
+    }
+
+}
@@ -0,0 +1,53 @@
+package nl.wizenoze.justext.io
+
+import spock.lang.Specification
+
+import java.nio.charset.Charset
+import java.nio.charset.StandardCharsets
+
+/**
+ * Created by lcsontos on 10/17/26.
+ */
+class IncrementalDecoderTest extends Specification {
+
+    def decode(byte[] bytes, int chunkSize) {
+        def decoder = new IncrementalDecoder()
+        def text = new StringBuilder()
+
+        for (int offset = 0; offset < bytes.length; offset += chunkSize) {
+            text.append(decoder.decode(bytes, offset, Math.min(chunkSize, bytes.length - offset)))
+        }
+
+        text.append(decoder.finish())
+
+        [text.toString(), decoder.charset]
+    }
+
+    def testDecode() {
+        def html = "<html><head><meta charset=\"${charsetName}\"></head><body>${'Příliš žluťoučký kůň. ' * 500}</body>"
+        def bytes = html.getBytes(charsetName)
+
+        expect:
+        decode(bytes, chunkSize) == [html, Charset.forName(charsetName)]
+
+        where:
+        charsetName    | chunkSize
+        "UTF-8"        | 1
+        "UTF-8"        | 7
+        "UTF-8"        | 100000
+        "windows-1250" | 3
+    }
+
+    def testByteOrderMark() {
+        def bytes = ([0xFF, 0xFE] + ('<p>čau</p>'.getBytes(StandardCharsets.UTF_16LE) as List)) as byte[]
+
+        expect:
+        decode(bytes, 3) == ['<p>čau</p>', StandardCharsets.UTF_16LE]
+    }
+
+    def testEmptyDocument() {
+        expect:
+        decode(new byte[0], 1) == ['', StandardCharsets.UTF_8]
+    }
+
+}
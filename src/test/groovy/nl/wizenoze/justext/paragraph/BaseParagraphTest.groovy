@@ -0,0 +1,92 @@
+package nl.wizenoze.justext.paragraph
+
+import nl.wizenoze.justext.util.StopWordMatcher
+import nl.wizenoze.justext.util.StringUtil
+
+import spock.lang.Specification
+
+/**
+ * Created by lcsontos on 10/17/26.
+ */
+class BaseParagraphTest extends Specification {
+
+    def testWordOffsets() {
+        when:
+        def paragraph = new MutableParagraphImpl((PathInfo) null)
+        def wordOffsets = BaseParagraph.getWordOffsets(text)
+
+        then:
+        paragraph.getWords(text, wordOffsets) == text.split("\\s") as List
+
+        where:
+        text << ["", " ", "  ", "a", "a b", " a", "a ", "a  b", "a\nb\tc\u000Bd\fe\rf", "a b", "\n\na  "]
+    }
+
+    def testStopWords() {
+        def paragraph = new MutableParagraphImpl(["The cat and THE dog\nsat"])
+
+        expect:
+        paragraph.wordsCount == 6
+        paragraph.getStopWordsCount(["the", "and"] as Set) == 3
+        paragraph.getStopWordsDensity(["the", "and"] as Set) == 0.5f
+        paragraph.freeze().getStopWordsCount(["the", "and"] as Set) == 3
+        paragraph.freeze().words == ["The", "cat", "and", "THE", "dog", "sat"]
+    }
+
+    def testDefaultStopWordMethods() {
+        def paragraph = new MutableParagraphImpl(["The cat and THE dog\nsat"]).freeze()
+        def delegatingParagraph = new DelegatingParagraph(paragraph: paragraph)
+        def stopWordMatcher = StopWordMatcher.of(["the", "and"] as Set)
+
+        expect:
+        delegatingParagraph.getStopWordsCount(stopWordMatcher) == paragraph.getStopWordsCount(stopWordMatcher)
+        delegatingParagraph.getStopWordsDensity(stopWordMatcher) == 0.5f
+    }
+
+    def testTextNodes() {
+        def paragraph = new MutableParagraphImpl((PathInfo) null)
+
+        when:
+        def appendedTextNodes = textNodes.collect { paragraph.appendText(it) }
+
+        then:
+        appendedTextNodes == textNodes.collect { StringUtil.normalizeWhiteSpaces(it) }
+        paragraph.textNodes == appendedTextNodes
+        paragraph.text == StringUtil.normalizeWhiteSpaces(textNodes.join().trim())
+
+        where:
+        textNodes << [
+            [], [""], ["a"], ["a ", " b"], ["a ", "\n b"], ["a \t", "  ", "\r", "b"], [" ", "a", "", " \n"],
+            ["x\u00A0 y", "\u3000z  "]
+        ]
+    }
+
+    def testAppendTextOfCharacters() {
+        def paragraph = new MutableParagraphImpl((PathInfo) null)
+        def text = "xx a \n b yy".toCharArray()
+
+        expect:
+        paragraph.appendText(text, 2, 7) == 5
+        paragraph.textNodes == [" a\nb "]
+        paragraph.text == "a\nb"
+    }
+
+    // Relies on the default stop word methods of Paragraph taking a matcher
+    private static class DelegatingParagraph implements Paragraph {
+
+        @Delegate(excludes = ["getStopWordsCount", "getStopWordsDensity"])
+        Paragraph paragraph
+
+        @Override
+        int getStopWordsCount(Set<String> stopWords) {
+            paragraph.getStopWordsCount(stopWords)
+        }
+
+        @Override
+        float getStopWordsDensity(Set<String> stopWords) {
+            paragraph.getStopWordsDensity(stopWords)
+        }
+
+    }
+
+}
@@ -0,0 +1,95 @@
+package nl.wizenoze.justext.paragraph
+
+import nl.wizenoze.justext.html.HtmlBeautifier
+import nl.wizenoze.justext.html.StreamingHtmlParser
+import nl.wizenoze.justext.html.XmlParserBackend
+
+import spock.lang.Specification
+
+/**
+ * Created by lcsontos on 10/17/26.
+ */
+class ExtractionContextTest extends Specification {
+
+    private final HtmlBeautifier htmlBeautifier = new HtmlBeautifier()
+
+    def describeParagraphs(List<MutableParagraph> paragraphs) {
+        paragraphs.collect {
+            [it.text, it.domPath, it.xpath, it.tagsCount, it.charsInLinksCount, it.url, it.wordsCount]
+        }
+    }
+
+    def loadHtml(String name) {
+        return getClass().getResource("/html/${name}").text
+    }
+
+    def testCurrent() {
+        when:
+        def context = ExtractionContext.current()
+        def otherContext = null
+
+        def thread = Thread.start { otherContext = ExtractionContext.current() }
+        thread.join()
+
+        then:
+        context.is(ExtractionContext.current())
+        otherContext != null
+        !context.is(otherContext)
+    }
+
+    def testTraverseConsecutiveDocuments() {
+        def names = ["BBCNatureReptile.html", "aardgas.html", "cosmos.html", "aardgas.html"]
+        def context = ExtractionContext.current()
+
+        expect:
+        names.each { name ->
+            def xml = htmlBeautifier.cleanHtml(loadHtml(name))
+            def expected = describeParagraphs(new ParagraphMaker(xml).traverse())
+
+            assert context.traverse(new StringReader(xml), new XmlParserBackend(), this.&describeParagraphs) == expected
+        }
+    }
+
+    def testTraverseWithDifferentBackends() {
+        def html = loadHtml("cosmos.html")
+        def context = ExtractionContext.current()
+
+        when:
+        def streamed = context.traverse(new StringReader(html), new StreamingHtmlParser(), this.&describeParagraphs)
+        def parsed = context.traverse(
+                new StringReader(htmlBeautifier.cleanHtml(html)), new XmlParserBackend(), this.&describeParagraphs)
+
+        then:
+        streamed == parsed
+    }
+
+    def testNothingIsRetained() {
+        def html = '<html><body><div><custom><p>text</p></custom></div><p><a>unclosed</a></body></html>'
+        def context = ExtractionContext.current()
+
+        when:
+        def paragraphsCount = context.traverse(new StringReader(html), new StreamingHtmlParser()) { it.size() }
+
+        then:
+        paragraphsCount == 2
+        assertNothingRetained(context)
+
+        when:
+        context.traverse(new StringReader(html), new StreamingHtmlParser()) { throw new IllegalStateException() }
+
+        then:
+        thrown(IllegalStateException)
+        assertNothingRetained(context)
+    }
+
+    void assertNothingRetained(ExtractionContext context) {
+        def paragraphMaker = context.paragraphMaker
+
+        assert paragraphMaker.paragraphs.isEmpty()
+        assert paragraphMaker.lastParagraph == null
+        assert paragraphMaker.pathInfo.depth == 0
+        assert paragraphMaker.pathInfo.otherTags.isEmpty()
+        assert paragraphMaker.pathInfo.elements.every { it == null }
+    }
+
+}
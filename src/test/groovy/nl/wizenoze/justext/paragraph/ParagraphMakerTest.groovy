@@ -1,6 +1,7 @@
 package nl.wizenoze.justext.paragraph
 
 import nl.wizenoze.justext.html.HtmlBeautifier
+import nl.wizenoze.justext.html.StreamingHtmlParser
 
 import spock.lang.Ignore
 import spock.lang.Specification
@@ -37,6 +38,33 @@ class ParagraphMakerTest extends Specification {
         paragraphMaker.traverse()
     }
 
+    def createParagraphsFromStream(String html) {
+        def paragraphMaker = new ParagraphMaker(new StringReader(html), new StreamingHtmlParser())
+
+        paragraphMaker.traverse()
+    }
+
+    def createParagraphsFromTagNode(String html) {
+        def rootNode = htmlBeautifier.clean(html)
+        def paragraphMaker = new ParagraphMaker(rootNode, htmlBeautifier)
+
+        paragraphMaker.traverse()
+    }
+
+    def describeContents(List<MutableParagraph> paragraphs) {
+        paragraphs.collect { [it.text, it.tagsCount, it.charsInLinksCount, it.url, it.wordsCount] }
+    }
+
+    def describeParagraphs(List<MutableParagraph> paragraphs) {
+        paragraphs.collect {
+            [it.text, it.domPath, it.xpath, it.tagsCount, it.charsInLinksCount, it.url, it.wordsCount]
+        }
+    }
+
+    def loadHtml(String name) {
+        return getClass().getResource("/html/${name}").text
+    }
+
     def testBasic() {
         def html = [
             '<html><body>',
@@ -87,6 +115,23 @@ class ParagraphMakerTest extends Specification {
         assertParagraphEqual(paragraphs[3], "pre inpost", 2, 1)
     }
 
+    def testWhitespaceAcrossTextChunks() {
+        def html = [
+            '<html><body>',
+            '<p>a &amp; \n b &lt; \u00A0c</p>',
+            '<p><a>x &amp;  y</a> z\u3000</p>',
+            '</body></html>'
+        ].join()
+
+        when:
+        def paragraphs = createParagraphs(html)
+
+        then:
+        paragraphs.size() == 2
+        assertParagraphEqual(paragraphs[0], "a &\nb < c", 5, 0)
+        assertParagraphEqual(paragraphs[1], "x & y z", 4, 1, 5)
+    }
+
     def testMultipleLineBreak() {
         def html = [
             '<html><body>',
@@ -177,4 +222,147 @@ class ParagraphMakerTest extends Specification {
         assertParagraphEqual(paragraphs[4], "I am inline\nand I am happy", 7, 0)
     }
 
+    def testXmlIsNotPruned() {
+        def xml = '<html><body><h1>h</h1><style>p{}</style><p>a</p><script>var s;</script><div>b<meta/>c</div></body></html>'
+
+        when:
+        def paragraphs = new ParagraphMaker(xml).traverse()
+
+        then:
+        paragraphs*.text == ["h", "p{}", "a", "var s;", "bc"]
+        paragraphs*.tagsCount == [0, 1, 0, 1, 1]
+    }
+
+    def testTagNodeTraversal() {
+        def html = [
+            '<html><head><title>Title</title></head><body>',
+            '<p>x&amp; &amp;y &lt;z&gt; &quot;q&quot; &nbsp;n&copy;c\r\n r\r s</p>',
+            '<p>a<!-- c --> <!-- d -->b</p>',
+            '<img src="a.png?x=1&amp;y=2" alt="a &amp; b\n\tc">',
+            '<div>after <a>text</a> with variable <var>N</var> </div>',
+            '</body></html>'
+        ].join()
+
+        when:
+        def paragraphs = createParagraphsFromTagNode(html)
+
+        then:
+        describeParagraphs(paragraphs) == describeParagraphs(createParagraphs(html))
+    }
+
+    def testTagNodeTraversalOfCdataContent() {
+        // Style and script are kept by malformed markup, their contents are serialized as /*<![CDATA[*/.../*]]>*/
+        when:
+        def paragraphs = createParagraphsFromTagNode(html)
+
+        then:
+        paragraphs*.text == texts
+        paragraphs*.tagsCount == tagsCounts
+
+        where:
+        html                                                | texts               | tagsCounts
+        '<html><body><p>x<table<style</p></body></html>'    | ["x", "/**//**/"]   | [0, 1]
+        '<html><body><table>b<div<script</body></html>'     | ["b/**//**/"]       | [1]
+    }
+
+    def testTagNodeTraversalOfLineBreaks() {
+        // Text is split before line breaks, like the XML parser splits it, and white space only chunks are dropped.
+        // Character references don't split text.
+        def html = [
+            '<html><body>',
+            '<p>a\nb\n  \n&amp;c</p>',
+            '<p>]b\r&gt;</p>',
+            '<p>x ]\r\n  \n<a>y</a></p>',
+            '<p>a\uD83D\uDE00\n  \n \uD83D\uDE00\n \n<b>c</b></p>',
+            '</body></html>'
+        ].join()
+
+        when:
+        def paragraphs = createParagraphsFromTagNode(html)
+
+        then:
+        describeParagraphs(paragraphs) == [
+            ["a\nb\n&c", "html.body.p", "/html[1]/body[1]/p[1]", 0, 0, null, 3],
+            ["]b\n>", "html.body.p", "/html[1]/body[1]/p[2]", 0, 0, null, 2],
+            ["x ]\ny", "html.body.p", "/html[1]/body[1]/p[3]", 1, 1, null, 3],
+            ["a\uD83D\uDE00\uD83D\uDE00c", "html.body.p", "/html[1]/body[1]/p[4]", 1, 0, null, 1]
+        ]
+        describeParagraphs(paragraphs) == describeParagraphs(createParagraphs(html))
+    }
+
+    def testTextAtBufferBoundaries() {
+        // The XML parser splits text at the end of its input buffer too, which mustn't drop the line breaks before the
+        // b elements, wherever the buffer ends.
+        def html = [
+            '<html><body>',
+            (1..1000).collect { "<p>${'a' * (it % 97 + 1)}\n  <b>b</b></p>" }.join(),
+            '</body></html>'
+        ].join()
+
+        when:
+        def paragraphs = createParagraphs(html)
+
+        then:
+        html.length() > 8192 * 5
+        paragraphs*.text == (1..1000).collect { "${'a' * (it % 97 + 1)}\nb" }
+        describeParagraphs(createParagraphsFromTagNode(html)) == describeParagraphs(paragraphs)
+        describeParagraphs(createParagraphsFromStream(html)) == describeParagraphs(paragraphs)
+    }
+
+    def testTagNodeTraversalOfDocuments() {
+        def names = [
+            "BBCNatureReptile.html", "Bill_Clinton.html", "Patrick_Pearse.html", "The_ice_bucket_challenge.html",
+            "aardgas.html", "bbc_bitesize.html", "cosmos.html", "grassland.html"
+        ]
+
+        expect:
+        names.each { name ->
+            def html = loadHtml(name)
+            assert describeParagraphs(createParagraphsFromTagNode(html)) == describeParagraphs(createParagraphs(html))
+        }
+    }
+
+    def testStreamingParserOfDocuments() {
+        def html = loadHtml(name)
+        def paragraphs = createParagraphs(html)
+        def streamedParagraphs = createParagraphsFromStream(html)
+
+        expect:
+        describeContents(streamedParagraphs) == describeContents(paragraphs)
+        paragraphs.indices.findAll { streamedParagraphs[it].xpath != paragraphs[it].xpath } == differentPaths
+        paragraphs.indices.findAll { streamedParagraphs[it].domPath != paragraphs[it].domPath } == differentPaths
+
+        where:
+        name                            | differentPaths
+        "BBCNatureReptile.html"         | []
+        "Patrick_Pearse.html"           | []
+        "The_ice_bucket_challenge.html" | []
+        "aardgas.html"                  | []
+        "bbc_bitesize.html"             | []
+        "cosmos.html"                   | []
+        // HtmlCleaner wraps the source elements of pictures, along with the images following them, into audio elements
+        "Bill_Clinton.html"             | [74, 84]
+        // HtmlCleaner closes the enclosing tables at the end tag of a nested form
+        "grassland.html"                | (59..103).toList()
+    }
+
+    def testStreamingParserOfMalformedMarkup() {
+        // Malformed markup is repaired differently than by HtmlCleaner, see StreamingHtmlParser.
+        def html = "<html><body>${fragment}</body></html>"
+        def describe = { MutableParagraph paragraph -> "${paragraph.xpath - "/html[1]/body[1]"}: ${paragraph.text}" }
+
+        expect:
+        createParagraphs(html).collect(describe) == paragraphs
+        createParagraphsFromStream(html).collect(describe) == streamedParagraphs
+
+        where:
+        fragment                          | paragraphs                              | streamedParagraphs
+        '<p>a<div>b</div>c</p>'           | ["/p[1]: a", "/div[1]: b", "/p[2]: c"]  | ["/p[1]: a", "/div[1]: b", ": c"]
+        '<b><p>x</b>y</p>'                | ["/p[1]: xy"]                           | ["/b[1]/p[1]: x", "/b[1]: y"]
+        '<table><td>x</table>'            | ["/table[1]/tbody[1]/tr[1]/td[1]: x"]   | ["/table[1]/td[1]: x"]
+        '<textarea>b <i>c</i></textarea>' | ["/textarea[1]: b c"]                   | ["/textarea[1]: b <i>c</i>"]
+        '<p>a<![CDATA[b]]>c</p>'          | ["/p[1]: a<![CDATA[b]]>c"]              | ["/p[1]: abc"]
+        '<p>a&#xZZ;c</p>'                 | ["/p[1]: a&ZZ;c"]                       | ["/p[1]: a&#xZZ;c"]
+    }
+
 }
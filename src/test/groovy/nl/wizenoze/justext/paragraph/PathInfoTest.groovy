@@ -95,6 +95,52 @@ class PathInfoTest extends Specification {
         path.xpath() == "/html[1]/body[1]"
     }
 
+    def testElementsAreCountedAcrossParents() {
+        when:
+        PathInfo path = new PathInfo().append("html").append("body").append("div").append("p").pop().pop()
+
+        then:
+        path.append("section").append("p")
+
+        path.dom() == "html.body.section.p"
+        path.xpath() == "/html[1]/body[1]/section[1]/p[2]"
+    }
+
+    def testManyElementsWithTheSameName() {
+        when:
+        PathInfo path = new PathInfo().append("html")
+
+        then:
+        12.times { path.append("td").pop() }
+        path.append("TD").append("td")
+
+        path.dom() == "html.TD.td"
+        path.xpath() == "/html[1]/TD[1]/td[13]"
+    }
+
+    def testFlags() {
+        when:
+        PathInfo path = new PathInfo()
+        tagNames.each { path.append(it) }
+
+        then:
+        path.peek().flags == flags
+        path.peek().flags == PathFlags.getFlags(path.dom())
+
+        where:
+        tagNames                           | flags
+        ["html", "body", "div"]            | 0
+        ["html", "body", "h1", "span"]     | PathFlags.HEADING + PathFlags.HEADLINE
+        ["html", "body", "h3"]             | PathFlags.HEADING
+        ["html", "body", "H3"]             | 0
+        ["html", "x-h2", "img"]            | PathFlags.HEADING + PathFlags.IMAGE
+        ["html", "h10", "imgs"]            | 0
+        ["select", "option"]               | PathFlags.SELECT
+        ["html", "form", "selectmenu"]     | PathFlags.SELECT
+        ["html", "a.select", "b"]          | PathFlags.SELECT
+        ["html", "unselect"]               | 0
+    }
+
     def testPopOnEmptyPathRaisesException() {
         PathInfo path = new PathInfo()
 
@@ -105,4 +151,13 @@ class PathInfoTest extends Specification {
         thrown NoSuchElementException
     }
 
+    def testClear() {
+        when:
+        PathInfo path = new PathInfo().append("html").append("body").append("div").clear().append("html")
+
+        then:
+        path.dom() == "html"
+        path.xpath() == "/html[1]"
+    }
+
 }
@@ -0,0 +1,47 @@
+package nl.wizenoze.justext.paragraph
+
+import spock.lang.Specification
+
+/**
+ * Created by lcsontos on 10/17/26.
+ */
+class TagTableTest extends Specification {
+
+    def testParagraphTags() {
+        expect:
+        ParagraphTag.values().every { paragraphTag ->
+            def tagId = TagTable.getId(paragraphTag.name())
+
+            tagId == paragraphTag.ordinal() &&
+                    TagTable.getId(paragraphTag.name().toLowerCase()) == tagId &&
+                    TagTable.getName(tagId) == paragraphTag.name().toLowerCase() &&
+                    (TagTable.getFlags(tagId) & TagTable.PARAGRAPH) != 0
+        }
+    }
+
+    def testFlags() {
+        expect:
+        TagTable.getFlags(TagTable.getId(tagName)) == flags
+
+        where:
+        tagName      | flags
+        "a"          | TagTable.LINK
+        "A"          | TagTable.LINK
+        "br"         | TagTable.BREAK
+        "Br"         | TagTable.BREAK
+        "img"        | TagTable.PARAGRAPH + TagTable.IMAGE
+        "iMg"        | TagTable.PARAGRAPH + TagTable.IMAGE
+        "span"       | 0
+        ""           | 0
+        "blöck" | 0
+    }
+
+    def testUnknownTags() {
+        expect:
+        TagTable.getId(tagName) == TagTable.UNKNOWN
+
+        where:
+        tagName << ["span", "h7", "abbr", "b", "tdd", "t", "i̇mg", "@", "H1 "]
+    }
+
+}
@@ -0,0 +1,62 @@
+package nl.wizenoze.justext.util
+
+import spock.lang.Specification
+
+/**
+ * Created by lcsontos on 10/17/26.
+ */
+class LanguageDetectorTest extends Specification {
+
+    def feed(LanguageDetector languageDetector, String text) {
+        def matcher = text =~ /\S+/
+        int[] wordOffsets = matcher.collect { [matcher.start(), matcher.end()] }.flatten()
+
+        languageDetector.countStopWords(text, wordOffsets)
+    }
+
+    def testDetectLanguage() {
+        def languageDetector = new LanguageDetector()
+
+        when:
+        feed(languageDetector, text)
+
+        then:
+        languageDetector.languageCode == languageCode
+
+        where:
+        text                                                                    || languageCode
+        "The cat is sitting on the mat and it is looking at the window"         || "en"
+        "De kat zit op de mat en kijkt naar het raam"                           || "nl"
+        "Die Katze sitzt auf der Matte und schaut aus dem Fenster"              || "de"
+        "Ez egy nagyon szép nap volt és mi is a parkban voltunk mert nem esett" || "hu"
+        "Le chat est assis sur le tapis et il regarde par la fenêtre"           || "fr"
+        "xyzzy 12345"                                                           || null
+    }
+
+    def testScores() {
+        def stopWordDictionary = new StopWordDictionary(StopWordDictionaryWriter.compile([
+            "de": ["und", "die"],
+            "en": ["the", "and", "die"]
+        ]))
+        def languageDetector = new LanguageDetector(stopWordDictionary)
+
+        when:
+        def stopWordsCount = feed(languageDetector, "The die is cast and THE game is over")
+
+        then:
+        stopWordsCount == 4
+        languageDetector.stopWordsCount == 4
+        languageDetector.scores == [en: 4, de: 1]
+        languageDetector.scores.keySet() as List == ["en", "de"]
+        languageDetector.languageCode == "en"
+
+        when:
+        languageDetector.reset()
+
+        then:
+        languageDetector.stopWordsCount == 0
+        languageDetector.scores.isEmpty()
+        languageDetector.languageCode == null
+    }
+
+}
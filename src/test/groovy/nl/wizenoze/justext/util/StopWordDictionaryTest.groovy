@@ -0,0 +1,177 @@
+package nl.wizenoze.justext.util
+
+import nl.wizenoze.justext.exception.JusTextStopWordsException
+import spock.lang.Specification
+
+import java.nio.ByteBuffer
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.Paths
+
+/**
+ * Created by lcsontos on 10/17/26.
+ */
+class StopWordDictionaryTest extends Specification {
+
+    def stopWordDictionary = new StopWordDictionary(StopWordDictionaryWriter.compile([
+        "de": ["und", "die", "größte"],
+        "en": ["the", "and", "die"],
+        "hu": ["és", "az", "a"]
+    ]))
+
+    def testLanguages() {
+        expect:
+        stopWordDictionary.languageCodes == ["de", "en", "hu"] as Set
+        stopWordDictionary.getStopWords("en").size() == 3
+        stopWordDictionary.getStopWords("en") as Set == ["the", "and", "die"] as Set
+        stopWordDictionary.getStopWords("de") as Set == ["und", "die", "größte"] as Set
+    }
+
+    def testNoSuchLanguageCode() {
+        when:
+        stopWordDictionary.getStopWords("xx")
+
+        then:
+        thrown(JusTextStopWordsException)
+    }
+
+    def testInvalid() {
+        when:
+        new StopWordDictionary(ByteBuffer.wrap("stopwords".getBytes(StandardCharsets.US_ASCII)))
+
+        then:
+        thrown(JusTextStopWordsException)
+    }
+
+    def testInvalidLayout() {
+        def bytes = StopWordDictionaryWriter.compile(["en": ["the", "and"]]).array()
+        def buffer = ByteBuffer.wrap(bytes)
+
+        // The table follows the header of one language and one mask
+        def tableSizeOffset = 3 * Integer.BYTES + 1 + 2 + Integer.BYTES + 2 * Integer.BYTES + Long.BYTES
+        def tableSize = buffer.getInt(tableSizeOffset)
+        def slotOffsets = (1..tableSize).collect { tableSizeOffset + it * Integer.BYTES }
+        def entryOffset = slotOffsets.collect { buffer.getInt(it) }.find { it != 0 }
+
+        expect:
+        new StopWordDictionary(buffer.duplicate()).getStopWords("en").contains("the")
+        Integer.bitCount(tableSize) == 1
+
+        when:
+        corrupt([buffer: buffer, tableSizeOffset: tableSizeOffset, slotOffsets: slotOffsets, entryOffset: entryOffset])
+        new StopWordDictionary(buffer)
+
+        then:
+        thrown(JusTextStopWordsException)
+
+        where:
+        corrupt << [
+            { it.buffer.limit(it.buffer.limit() - 1) },
+            { it.buffer.putInt(2 * Integer.BYTES, Integer.MAX_VALUE) },
+            { it.buffer.putInt(it.tableSizeOffset, 3) },
+            { it.buffer.putInt(it.slotOffsets[0], it.buffer.limit()) },
+            { layout -> layout.slotOffsets.each { layout.buffer.putInt(it, layout.entryOffset) } }
+        ]
+    }
+
+    def testContains() {
+        expect:
+        stopWordDictionary.getStopWords(languageCode).contains(word) == result
+
+        where:
+        languageCode | word     || result
+        "en"         | "the"    || true
+        "en"         | "The"    || false
+        "en"         | "die"    || true
+        "de"         | "die"    || true
+        "hu"         | "die"    || false
+        "de"         | "größte" || true
+        "en"         | "größte" || false
+        "en"         | 1        || false
+    }
+
+    def testContainsRange() {
+        expect:
+        stopWordDictionary.getStopWords(languageCode).contains(text, start, end) == result
+
+        where:
+        languageCode | text         | start | end || result
+        "en"         | "THE"        | 0     | 3   || true
+        "en"         | "xx The yy"  | 3     | 6   || true
+        "en"         | "then"       | 0     | 4   || false
+        "de"         | "Die"        | 0     | 3   || true
+        "de"         | "GRÖSSTE"    | 0     | 7   || false
+        "de"         | "Größte"     | 0     | 6   || true
+        "hu"         | "És"         | 0     | 2   || true
+        "hu"         | "A"          | 0     | 1   || true
+        "hu"         | ""           | 0     | 0   || false
+    }
+
+    def testOpen() {
+        def path = Files.createTempFile("stopwords", ".dict")
+
+        when:
+        Files.newOutputStream(path).withCloseable {
+            StopWordDictionaryWriter.write(Paths.get("src/main/resources/stopwords"), it)
+        }
+        def openedDictionary = StopWordDictionary.open(path)
+
+        then:
+        openedDictionary.size == Files.size(path)
+        openedDictionary.getStopWords("nl").contains("Zijn", 0, 4)
+
+        cleanup:
+        Files.deleteIfExists(path)
+    }
+
+    def testDefaultIsUpToDate() {
+        def outputStream = new ByteArrayOutputStream()
+
+        when:
+        StopWordDictionaryWriter.write(Paths.get("src/main/resources/stopwords"), outputStream)
+
+        then:
+        getClass().getResourceAsStream("/stopwords.dict").bytes == outputStream.toByteArray()
+    }
+
+    def testDefaultMatchesLists() {
+        def defaultDictionary = StopWordDictionary.getDefault()
+
+        expect:
+        defaultDictionary.languageCodes.size() == 85
+        defaultDictionary.languageCodes.each { languageCode ->
+            def lines = getClass().getResourceAsStream("/stopwords/${languageCode}").getText("UTF-8").readLines()
+            def stopWords = lines*.toLowerCase() as Set
+            def dictionaryStopWords = defaultDictionary.getStopWords(languageCode)
+
+            assert dictionaryStopWords.size() == stopWords.size()
+            assert dictionaryStopWords.containsAll(stopWords)
+            assert stopWords.containsAll(dictionaryStopWords)
+        }
+    }
+
+    def testMultiLanguageMatcher() {
+        def stopWordMatcher = stopWordDictionary.getStopWordMatcher(["de", "hu"])
+        def text = "Die az und a DIE the"
+        int[] wordOffsets = [0, 3, 4, 6, 7, 10, 11, 12, 13, 16, 17, 20]
+
+        expect:
+        stopWordMatcher.contains(text, 0, 3)
+        stopWordMatcher.contains(text, 4, 6)
+        !stopWordMatcher.contains(text, 17, 20)
+        stopWordMatcher.countStopWords(text, wordOffsets) == 3
+        stopWordDictionary.getStopWordMatcher(["en", "hu"]).countStopWords(text, wordOffsets) == 3
+        stopWordDictionary.getStopWordMatcher(["en", "de"]).countStopWords(text, wordOffsets) == 3
+        stopWordDictionary.getStopWordMatcher(["hu"]).countStopWords(text, wordOffsets) == 2
+        stopWordDictionary.getStopWordMatcher([]).countStopWords(text, wordOffsets) == 0
+    }
+
+    def testMultiLanguageMatcherNoSuchLanguageCode() {
+        when:
+        stopWordDictionary.getStopWordMatcher(["de", "xx"])
+
+        then:
+        thrown(JusTextStopWordsException)
+    }
+
+}
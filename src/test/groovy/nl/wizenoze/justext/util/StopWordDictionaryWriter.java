@@ -0,0 +1,230 @@
+/**
+ * Copyright (c) 2016-present WizeNoze B.V. All rights reserved.
+ *
+ * This file is part of justext-java.
+ *
+ * justext-java is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * justext-java is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with justext-java.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package nl.wizenoze.justext.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import nl.wizenoze.justext.exception.JusTextStopWordsException;
+
+/**
+ * Compiles the plain-text stop-word lists into the binary format of {@link StopWordDictionary}. The output only depends
+ * on the contents of the lists, thus the artifact is reproducible.
+ *
+ * <p>
+ * It's a build tool, therefore it's kept with the tests and it isn't part of the library. The dictionary shipped with
+ * the library is regenerated by <code>mvn -P compile-stopwords process-test-classes</code>, which runs
+ * {@link #main(String[])}.
+ * </p>
+ */
+public final class StopWordDictionaryWriter {
+
+    private StopWordDictionaryWriter() {
+    }
+
+    /**
+     * Compiles the stop-word lists of a directory into a dictionary file.
+     *
+     * @param args directory of the stop-word lists and the dictionary file to write.
+     * @throws IOException if the lists can't be read or the dictionary can't be written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: StopWordDictionaryWriter <stop-words directory> <output file>");
+        }
+
+        Path outputPath = Paths.get(args[1]);
+
+        Files.createDirectories(outputPath.toAbsolutePath().getParent());
+
+        try (OutputStream outputStream = Files.newOutputStream(outputPath)) {
+            write(Paths.get(args[0]), outputStream);
+        }
+    }
+
+    /**
+     * Compiles the stop-word lists of the given directory into a dictionary. Each file holds the stop-words of the
+     * language its name is the code of, one word per line.
+     *
+     * @param directory directory of the stop-word lists.
+     * @param outputStream stream to write the dictionary to.
+     * @throws IOException if the lists can't be read or the dictionary can't be written.
+     */
+    public static void write(Path directory, OutputStream outputStream) throws IOException {
+        List<Path> paths;
+
+        try (Stream<Path> stream = Files.list(directory)) {
+            paths = stream.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+
+        Map<String, List<String>> stopWords = new TreeMap<>();
+
+        for (Path path : paths) {
+            List<String> words = Files.readAllLines(path, StandardCharsets.UTF_8);
+
+            stopWords.put(
+                    path.getFileName().toString(),
+                    words.stream().map(word -> word.toLowerCase(Locale.ROOT)).collect(Collectors.toList()));
+        }
+
+        ByteBuffer buffer = compile(stopWords);
+
+        outputStream.write(buffer.array(), 0, buffer.limit());
+    }
+
+    /*
+     * Layout, all values are big-endian:
+     *
+     *   int magic, int version
+     *   int languageCount, {byte codeLength, ASCII code, int wordCount} * languageCount
+     *   int maskWords, int maskCount, long[maskWords] * maskCount
+     *   int tableSize, int[tableSize] absolute offsets of the entries, 0 if the slot is empty
+     *   {int hash, char maskIndex, char length, char[length] word} * wordCount
+     *
+     * A mask is the set of languages a word is a stop-word in; words sharing the same set share the same mask. The
+     * table is an open-addressing hash table with linear probing, indexed by the hash code of the word as a String.
+     */
+    static ByteBuffer compile(Map<String, ? extends Iterable<String>> stopWords) {
+        List<String> languageCodes = new ArrayList<>(stopWords.keySet());
+        SortedMap<String, BitSet> languages = new TreeMap<>();
+        int[] wordCounts = new int[languageCodes.size()];
+
+        for (int languageIndex = 0; languageIndex < languageCodes.size(); languageIndex++) {
+            for (String word : stopWords.get(languageCodes.get(languageIndex))) {
+                BitSet bitSet = languages.computeIfAbsent(word, key -> new BitSet());
+
+                if (!bitSet.get(languageIndex)) {
+                    bitSet.set(languageIndex);
+                    wordCounts[languageIndex]++;
+                }
+            }
+        }
+
+        Map<BitSet, Integer> maskIndexes = new HashMap<>();
+        List<BitSet> masks = new ArrayList<>();
+
+        for (BitSet bitSet : languages.values()) {
+            if (!maskIndexes.containsKey(bitSet)) {
+                maskIndexes.put(bitSet, masks.size());
+                masks.add(bitSet);
+            }
+        }
+
+        if (masks.size() > Character.MAX_VALUE) {
+            throw new JusTextStopWordsException("Too many distinct sets of languages: " + masks.size());
+        }
+
+        int maskWords = (languageCodes.size() + Long.SIZE - 1) / Long.SIZE;
+        int tableSize = StopWordDictionary.getTableSize(languages.size());
+
+        int headerSize = Integer.BYTES * 3;
+
+        for (String languageCode : languageCodes) {
+            headerSize += Byte.BYTES + languageCode.length() + Integer.BYTES;
+        }
+
+        headerSize += Integer.BYTES * 2 + masks.size() * maskWords * Long.BYTES;
+        headerSize += Integer.BYTES + tableSize * Integer.BYTES;
+
+        int size = headerSize;
+
+        for (String word : languages.keySet()) {
+            if (word.length() > Character.MAX_VALUE) {
+                throw new JusTextStopWordsException("Stop-word is too long: " + StringUtil.shorten(word));
+            }
+
+            size += StopWordDictionary.ENTRY_HEADER_SIZE + word.length() * Character.BYTES;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+
+        buffer.putInt(StopWordDictionary.MAGIC);
+        buffer.putInt(StopWordDictionary.VERSION);
+        buffer.putInt(languageCodes.size());
+
+        for (int languageIndex = 0; languageIndex < languageCodes.size(); languageIndex++) {
+            byte[] code = languageCodes.get(languageIndex).getBytes(StandardCharsets.US_ASCII);
+
+            buffer.put((byte) code.length);
+            buffer.put(code);
+            buffer.putInt(wordCounts[languageIndex]);
+        }
+
+        buffer.putInt(maskWords);
+        buffer.putInt(masks.size());
+
+        for (BitSet mask : masks) {
+            long[] words = mask.toLongArray();
+
+            for (int index = 0; index < maskWords; index++) {
+                buffer.putLong(index < words.length ? words[index] : 0L);
+            }
+        }
+
+        buffer.putInt(tableSize);
+
+        int tableOffset = buffer.position();
+        int entryOffset = headerSize;
+
+        buffer.position(entryOffset);
+
+        for (Map.Entry<String, BitSet> entry : languages.entrySet()) {
+            String word = entry.getKey();
+            int hash = word.hashCode();
+            int slot = StopWordDictionary.spread(hash) & (tableSize - 1);
+
+            while (buffer.getInt(tableOffset + slot * Integer.BYTES) != 0) {
+                slot = (slot + 1) & (tableSize - 1);
+            }
+
+            buffer.putInt(tableOffset + slot * Integer.BYTES, entryOffset);
+
+            buffer.putInt(hash);
+            buffer.putChar((char) maskIndexes.get(entry.getValue()).intValue());
+            buffer.putChar((char) word.length());
+
+            for (int index = 0; index < word.length(); index++) {
+                buffer.putChar(word.charAt(index));
+            }
+
+            entryOffset = buffer.position();
+        }
+
+        buffer.flip();
+
+        return buffer;
+    }
+
+}
@@ -0,0 +1,93 @@
+package nl.wizenoze.justext.util
+
+import spock.lang.Specification
+
+/**
+ * Created by lcsontos on 10/17/26.
+ */
+class StopWordSetTest extends Specification {
+
+    def stopWordSet = new StopWordSet(["the", "and", "és", "a", "the"])
+
+    def testSetSemantics() {
+        expect:
+        stopWordSet.size() == 4
+        stopWordSet as Set == ["the", "and", "és", "a"] as Set
+        stopWordSet.contains("the")
+        !stopWordSet.contains("The")
+        !stopWordSet.contains("then")
+        !stopWordSet.contains(1)
+    }
+
+    def testEmpty() {
+        def emptySet = new StopWordSet([])
+
+        expect:
+        emptySet.isEmpty()
+        !emptySet.iterator().hasNext()
+        !emptySet.contains("the", 0, 3)
+    }
+
+    def testContainsRange() {
+        expect:
+        stopWordSet.contains(text, start, end) == result
+
+        where:
+        text              | start | end || result
+        "the"             | 0     | 3   || true
+        "THE"             | 0     | 3   || true
+        "xx The yy"       | 3     | 6   || true
+        "then"            | 0     | 4   || false
+        "then"            | 0     | 3   || true
+        "És"              | 0     | 2   || true
+        "ÉS"              | 0     | 2   || true
+        "es"              | 0     | 2   || false
+        ""                | 0     | 0   || false
+        "a"               | 0     | 1   || true
+    }
+
+    def testCountStopWords() {
+        def text = "The cat and the hat"
+        int[] wordOffsets = [0, 3, 4, 7, 8, 11, 12, 15, 16, 19]
+
+        expect:
+        stopWordSet.asMatcher().countStopWords(text, wordOffsets) == 3
+    }
+
+    def testOf() {
+        def stopWords = ["the"] as Set
+
+        expect:
+        StopWordMatcher.of(stopWordSet).is(stopWordSet.asMatcher())
+        StopWordMatcher.of(stopWords).contains("The", 0, 3)
+        StopWordMatcher.of(stopWords).is(StopWordMatcher.of(stopWords))
+        !StopWordMatcher.of(stopWords).is(StopWordMatcher.of(["the"] as Set))
+    }
+
+    def testOfModifiedSet() {
+        def stopWords = ["the"] as Set
+        def stopWordMatcher = StopWordMatcher.of(stopWords)
+
+        when:
+        stopWords.add("and")
+
+        then:
+        !stopWordMatcher.contains("And", 0, 3)
+        StopWordMatcher.of(stopWords).contains("And", 0, 3)
+        !StopWordMatcher.of(stopWords).is(stopWordMatcher)
+    }
+
+    def testOfManySets() {
+        def sets = (1..20).collect { ["word${it}".toString()] as Set }
+
+        expect:
+        sets.every { set -> StopWordMatcher.of(set).contains(set.first(), 0, set.first().length()) }
+        sets.every { set -> !StopWordMatcher.of(set).contains("the", 0, 3) }
+    }
+
+    def testMemoryUsage() {
+        expect:
+        stopWordSet.memoryUsage > new StopWordSet(["the"]).memoryUsage
+    }
+
+}
@@ -57,4 +57,47 @@ class StopWordsUtilTest extends Specification {
         thrown(JusTextStopWordsException)
     }
 
+    def testCached() {
+        expect:
+        StopWordsUtil.getStopWords("en").is(StopWordsUtil.getStopWords("en"))
+        "en" in StopWordsUtil.getCachedLanguageCodes()
+    }
+
+    def testNullLanguageCode() {
+        when:
+        StopWordsUtil.getStopWords(null)
+
+        then:
+        thrown(JusTextStopWordsException)
+    }
+
+    def testPreload() {
+        when:
+        StopWordsUtil.preload("nl", "ko")
+
+        then:
+        StopWordsUtil.getCachedLanguageCodes().containsAll(["ko", "nl"])
+        StopWordsUtil.getStopWords("ko").contains("있다")
+        StopWordsUtil.getCachedMemoryUsage() >= 0
+    }
+
+    def testPreloadNoSuchLanguageCode() {
+        when:
+        StopWordsUtil.preload("nl", "xx")
+
+        then:
+        thrown(JusTextStopWordsException)
+        !("xx" in StopWordsUtil.getCachedLanguageCodes())
+    }
+
+    def testStopWordMatcher() {
+        def text = "de kat and the hat"
+        int[] wordOffsets = [0, 2, 3, 6, 7, 10, 11, 14, 15, 18]
+
+        expect:
+        StopWordsUtil.getStopWordMatcher("en", "nl").countStopWords(text, wordOffsets) == 2
+        StopWordsUtil.getStopWordMatcher("nl").countStopWords(text, wordOffsets) == 1
+        StopWordsUtil.getStopWordMatcher(["en", "nl"]).contains(text, 0, 2)
+    }
+
 }
@@ -31,6 +31,25 @@ class StringUtilTest extends Specification {
         blank
     }
 
+    def testIsBlankWithCharacters() {
+        when:
+        char[] chars = "a \t\n\r\u00a0\u202fb".toCharArray()
+
+        then:
+        StringUtil.isBlank(chars, 1, 6)
+        !StringUtil.isBlank(chars, 0, 6)
+        !StringUtil.isBlank(chars, 1, 7)
+        StringUtil.isBlank(chars, 3, 0)
+    }
+
+    def testIsUnicodeWhiteSpace() {
+        expect:
+        " \t\n\u000b\f\r\u0085\u00a0\u1680\u2000\u200a\u2028\u2029\u202f\u205f\u3000".every {
+            StringUtil.isUnicodeWhiteSpace(it as char)
+        }
+        !"a\u0000\u001c\u200b\ufeff".any { StringUtil.isUnicodeWhiteSpace(it as char) }
+    }
+
     def testIsEmptyWithNull() {
         when:
         boolean empty = StringUtil.isEmpty(null)
@@ -96,6 +115,26 @@ class StringUtilTest extends Specification {
         expected == normalized
     }
 
+    def testNormalizeIntoBuilder() {
+        def normalized = new StringBuilder("x")
+
+        when:
+        StringUtil.normalizeWhiteSpaces("\u00A0\t \u20AC\u202F \t\r\n1\u2028", normalized)
+
+        then:
+        normalized.toString() == "x \u20AC\n1 "
+    }
+
+    def testNormalizeIntoArray() {
+        char[] chars = "..123 \n456\t\n".toCharArray()
+
+        when:
+        int length = StringUtil.normalizeWhiteSpaces(chars, 2, chars.length - 2, chars, 0)
+
+        then:
+        new String(chars, 0, length) == "123\n456\n"
+    }
+
     def testShorten() {
         expect:
         StringUtil.shorten("12345678901234567890xyz") == "12345678901234567..."